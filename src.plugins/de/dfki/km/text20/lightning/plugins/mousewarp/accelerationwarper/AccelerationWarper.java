@@ -24,21 +24,28 @@ import java.awt.AWTException;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.ArrayList;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseKinematics;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseTrajectory;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.RobotWarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpFeatures;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpPipeline;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRule;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRules;
 import de.dfki.km.text20.lightning.plugins.mousewarp.accelerationwarper.gui.AccelerationWarperConfigImpl;
 
 /**
@@ -52,7 +59,7 @@ import de.dfki.km.text20.lightning.plugins.mousewarp.accelerationwarper.gui.Acce
  * 
  */
 @PluginImplementation
-public class AccelerationWarper implements MouseWarper {
+public class AccelerationWarper implements MouseWarper, TunableWarper {
 
     /** threshold for the angle */
     private int angleThres;
@@ -63,35 +70,44 @@ public class AccelerationWarper implements MouseWarper {
     /** needed time to react on the mouse warp */
     private int reactionTime;
 
+    /** velocity and acceleration estimation over the stored mousepositions */
+    private MouseKinematics kinematics;
+
     /** a list of all stored mouseposition */
-    private ArrayList<Point> mousePositions;
+    private MouseTrajectory mousePositions;
+
+    /** features of the current sample which are shared by the rules */
+    private WarpFeatures features;
+
+    /** rule which is fulfilled while the mouse moves */
+    private WarpRule moving;
+
+    /** rule which rejects the warp if the cursor reaches the fixation by itself */
+    private WarpRule reach;
+
+    /** rules which have to be fulfilled for a warp after the acceleration */
+    private WarpPipeline pipeline;
 
     /** last fixation */
     private Point fixation;
 
-    /** necessary to move the mouse */
-    private Robot robot;
+    /** moves the mouse, only records the warps in shadow mode */
+    private WarpMover mover;
+
+    /** tuned parameters which replace the properties, null if the properties are used */
+    private double[] parameters;
 
     /** information object */
     private PluginInformation information;
 
-    /** angle between mouse vector and start-fixation-vector */
-    private double angle;
-
     /** stored properties for this plugin */
     private AccelerationWarperProperties propertie;
 
     /** indicates if any calculations are already running */
     private boolean isProcessing;
 
-    /** distance from sthe start to the stop of the mousevector */
-    private double distanceStopFix;
-
-    /** speed of the mouse */
-    private double velocityStartMid;
-
-    /** speed of the mouse */
-    private double velocityMidEnd;
+    /** speed of the mouse in pixel per millisecond */
+    private double velocity;
 
     /** radius in which the mousecursor will be placed around the fixation */
     private int setR;
@@ -105,8 +121,10 @@ public class AccelerationWarper implements MouseWarper {
     /** current screen resolution */
     private int yMax;
 
+    /** acceleration along the movement in pixel per square millisecond */
     private double acceleration;
 
+    /** indicates if the acceleration threshold was exceeded */
     private boolean accelerated;
 
     /**
@@ -117,15 +135,18 @@ public class AccelerationWarper implements MouseWarper {
         this.angleThres = 0;
         this.accThres = 0;
         this.reactionTime = 0;
-        this.mousePositions = new ArrayList<Point>();
+        // three positions like before, the fit is then the three point difference the threshold was made for
+        this.kinematics = new MouseKinematics(3);
+        this.mousePositions = this.kinematics.getTrajectory();
+        this.features = new WarpFeatures(this.kinematics);
+        this.moving = WarpRules.moving();
+        this.reach = null;
+        this.pipeline = new WarpPipeline();
         this.fixation = null;
         this.information = new PluginInformation("Acceleration Warper", "..soon", true);
-        this.angle = 0;
         this.propertie = null;
         this.isProcessing = false;
-        this.distanceStopFix = 0;
-        this.velocityStartMid = 0;
-        this.velocityMidEnd = 0;
+        this.velocity = 0;
         this.setR = 0;
         this.setPoint = new Point();
         this.xMax = 0;
@@ -133,11 +154,8 @@ public class AccelerationWarper implements MouseWarper {
         this.acceleration = 0;
         this.accelerated = false;
 
-        try {
-            this.robot = new Robot();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.mover = new RobotWarpMover();
+        this.parameters = null;
     }
 
     /*
@@ -154,8 +172,21 @@ public class AccelerationWarper implements MouseWarper {
         this.angleThres = this.propertie.getAngleThreshold();
         this.accThres = this.propertie.getAcceleration();
         this.reactionTime = this.propertie.getReactionTime();
-        this.xMax = Toolkit.getDefaultToolkit().getScreenSize().width;
-        this.yMax = Toolkit.getDefaultToolkit().getScreenSize().height;
+
+        // tuned parameters replace the properties
+        if (this.parameters != null) {
+            this.angleThres = (int) Math.round(this.parameters[0]);
+            this.accThres = this.parameters[1];
+            this.reactionTime = (int) Math.round(this.parameters[2]);
+        }
+        this.xMax = this.mover.getScreenSize().width;
+        this.yMax = this.mover.getScreenSize().height;
+
+        // home radius by reaction time and angle
+        this.reach = WarpRules.outsideReach(this.reactionTime);
+        this.pipeline = new WarpPipeline();
+        this.pipeline.add(this.reach);
+        this.pipeline.add(WarpRules.headingToFixation(this.angleThres));
 
         // refresh map
         this.refreshMouseMap();
@@ -192,11 +223,8 @@ public class AccelerationWarper implements MouseWarper {
         // TODO: debugging
         //        long tmp = System.currentTimeMillis();
 
-        // add to map
-        this.mousePositions.add(position);
-
-        // remove first
-        this.mousePositions.remove(0);
+        // add to history, the oldest position falls out
+        this.kinematics.add(position.x, position.y, this.mover.nanoTime());
 
         // check if fixation is placed
         if ((this.fixation == null || !isFixationValid)) {
@@ -206,23 +234,23 @@ public class AccelerationWarper implements MouseWarper {
         }
 
         // calculate velocity and setR
-        this.velocityStartMid = this.mousePositions.get(0).distance(this.mousePositions.get(1)) / interval;
-        this.velocityMidEnd = this.mousePositions.get(1).distance(this.mousePositions.get(2)) / interval;
-        this.setR = (int) (this.velocityMidEnd * this.reactionTime);
+        this.features.update(this.fixation);
+        this.velocity = this.features.getSpeed();
+        this.setR = (int) (this.velocity * this.reactionTime);
 
-        // check velocity, this means the movement slows down
-        if ((this.velocityMidEnd == 0) || (this.velocityStartMid == 0)) {
+        // check velocity, this means the mouse rests
+        if (!this.moving.accepts(this.features)) {
             this.isProcessing = false;
             this.accelerated = false;
             return;
         }
 
         // calculate acceleration
-        this.acceleration = (this.velocityMidEnd - this.velocityStartMid) / interval;
+        this.acceleration = this.features.getTangentialAcceleration();
 
         // TODO: debugging
         //        if (this.acceleration > 0) {
-        //            System.out.println(this.acceleration + " | " + this.velocityStartMid + " | " + this.velocityMidEnd);
+        //            System.out.println(this.acceleration + " | " + this.velocity);
         //        }
 
         // check the acceleration
@@ -241,35 +269,22 @@ public class AccelerationWarper implements MouseWarper {
 
     private void calculate() {
 
-        // store distance
-        this.distanceStopFix = this.mousePositions.get(2).distance(this.fixation);
-
-        // check if the cursor is already in home radius
-        if (this.distanceStopFix < this.setR) {
-            this.isProcessing = false;
-            this.accelerated = false;
-            System.out.println(this.setR + " > " + this.distanceStopFix);
-            return;
-        }
-
-        // checks the angle between mouse movement and vector between end of the mouse movement and fixation point
-        this.angle = calculateAngle(this.mousePositions.get(1), this.mousePositions.get(2));
-        if ((this.angle > this.angleThres)) {
+        // check if the cursor is already in home radius and the angle between mouse movement and vector
+        // between end of the mouse movement and fixation point
+        if (!this.pipeline.accepts(this.features)) {
             this.isProcessing = false;
 
-            // no this.accelerated = false; because a change in direction could be lead to an correct movement,
+            // only the home radius resets, because a change in direction could be lead to an correct movement,
             // but if the boolean is reseted here, it is not recognized
+            if (this.pipeline.getRejection() == this.reach) this.accelerated = false;
             return;
         }
 
         // calculate setpoint
         this.setPoint = this.calculateSetPoint(this.setR);
 
-        // places mouse cursor at the fixation point
-        this.robot.mouseMove(this.setPoint.x, this.setPoint.y);
-
-        // indicate warp
-        System.out.println("Warp - Mouse move to (" + this.setPoint.x + "," + this.setPoint.y + ") over a distance of " + (int) this.setPoint.distance(this.mousePositions.get(2)) + " Pixels and a offset of " + this.setR + " Pixels. Method: Acceleration Warper");
+        // places mouse cursor at the fixation point and indicates the warp
+        this.mover.move(this.information.getDisplayName(), this.setPoint, (int) this.mousePositions.distance(0, this.setPoint), this.setR, Double.NaN);
 
         // TODO: debugging
         //        this.drawPicture();
@@ -284,31 +299,6 @@ public class AccelerationWarper implements MouseWarper {
         //        System.out.println(System.currentTimeMillis() - tmp);
     }
 
-    /**
-     * Calculates the angle between mouse-move-vector and start of movement
-     * to fixation. This calculation is treated like it is placed in a cartesian
-     * coordinate system.
-     * 
-     * @param start
-     *            point
-     * @param stop
-     *            point
-     * @return the angle
-     */
-    private double calculateAngle(Point start, Point stop) {
-        // angle in radian measure between x-axis and moving vector of the mouse
-        double mouseTraceAngle = Math.atan2(start.y - stop.y, start.x - stop.x);
-
-        // angle in radian measure between the x-axis and the vector from start
-        // point of the current mouse vector and the fixation point
-        double gazeVectorAngle = Math.atan2(start.y - this.fixation.y, start.x - this.fixation.x);
-
-        // angle between this two ones in degrees
-        double angleTmp = (gazeVectorAngle - mouseTraceAngle) * 180 / Math.PI;
-
-        return Math.abs(angleTmp);
-    }
-
     /**
      * Calculates a set point between fixation point and the mouse vector. The
      * distance is given by setR. The coordinate system is the cartesian
@@ -317,7 +307,7 @@ public class AccelerationWarper implements MouseWarper {
     private Point calculateSetPoint(int radius) {
         // angle in radian measure between this x-axis and the vector from end
         // of mouse-vector to fixation
-        double phi = Math.atan2(this.mousePositions.get(2).y - this.fixation.y, this.mousePositions.get(2).x - this.fixation.x);
+        double phi = Math.atan2(this.mousePositions.getY(0) - this.fixation.y, this.mousePositions.getX(0) - this.fixation.x);
 
         // calculate x and y by their polar coordinates
         int x = (int) (radius * Math.cos(phi));
@@ -343,11 +333,8 @@ public class AccelerationWarper implements MouseWarper {
      * clears the mouse vector and fills it with dummydata
      */
     private void refreshMouseMap() {
-        Point currentMousePos = MouseInfo.getPointerInfo().getLocation();
-        this.mousePositions.clear();
-        this.mousePositions.add(currentMousePos);
-        this.mousePositions.add(currentMousePos);
-        this.mousePositions.add(currentMousePos);
+        Point currentMousePos = this.mover.getMouseLocation();
+        this.kinematics.fill(currentMousePos.x, currentMousePos.y, this.mover.nanoTime());
     }
 
     /**
@@ -379,28 +366,28 @@ public class AccelerationWarper implements MouseWarper {
             graphic.setColor(new Color(255, 0, 0, 255));
             graphic.drawOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
             graphic.drawChars(("fixation point").toCharArray(), 0, 14, 12 + this.fixation.x, 12 + this.fixation.y);
-            graphic.drawChars(("" + this.angle).toCharArray(), 0, ("" + this.angle).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
+            graphic.drawChars(("" + this.acceleration).toCharArray(), 0, ("" + this.acceleration).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
             graphic.setColor(new Color(255, 0, 0, 32));
             graphic.fillOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
 
             // visualize mouse vector
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.get(0).getX() - 5, (int) this.mousePositions.get(0).getY() - 5, 10, 10);
-            graphic.drawChars(("0").toCharArray(), 0, ("0").toCharArray().length, (int) this.mousePositions.get(0).getX() + 12, (int) this.mousePositions.get(0).getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(this.mousePositions.getOldest()) - 5, this.mousePositions.getY(this.mousePositions.getOldest()) - 5, 10, 10);
+            graphic.drawChars(("0").toCharArray(), 0, ("0").toCharArray().length, this.mousePositions.getX(this.mousePositions.getOldest()) + 12, this.mousePositions.getY(this.mousePositions.getOldest()) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.get(0).getX() - 5, (int) this.mousePositions.get(0).getY() - 5, 10, 10);
-            graphic.drawLine((int) this.mousePositions.get(0).getX(), (int) this.mousePositions.get(0).getY(), (int) this.mousePositions.get(1).getX(), (int) this.mousePositions.get(1).getY());
+            graphic.fillOval(this.mousePositions.getX(this.mousePositions.getOldest()) - 5, this.mousePositions.getY(this.mousePositions.getOldest()) - 5, 10, 10);
+            graphic.drawLine(this.mousePositions.getX(this.mousePositions.getOldest()), this.mousePositions.getY(this.mousePositions.getOldest()), this.mousePositions.getX(1), this.mousePositions.getY(1));
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.get(1).getX() - 5, (int) this.mousePositions.get(1).getY() - 5, 10, 10);
-            graphic.drawChars(("1").toCharArray(), 0, ("1").toCharArray().length, (int) this.mousePositions.get(1).getX() + 12, (int) this.mousePositions.get(1).getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(1) - 5, this.mousePositions.getY(1) - 5, 10, 10);
+            graphic.drawChars(("1").toCharArray(), 0, ("1").toCharArray().length, this.mousePositions.getX(1) + 12, this.mousePositions.getY(1) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.get(1).getX() - 5, (int) this.mousePositions.get(1).getY() - 5, 10, 10);
-            graphic.drawLine((int) this.mousePositions.get(1).getX(), (int) this.mousePositions.get(1).getY(), (int) this.mousePositions.get(2).getX(), (int) this.mousePositions.get(2).getY());
+            graphic.fillOval(this.mousePositions.getX(1) - 5, this.mousePositions.getY(1) - 5, 10, 10);
+            graphic.drawLine(this.mousePositions.getX(1), this.mousePositions.getY(1), this.mousePositions.getX(0), this.mousePositions.getY(0));
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.get(2).getX() - 5, (int) this.mousePositions.get(2).getY() - 5, 10, 10);
-            graphic.drawChars(("2").toCharArray(), 0, ("2").toCharArray().length, (int) this.mousePositions.get(2).getX() + 12, (int) this.mousePositions.get(2).getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
+            graphic.drawChars(("2").toCharArray(), 0, ("2").toCharArray().length, this.mousePositions.getX(0) + 12, this.mousePositions.getY(0) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.get(2).getX() - 5, (int) this.mousePositions.get(2).getY() - 5, 10, 10);
+            graphic.fillOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
 
             // calculate and visualize setpoint
             graphic.setColor(new Color(0, 255, 0, 255));
@@ -438,4 +425,61 @@ public class AccelerationWarper implements MouseWarper {
         // write current poperties in a file
         this.propertie.writeProperties();
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper#setWarpMover
+     * (de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover)
+     */
+    @Override
+    public void setWarpMover(WarpMover mover) {
+        this.mover = mover;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameterNames()
+     */
+    @Override
+    public String[] getParameterNames() {
+        return new String[] { "angle", "acceleration", "reaction time" };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameters()
+     */
+    @Override
+    public double[] getParameters() {
+        AccelerationWarperProperties properties = AccelerationWarperProperties.getInstance();
+        return new double[] { properties.getAngleThreshold(), properties.getAcceleration(), properties.getReactionTime() };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#setParameters(double[])
+     */
+    @Override
+    public void setParameters(double[] values) {
+        this.parameters = (values == null) ? null : values.clone();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#storeParameters(double[])
+     */
+    @Override
+    public void storeParameters(double[] values) {
+        AccelerationWarperProperties properties = AccelerationWarperProperties.getInstance();
+        properties.setAngleThreshold((int) Math.round(values[0]));
+        properties.setAcceleration(values[1]);
+        properties.setReactionTime((int) Math.round(values[2]));
+        properties.writeProperties();
+    }
 }
@@ -30,19 +30,25 @@ import java.awt.Robot;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.TreeMap;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseKinematics;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseTrajectory;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.RobotWarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpFeatures;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpPipeline;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRules;
 import de.dfki.km.text20.lightning.plugins.mousewarp.distanceWarper.gui.DistanceWarperConfigImpl;
 
 /**
- * Simple version of mouse warper which checks angleFirst between
+ * Simple version of mouse warper which checks angle between
  * mouse-move-vector and start of movement to fixation, distance from start to
  * endpoint of movement, duration of movement and how close is the cursor to the
  * fixation. If all premises are fulfilled the cursor is moved to the fixation
@@ -52,9 +58,9 @@ import de.dfki.km.text20.lightning.plugins.mousewarp.distanceWarper.gui.Distance
  * 
  */
 @PluginImplementation
-public class DistanceWarper implements MouseWarper {
+public class DistanceWarper implements MouseWarper, TunableWarper {
 
-    /** threshold for the angleFirst */
+    /** threshold for the angle between movement and fixation */
     private int angleThres;
 
     /** threshold for the distance */
@@ -63,30 +69,30 @@ public class DistanceWarper implements MouseWarper {
     /** radius around the fixation within the mouse cursor won't be moved */
     private int homeR;
 
-    /** time stamp */
-    private long timeStamp;
+    /** velocity estimation over the stored mousepositions */
+    private MouseKinematics kinematics;
 
     /** a list of all mouseposition within the durationThreshold */
-    private TreeMap<Long, Point> mousePositions;
+    private MouseTrajectory mousePositions;
+
+    /** features of the current sample which are shared by the rules */
+    private WarpFeatures features;
+
+    /** rules which have to be fulfilled for a warp */
+    private WarpPipeline pipeline;
 
     /** last fixation */
     private Point fixation;
 
-    /** necessary to move the mouse */
-    private Robot robot;
+    /** moves the mouse, only records the warps in shadow mode */
+    private WarpMover mover;
+
+    /** tuned parameters which replace the properties, null if the properties are used */
+    private double[] parameters;
 
     /** information object */
     private PluginInformation information;
 
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleFirst;
-
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleSecLast;
-
-    /** key of the second last entry of the hashmap */
-    private long secondLastKey;
-
     /** stored properties for this plugin */
     private DistanceWarperProperties propertie;
 
@@ -101,19 +107,17 @@ public class DistanceWarper implements MouseWarper {
         this.angleThres = 0;
         this.distanceThres = 0;
         this.homeR = 0;
-        this.mousePositions = new TreeMap<Long, Point>();
+        this.kinematics = new MouseKinematics(10);
+        this.mousePositions = this.kinematics.getTrajectory();
+        this.features = new WarpFeatures(this.kinematics);
+        this.pipeline = new WarpPipeline();
         this.fixation = new Point(0, 0);
         this.information = new PluginInformation("Distance Warper", "Distance Warper", true);
-        this.angleFirst = 0;
-        this.angleSecLast = 0;
         this.propertie = null;
         this.isProcessing = false;
 
-        try {
-            this.robot = new Robot();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.mover = new RobotWarpMover();
+        this.parameters = null;
     }
 
     /*
@@ -131,6 +135,20 @@ public class DistanceWarper implements MouseWarper {
         this.distanceThres = this.propertie.getDistanceThreshold();
         this.homeR = this.propertie.getHomeRadius();
 
+        // tuned parameters replace the properties
+        if (this.parameters != null) {
+            this.angleThres = (int) Math.round(this.parameters[0]);
+            this.distanceThres = (int) Math.round(this.parameters[1]);
+            this.homeR = (int) Math.round(this.parameters[2]);
+        }
+
+        // home radius, traveled distance, angle and set point before the cursor
+        this.pipeline = new WarpPipeline();
+        this.pipeline.add(WarpRules.outsideHomeRadius(this.homeR));
+        this.pipeline.add(WarpRules.minTravel(this.distanceThres));
+        this.pipeline.add(WarpRules.headingToFixation(this.angleThres));
+        this.pipeline.add(WarpRules.travelBeforeFixation());
+
         // refresh map
         this.refreshMouseMap();
     }
@@ -155,25 +173,14 @@ public class DistanceWarper implements MouseWarper {
      * de.dfki.km.text20.lightning.plugins.mouseWarp.MouseWarper#addMousePosition
      * (java.awt.Point)
      */
-    @SuppressWarnings("boxing")
     @Override
     public void addMousePosition(Point position, int interval, boolean isFixationValid) {
-        double distanceStopFix;
         int setR;
         Point setPoint = new Point();
         this.isProcessing = true;
 
-        // key of the second last
-        this.secondLastKey = this.timeStamp;
-
-        // timestamp
-        this.timeStamp = System.currentTimeMillis();
-
-        // add to map
-        this.mousePositions.put(this.timeStamp, position);
-
-        // remove first
-        this.mousePositions.remove(this.mousePositions.firstKey());
+        // add to history, the oldest position falls out
+        this.kinematics.add(position.x, position.y, this.mover.nanoTime());
 
         // check if fixation is placed and if there are enough positions stored,
         // 20 is the rate of mouse updates
@@ -182,58 +189,24 @@ public class DistanceWarper implements MouseWarper {
             return;
         }
 
-        // store distance
-        distanceStopFix = this.mousePositions.lastEntry().getValue().distance(this.fixation);
-
-        // check if the cursor is already in home radius
-        if (distanceStopFix < this.homeR) {
-            this.isProcessing = false;
-            return;
-        }
-
-        // check the distance which the mouse has traveled within the time that
-        // is represented by the tree map
-        // TODO: change to mouse acceleration
-        if (this.mousePositions.lastEntry().getValue().distance(this.mousePositions.firstEntry().getValue()) < this.distanceThres) {
-            this.isProcessing = false;
-            return;
-        }
-
-        // checks the angleFirst between mouse movement and vector between start
-        // of the mouse movement and fixation point
-        this.angleFirst = calculateAngle(this.mousePositions.firstEntry().getValue(), this.mousePositions.lastEntry().getValue());
-        // System.out.println("angleFirst: " + this.angleFirst);
-        if ((this.angleFirst > this.angleThres)) {
-            this.isProcessing = false;
-            return;
-        }
-        this.angleSecLast = calculateAngle(this.mousePositions.get(this.secondLastKey), this.mousePositions.lastEntry().getValue());
-        // System.out.println("angleSecLast: " + this.angleSecLast);
-        if ((this.angleSecLast > this.angleThres)) {
+        // check the rules, cheap ones first
+        this.features.update(this.fixation);
+        if (!this.pipeline.accepts(this.features)) {
             this.isProcessing = false;
             return;
         }
 
         // store setRadius
-        setR = (int) this.mousePositions.firstEntry().getValue().distance(this.mousePositions.lastEntry().getValue());
+        setR = (int) this.features.getTravel();
 
         // calculate setpoint
         setPoint = this.calculateSetPoint(setR);
 
-        // check if the mouse would be setted behind its current position
-        if (setR > distanceStopFix) {
-            this.isProcessing = false;
-            return;
-        }
-
         // TODO: debugging
         //		this.drawPicture(setPoint);
 
-        // places mouse cursor at the fixation point
-        this.robot.mouseMove(setPoint.x, setPoint.y);
-
-        // indicate warp
-        System.out.println("Warp - Mouse move to (" + setPoint.x + "," + setPoint.y + ") with offset of " + setR + " pixels");
+        // places mouse cursor at the fixation point and indicates the warp
+        this.mover.move(this.information.getDisplayName(), setPoint, -1, setR, Double.NaN);
 
         // resets variables
         this.fixation = null;
@@ -241,31 +214,6 @@ public class DistanceWarper implements MouseWarper {
         this.isProcessing = false;
     }
 
-    /**
-     * Calculates the angleFirst between mouse-move-vector and start of movement
-     * to fixation. This calculation is treated like it is placed in a cartesian
-     * coordinate system.
-     * 
-     * @param start
-     *            point
-     * @param stop
-     *            point
-     * @return the angle
-     */
-    private double calculateAngle(Point start, Point stop) {
-        // angle in radian measure between x-axis and moving vector of the mouse
-        double mouseTraceAngle = Math.atan2(start.y - stop.y, start.x - stop.x);
-
-        // angle in radian measure between the x-axis and the vector from start
-        // point of the current mouse vector and the fixation point
-        double gazeVectorAngle = Math.atan2(start.y - this.fixation.y, start.x - this.fixation.x);
-
-        // angleFirst between this two ones in degrees
-        double angleTmp = (gazeVectorAngle - mouseTraceAngle) * 180 / Math.PI;
-
-        return Math.abs(angleTmp);
-    }
-
     /**
      * Calculates a set point between fixation point and the mouse vector. The distance
      * is given by setR. The coordinate system is the cartesian coordinate system.
@@ -273,7 +221,7 @@ public class DistanceWarper implements MouseWarper {
     private Point calculateSetPoint(int setR) {
         // angle in radian measure between this x-axis and the vector from end
         // of mouse-vector to fixation
-        double phi = Math.atan2(this.mousePositions.lastEntry().getValue().y - this.fixation.y, this.mousePositions.lastEntry().getValue().x - this.fixation.x);
+        double phi = Math.atan2(this.mousePositions.getY(0) - this.fixation.y, this.mousePositions.getX(0) - this.fixation.x);
 
         // calculate x and y by their polar coordinates
         int x = (int) (setR * Math.cos(phi));
@@ -298,14 +246,8 @@ public class DistanceWarper implements MouseWarper {
     /**
      * clears the mouse vector and fills it with dummydata
      */
-    @SuppressWarnings("boxing")
     private void refreshMouseMap() {
-        long iMax = 10;
-        this.mousePositions.clear();
-        this.timeStamp = iMax - 1;
-        for (long i = 0; i < iMax; i++) {
-            this.mousePositions.put(i, new Point(0, 0));
-        }
+        this.kinematics.fill(0, 0, this.mover.nanoTime());
     }
 
     /**
@@ -317,7 +259,6 @@ public class DistanceWarper implements MouseWarper {
         // initialize variables
         Dimension dimension = Toolkit.getDefaultToolkit().getScreenSize();
         BufferedImage screenShot = null;
-        ArrayList<Long> keys = new ArrayList<Long>(this.mousePositions.keySet());
 
         // create screenshot
         Rectangle screenShotRect = new Rectangle(0, 0, dimension.width, dimension.height);
@@ -338,25 +279,24 @@ public class DistanceWarper implements MouseWarper {
             graphic.setColor(new Color(255, 0, 0, 255));
             graphic.drawOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
             graphic.drawChars(("fixation point").toCharArray(), 0, 14, 12 + this.fixation.x, 12 + this.fixation.y);
-            graphic.drawChars(("" + this.angleFirst).toCharArray(), 0, ("" + this.angleFirst).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
-            graphic.drawChars(("" + this.angleSecLast).toCharArray(), 0, ("" + this.angleSecLast).toCharArray().length, 12 + this.fixation.x, 36 + this.fixation.y);
+            graphic.drawChars(("" + this.kinematics.getSpeed()).toCharArray(), 0, ("" + this.kinematics.getSpeed()).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
             graphic.setColor(new Color(255, 0, 0, 32));
             graphic.fillOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
 
             // visualize mouse vector
-            for (int i = 0; i < keys.size() - 1; i++) {
+            for (int i = 0; i < this.mousePositions.size() - 1; i++) {
                 graphic.setColor(new Color(0, 0, 255, 255));
-                graphic.drawOval((int) this.mousePositions.get(keys.get(i)).getX() - 5, (int) this.mousePositions.get(keys.get(i)).getY() - 5, 10, 10);
-                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, (int) this.mousePositions.get(keys.get(i)).getX() + 12, (int) this.mousePositions.get(keys.get(i)).getY() + 12);
+                graphic.drawOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, this.mousePositions.getX(this.mousePositions.getOldest() - i) + 12, this.mousePositions.getY(this.mousePositions.getOldest() - i) + 12);
                 graphic.setColor(new Color(0, 0, 255, 32));
-                graphic.fillOval((int) this.mousePositions.get(keys.get(i)).getX() - 5, (int) this.mousePositions.get(keys.get(i)).getY() - 5, 10, 10);
-                graphic.drawLine((int) this.mousePositions.get(keys.get(i)).getX(), (int) this.mousePositions.get(keys.get(i)).getY(), (int) this.mousePositions.get(keys.get(i + 1)).getX(), (int) this.mousePositions.get(keys.get(i + 1)).getY());
+                graphic.fillOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawLine(this.mousePositions.getX(this.mousePositions.getOldest() - i), this.mousePositions.getY(this.mousePositions.getOldest() - i), this.mousePositions.getX(this.mousePositions.getOldest() - i - 1), this.mousePositions.getY(this.mousePositions.getOldest() - i - 1));
             }
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.lastEntry().getValue().getX() - 5, (int) this.mousePositions.lastEntry().getValue().getY() - 5, 10, 10);
-            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, (int) this.mousePositions.lastEntry().getValue().getX() + 12, (int) this.mousePositions.lastEntry().getValue().getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
+            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, this.mousePositions.getX(0) + 12, this.mousePositions.getY(0) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.lastEntry().getValue().getX() - 5, (int) this.mousePositions.lastEntry().getValue().getY() - 5, 10, 10);
+            graphic.fillOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
 
             // calculate and visualize setpoint
             graphic.setColor(new Color(0, 255, 0, 255));
@@ -394,4 +334,61 @@ public class DistanceWarper implements MouseWarper {
         // write current poperties in a file
         this.propertie.writeProperties();
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper#setWarpMover
+     * (de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover)
+     */
+    @Override
+    public void setWarpMover(WarpMover mover) {
+        this.mover = mover;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameterNames()
+     */
+    @Override
+    public String[] getParameterNames() {
+        return new String[] { "angle", "distance", "home radius" };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameters()
+     */
+    @Override
+    public double[] getParameters() {
+        DistanceWarperProperties properties = DistanceWarperProperties.getInstance();
+        return new double[] { properties.getAngleThreshold(), properties.getDistanceThreshold(), properties.getHomeRadius() };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#setParameters(double[])
+     */
+    @Override
+    public void setParameters(double[] values) {
+        this.parameters = (values == null) ? null : values.clone();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#storeParameters(double[])
+     */
+    @Override
+    public void storeParameters(double[] values) {
+        DistanceWarperProperties properties = DistanceWarperProperties.getInstance();
+        properties.setAngleThreshold((int) Math.round(values[0]));
+        properties.setDistanceThreshold((int) Math.round(values[1]));
+        properties.setHomeRadius((int) Math.round(values[2]));
+        properties.writeProperties();
+    }
 }
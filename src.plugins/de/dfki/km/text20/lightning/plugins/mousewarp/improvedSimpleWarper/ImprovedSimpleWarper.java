@@ -30,19 +30,25 @@ import java.awt.Robot;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.TreeMap;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseKinematics;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseTrajectory;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.RobotWarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpFeatures;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpPipeline;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRules;
 import de.dfki.km.text20.lightning.plugins.mousewarp.improvedSimpleWarper.gui.ImprovedWarperConfigImpl;
 
 /**
- * Simple version of mouse warper which checks angleFirst between mouse-move-vector and start of movement to fixation,
+ * Simple version of mouse warper which checks angle between mouse-move-vector and start of movement to fixation,
  * distance from start to endpoint of movement, duration of movement and how close is the cursor to the fixation.
  * If all premises are fulfilled the cursor is moved to the fixation point 
  * (with the distance of setR to the startpoint of movement).
@@ -51,9 +57,9 @@ import de.dfki.km.text20.lightning.plugins.mousewarp.improvedSimpleWarper.gui.Im
  *
  */
 @PluginImplementation
-public class ImprovedSimpleWarper implements MouseWarper {
+public class ImprovedSimpleWarper implements MouseWarper, TunableWarper {
 
-    /** threshold for the angleFirst */
+    /** threshold for the angle between movement and fixation */
     private int angleThres;
 
     /** threshold for the distance */
@@ -71,30 +77,30 @@ public class ImprovedSimpleWarper implements MouseWarper {
      */
     private int setR;
 
-    /** time stamp */
-    private long timeStamp;
+    /** velocity estimation over the stored mousepositions */
+    private MouseKinematics kinematics;
 
     /** a list of all mouseposition within the durationThreshold */
-    private TreeMap<Long, Point> mousePositions;
+    private MouseTrajectory mousePositions;
+
+    /** features of the current sample which are shared by the rules */
+    private WarpFeatures features;
+
+    /** rules which have to be fulfilled for a warp */
+    private WarpPipeline pipeline;
 
     /** last fixation */
     private Point fixation;
 
-    /** necessary to move the mouse */
-    private Robot robot;
+    /** moves the mouse, only records the warps in shadow mode */
+    private WarpMover mover;
+
+    /** tuned parameters which replace the properties, null if the properties are used */
+    private double[] parameters;
 
     /** information object */
     private PluginInformation information;
 
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleFirst;
-
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleSecLast;
-
-    /** key of the second last entry of the hashmap */
-    private long secondLastKey;
-
     private ImprovedWarperProperties propertie;
 
     private boolean isProcessing;
@@ -108,19 +114,17 @@ public class ImprovedSimpleWarper implements MouseWarper {
         this.distanceThres = 0;
         this.durationThres = 0;
         this.homeR = 0;
-        this.mousePositions = new TreeMap<Long, Point>();
+        this.kinematics = new MouseKinematics(10);
+        this.mousePositions = this.kinematics.getTrajectory();
+        this.features = new WarpFeatures(this.kinematics);
+        this.pipeline = new WarpPipeline();
         this.fixation = new Point(0, 0);
         this.information = new PluginInformation("Improved Simple Warper", "Improved Simple Warper", true);
-        this.angleFirst = 0;
-        this.angleSecLast = 0;
         this.propertie = null;
         this.isProcessing = false;
 
-        try {
-            this.robot = new Robot();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.mover = new RobotWarpMover();
+        this.parameters = null;
     }
 
     /* (non-Javadoc)
@@ -136,6 +140,20 @@ public class ImprovedSimpleWarper implements MouseWarper {
         this.homeR = this.propertie.getHomeRadius();
         this.setR = this.propertie.getSetRadius();
 
+        // tuned parameters replace the properties
+        if (this.parameters != null) {
+            this.angleThres = (int) Math.round(this.parameters[0]);
+            this.distanceThres = (int) Math.round(this.parameters[1]);
+            this.homeR = (int) Math.round(this.parameters[2]);
+            this.setR = (int) Math.round(this.parameters[3]);
+        }
+
+        // home radius, traveled distance and angle
+        this.pipeline = new WarpPipeline();
+        this.pipeline.add(WarpRules.outsideHomeRadius(this.homeR));
+        this.pipeline.add(WarpRules.minTravel(this.distanceThres));
+        this.pipeline.add(WarpRules.headingToFixation(this.angleThres));
+
         // refresh map
         this.refreshMouseMap();
     }
@@ -146,30 +164,21 @@ public class ImprovedSimpleWarper implements MouseWarper {
     @Override
     public void setFixationPoint(Point fixation) {
         if (this.isProcessing) return;
-        this.fixation = new Point(0, 0);
+
+        // copy, the set point is calculated by moving the stored point
+        this.fixation = new Point(fixation);
     }
 
     /* (non-Javadoc)
      * @see de.dfki.km.text20.lightning.plugins.mouseWarp.MouseWarper#addMousePosition(java.awt.Point)
      */
-    @SuppressWarnings("boxing")
     @Override
     public void addMousePosition(Point position, int interval, boolean isFixationValid) {
-        double distanceStopFix;
         Point fixationTmp = new Point();
         this.isProcessing = true;
 
-        // key of the second last
-        this.secondLastKey = this.timeStamp;
-
-        // timestamp
-        this.timeStamp = System.currentTimeMillis();
-
-        // add to map
-        this.mousePositions.put(this.timeStamp, position);
-
-        // remove first
-        this.mousePositions.remove(this.mousePositions.firstKey());
+        // add to history, the oldest position falls out
+        this.kinematics.add(position.x, position.y, this.mover.nanoTime());
 
         // check if fixation is placed and if there are enough positions stored, 20 is the rate of mouse updates
         if (this.fixation == null) {
@@ -177,32 +186,9 @@ public class ImprovedSimpleWarper implements MouseWarper {
             return;
         }
 
-        // store distance
-        distanceStopFix = this.mousePositions.lastEntry().getValue().distance(this.fixation);
-
-        // check if the cursor is already in home radius
-        if (distanceStopFix < this.homeR) {
-            this.isProcessing = false;
-            return;
-        }
-
-        // check the distance which the mouse has traveled within the time that is represented by the tree map
-        // TODO: change to mouse acceleration
-        if (this.mousePositions.lastEntry().getValue().distance(this.mousePositions.firstEntry().getValue()) < this.distanceThres) {
-            this.isProcessing = false;
-            return;
-        }
-
-        // checks the angleFirst between mouse movement and vector between start of the mouse movement and fixation point
-        this.angleFirst = calculateAngle(this.mousePositions.firstEntry().getValue(), this.mousePositions.lastEntry().getValue());
-        //        System.out.println("angleFirst: " + this.angleFirst);
-        if ((this.angleFirst > this.angleThres)) {
-            this.isProcessing = false;
-            return;
-        }
-        this.angleSecLast = calculateAngle(this.mousePositions.get(this.secondLastKey), this.mousePositions.lastEntry().getValue());
-        //        System.out.println("angleSecLast: " + this.angleSecLast);
-        if ((this.angleSecLast > this.angleThres)) {
+        // check the rules, cheap ones first
+        this.features.update(this.fixation);
+        if (!this.pipeline.accepts(this.features)) {
             this.isProcessing = false;
             return;
         }
@@ -214,11 +200,8 @@ public class ImprovedSimpleWarper implements MouseWarper {
         // TODO: debugging
 //        this.drawPicture(fixationTmp);
 
-        // places mouse cursor at the fixation point
-        this.robot.mouseMove(this.fixation.x, this.fixation.y);
-
-        // indicate warp
-        System.out.println("Warp - Mouse move to (" + this.fixation.x + "," + this.fixation.y + ")");
+        // places mouse cursor at the fixation point and indicates the warp
+        this.mover.move(this.information.getDisplayName(), this.fixation, -1, -1, Double.NaN);
 
         // resets variables
         this.fixation = null;
@@ -226,34 +209,13 @@ public class ImprovedSimpleWarper implements MouseWarper {
         this.isProcessing = false;
     }
 
-    /**
-     * Calculates the angleFirst between mouse-move-vector and start of movement to fixation.
-     * This calculation is treated like it is placed in a cartesian coordinate system.
-     * 
-     * @param start point
-     * @param stop point
-     * @return the angle
-     */
-    private double calculateAngle(Point start, Point stop) {
-        // angle in radian measure between x-axis and moving vector of the mouse
-        double mouseTraceAngle = Math.atan2(start.y - stop.y, start.x - stop.x);
-
-        // angle in radian measure between the x-axis and the vector from start point of the current mouse vector and the fixation point 
-        double gazeVectorAngle = Math.atan2(start.y - this.fixation.y, start.x - this.fixation.x);
-
-        // angleFirst between this two ones in degrees
-        double angleTmp = (gazeVectorAngle - mouseTraceAngle) * 180 / Math.PI;
-
-        return Math.abs(angleTmp);
-    }
-
     /**
      * Moves the fixation point in direction to the mouse vector. The distance is given by setR.
      * The coordinate system is the screen coordinate system.
      */
     private void calculateSetPoint() {
         // angle in radian measure between this x-axis and the vector from end point of the current mouse vector an the fixation point
-        double phi = Math.atan2(this.mousePositions.lastEntry().getValue().y - this.fixation.y, this.mousePositions.lastEntry().getValue().x - this.fixation.y);
+        double phi = Math.atan2(this.mousePositions.getY(0) - this.fixation.y, this.mousePositions.getX(0) - this.fixation.x);
         
         // calculate x and y by their polar coordinates
         int x = (int) (this.setR * Math.cos(phi));
@@ -274,14 +236,8 @@ public class ImprovedSimpleWarper implements MouseWarper {
     /**
      * clears the mouse vector and fills it with dummydata
      */
-    @SuppressWarnings("boxing")
     private void refreshMouseMap() {
-        long iMax = 10;
-        this.mousePositions.clear();
-        this.timeStamp = iMax - 1;
-        for (long i = 0; i < iMax; i++) {
-            this.mousePositions.put(i, new Point(0, 0));
-        }
+        this.kinematics.fill(0, 0, this.mover.nanoTime());
     }
 
     /**
@@ -293,7 +249,6 @@ public class ImprovedSimpleWarper implements MouseWarper {
         // initialize variables
         Dimension dimension = Toolkit.getDefaultToolkit().getScreenSize();
         BufferedImage screenShot = null;
-        ArrayList<Long> keys = new ArrayList<Long>(this.mousePositions.keySet());
 
         // create screenshot
         Rectangle screenShotRect = new Rectangle(0, 0, dimension.width, dimension.height);
@@ -314,25 +269,24 @@ public class ImprovedSimpleWarper implements MouseWarper {
             graphic.setColor(new Color(255, 0, 0, 255));
             graphic.drawOval(fixationTmp.x - 5, fixationTmp.y - 5, 10, 10);
             graphic.drawChars(("fixation point").toCharArray(), 0, 14, 12 + fixationTmp.x, 12 + fixationTmp.y);
-            graphic.drawChars(("" + this.angleFirst).toCharArray(), 0, ("" + this.angleFirst).toCharArray().length, 12 + fixationTmp.x, 24 + fixationTmp.y);
-            graphic.drawChars(("" + this.angleSecLast).toCharArray(), 0, ("" + this.angleSecLast).toCharArray().length, 12 + fixationTmp.x, 36 + fixationTmp.y);
+            graphic.drawChars(("" + this.kinematics.getSpeed()).toCharArray(), 0, ("" + this.kinematics.getSpeed()).toCharArray().length, 12 + fixationTmp.x, 24 + fixationTmp.y);
             graphic.setColor(new Color(255, 0, 0, 32));
             graphic.fillOval(fixationTmp.x - 5, fixationTmp.y - 5, 10, 10);
 
             // visualize mouse vector
-            for (int i = 0; i < keys.size() - 1; i++) {
+            for (int i = 0; i < this.mousePositions.size() - 1; i++) {
                 graphic.setColor(new Color(0, 0, 255, 255));
-                graphic.drawOval((int) this.mousePositions.get(keys.get(i)).getX() - 5, (int) this.mousePositions.get(keys.get(i)).getY() - 5, 10, 10);
-                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, (int) this.mousePositions.get(keys.get(i)).getX() + 12, (int) this.mousePositions.get(keys.get(i)).getY() + 12);
+                graphic.drawOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, this.mousePositions.getX(this.mousePositions.getOldest() - i) + 12, this.mousePositions.getY(this.mousePositions.getOldest() - i) + 12);
                 graphic.setColor(new Color(0, 0, 255, 32));
-                graphic.fillOval((int) this.mousePositions.get(keys.get(i)).getX() - 5, (int) this.mousePositions.get(keys.get(i)).getY() - 5, 10, 10);
-                graphic.drawLine((int) this.mousePositions.get(keys.get(i)).getX(), (int) this.mousePositions.get(keys.get(i)).getY(), (int) this.mousePositions.get(keys.get(i + 1)).getX(), (int) this.mousePositions.get(keys.get(i + 1)).getY());
+                graphic.fillOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawLine(this.mousePositions.getX(this.mousePositions.getOldest() - i), this.mousePositions.getY(this.mousePositions.getOldest() - i), this.mousePositions.getX(this.mousePositions.getOldest() - i - 1), this.mousePositions.getY(this.mousePositions.getOldest() - i - 1));
             }
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.lastEntry().getValue().getX() - 5, (int) this.mousePositions.lastEntry().getValue().getY() - 5, 10, 10);
-            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, (int) this.mousePositions.lastEntry().getValue().getX() + 12, (int) this.mousePositions.lastEntry().getValue().getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
+            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, this.mousePositions.getX(0) + 12, this.mousePositions.getY(0) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.lastEntry().getValue().getX() - 5, (int) this.mousePositions.lastEntry().getValue().getY() - 5, 10, 10);
+            graphic.fillOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
 
             // calculate and visualize setpoint
             graphic.setColor(new Color(0, 255, 0, 255));
@@ -366,4 +320,58 @@ public class ImprovedSimpleWarper implements MouseWarper {
         // write current poperties in a file
         this.propertie.writeProperties();
     }
+
+    /* (non-Javadoc)
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper#setWarpMover(de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover)
+     */
+    @Override
+    public void setWarpMover(WarpMover mover) {
+        this.mover = mover;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameterNames()
+     */
+    @Override
+    public String[] getParameterNames() {
+        return new String[] { "angle", "distance", "home radius", "set radius" };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameters()
+     */
+    @Override
+    public double[] getParameters() {
+        ImprovedWarperProperties properties = ImprovedWarperProperties.getInstance();
+        return new double[] { properties.getAngleThreshold(), properties.getDistanceThreshold(), properties.getHomeRadius(), properties.getSetRadius() };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#setParameters(double[])
+     */
+    @Override
+    public void setParameters(double[] values) {
+        this.parameters = (values == null) ? null : values.clone();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#storeParameters(double[])
+     */
+    @Override
+    public void storeParameters(double[] values) {
+        ImprovedWarperProperties properties = ImprovedWarperProperties.getInstance();
+        properties.setAngleThreshold((int) Math.round(values[0]));
+        properties.setDistanceThreshold((int) Math.round(values[1]));
+        properties.setHomeRadius((int) Math.round(values[2]));
+        properties.setSetRadius((int) Math.round(values[3]));
+        properties.writeProperties();
+    }
 }
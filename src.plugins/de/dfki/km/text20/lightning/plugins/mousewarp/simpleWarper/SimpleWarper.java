@@ -21,14 +21,20 @@
 package de.dfki.km.text20.lightning.plugins.mousewarp.simpleWarper;
 
 import java.awt.Point;
-import java.awt.Robot;
-import java.util.TreeMap;
 
 import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseKinematics;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseTrajectory;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.RobotWarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpFeatures;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpPipeline;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRules;
 
 /**
  * Simple version of mouse warper which checks angle between mouse-move-vector and start of movement to fixation,
@@ -40,7 +46,7 @@ import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
  *
  */
 @PluginImplementation
-public class SimpleWarper implements MouseWarper {
+public class SimpleWarper implements MouseWarper, ShadowableWarper {
 
     /** threshold for the angle */
     private int angleThres;
@@ -60,24 +66,27 @@ public class SimpleWarper implements MouseWarper {
      */
     private int setR;
 
-    /** time stamp */
-    private long timeStamp;
+    /** velocity estimation over the stored mousepositions */
+    private MouseKinematics kinematics;
 
     /** a list of all mouseposition within the durationThreshold */
-    private TreeMap<Long, Point> mousePositions;
+    private MouseTrajectory mousePositions;
+
+    /** features of the current sample which are shared by the rules */
+    private WarpFeatures features;
+
+    /** rules which have to be fulfilled for a warp */
+    private WarpPipeline pipeline;
 
     /** last fixation */
     private Point fixation;
 
-    /** necessary to move the mouse */
-    private Robot robot;
+    /** moves the mouse, only records the warps in shadow mode */
+    private WarpMover mover;
 
     /** information object */
     private PluginInformation information;
 
-    /** angle between mouse vector and start-fixation-vector */
-    private double angle;
-
     /**
      * creates a new DistanceWarper and initializes some variables
      */
@@ -86,16 +95,20 @@ public class SimpleWarper implements MouseWarper {
         this.distanceThres = 200;
         this.durationThres = 200;
         this.homeR = 200;
-        this.mousePositions = new TreeMap<Long, Point>();
+        this.kinematics = new MouseKinematics((int) this.durationThres);
+        this.mousePositions = this.kinematics.getTrajectory();
+        this.features = new WarpFeatures(this.kinematics);
         this.fixation = new Point(0, 0);
         this.information = new PluginInformation("Simple Warper", "Simple Warper", false);
-        this.angle = 0;
 
-        try {
-            this.robot = new Robot();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // home radius, direction, traveled distance and angle
+        this.pipeline = new WarpPipeline();
+        this.pipeline.add(WarpRules.outsideHomeRadius(this.homeR));
+        this.pipeline.add(WarpRules.approaching());
+        this.pipeline.add(WarpRules.minTravel(this.distanceThres));
+        this.pipeline.add(WarpRules.headingToFixation(this.angleThres));
+
+        this.mover = new RobotWarpMover();
     }
 
     /* (non-Javadoc)
@@ -109,17 +122,10 @@ public class SimpleWarper implements MouseWarper {
     /* (non-Javadoc)
      * @see de.dfki.km.text20.lightning.plugins.mouseWarp.MouseWarper#addMousePosition(java.awt.Point)
      */
-    @SuppressWarnings("boxing")
     @Override
     public void addMousePosition(Point position, int interval, boolean isFixationValid) {
-        double distanceStartFix;
-        double distanceStopFix;
-
-        // timestamp
-        this.timeStamp = System.currentTimeMillis();
-
-        // add to map
-        this.mousePositions.put(this.timeStamp, position);
+        // add to history
+        this.kinematics.add(position.x, position.y, this.mover.nanoTime());
 
         // check if fixation is placed and if there are enough positions stored, 20 is the rate of mouse updates
         if ((this.fixation == null) && (this.mousePositions.size() < this.durationThres * interval))
@@ -127,57 +133,21 @@ public class SimpleWarper implements MouseWarper {
 
         // cut the array to the needed size, 20 is the rate of mouse updates
         if (this.mousePositions.size() * interval > this.durationThres)
-            this.mousePositions.remove(this.mousePositions.firstEntry().getKey());
+            this.kinematics.removeOldest();
 
-        // store distance
-        distanceStartFix = this.mousePositions.firstEntry().getValue().distance(this.fixation);
-        distanceStopFix = this.mousePositions.lastEntry().getValue().distance(this.fixation);
-
-        // check if the cursor is already in home radius
-        if (distanceStopFix < this.homeR) return;
-
-        // check the direction of movement
-        if (distanceStartFix <= distanceStopFix) return;
-
-        // check the distance which the mouse has traveled within the time that is represented by the tree map
-        // TODO: change to mouse acceleration
-        if (this.mousePositions.lastEntry().getValue().distance(this.mousePositions.firstEntry().getValue()) < this.distanceThres)
-            return;
-
-        // checks the angle between mouse movement and vector between start of the mouse movement and fixation point
-        this.angle = calculateAngle(this.mousePositions.firstEntry().getValue(), this.mousePositions.lastEntry().getValue());
-        if (this.angle > this.angleThres) return;
+        // check the rules, cheap ones first
+        this.features.update(this.fixation);
+        if (!this.pipeline.accepts(this.features)) return;
 
         // moves fixation point a given distance to the mouse
         calculateSetPoint();
 
         // places mouse cursor at the fixation point
-        this.robot.mouseMove(this.fixation.x, this.fixation.y);
+        this.mover.move(this.information.getDisplayName(), this.fixation, -1, -1, Double.NaN);
 
         // resets variables
         this.fixation = null;
-        this.mousePositions.clear();
-    }
-
-    /**
-     * Calculates the angle between mouse-move-vector and start of movement to fixation.
-     * This calculation is treated like it is placed in a cartesian coordinate system.
-     * 
-     * @param start point
-     * @param stop point
-     * @return the angle
-     */
-    private double calculateAngle(Point start, Point stop) {
-        // angle in radian measure between x-axis and moving vector of the mouse
-        double mouseTraceAngle = Math.atan2(start.y - stop.y, start.x - stop.x);
-
-        // angle in radian measure between the x-axis and the vector from start point of the current mouse vector and the fixation point 
-        double gazeVectorAngle = Math.atan2(start.y - this.fixation.y, start.x - this.fixation.x);
-
-        // angle between this two ones in degrees
-        double angleTmp = (gazeVectorAngle - mouseTraceAngle) * 180 / Math.PI;
-
-        return Math.abs(angleTmp);
+        this.kinematics.clear();
     }
 
     /**
@@ -186,7 +156,7 @@ public class SimpleWarper implements MouseWarper {
      */
     private void calculateSetPoint() {
         // angle in radian measure between this x-axis and the vector from end point of the current mouse vector an the fixation point
-        double phi = Math.atan2(this.mousePositions.lastEntry().getValue().y - this.fixation.y, this.mousePositions.lastEntry().getValue().x - this.fixation.y);
+        double phi = Math.atan2(this.mousePositions.getY(0) - this.fixation.y, this.mousePositions.getX(0) - this.fixation.y);
 
         // calculate x and y by their polar coordinates
         int x = (int) (this.setR * Math.cos(phi));
@@ -225,4 +195,12 @@ public class SimpleWarper implements MouseWarper {
     @Override
     public void start() {
     }
+
+    /* (non-Javadoc)
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper#setWarpMover(de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover)
+     */
+    @Override
+    public void setWarpMover(WarpMover mover) {
+        this.mover = mover;
+    }
 }
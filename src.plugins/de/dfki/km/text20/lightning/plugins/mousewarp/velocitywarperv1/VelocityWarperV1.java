@@ -24,26 +24,31 @@ import java.awt.AWTException;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.TreeMap;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseKinematics;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseTrajectory;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.RobotWarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpFeatures;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpPipeline;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRules;
 import de.dfki.km.text20.lightning.plugins.mousewarp.velocitywarperv1.gui.VelocityWarperV1ConfigImpl;
 
 /**
- * Simple version of mouse warper which checks angleFirst between
+ * Simple version of mouse warper which checks angle between
  * mouse-move-vector and start of movement to fixation, distance from start to
  * endpoint of movement, duration of movement and how close is the cursor to the
  * fixation. If all premises are fulfilled the cursor is moved to the fixation
@@ -53,9 +58,9 @@ import de.dfki.km.text20.lightning.plugins.mousewarp.velocitywarperv1.gui.Veloci
  * 
  */
 @PluginImplementation
-public class VelocityWarperV1 implements MouseWarper {
+public class VelocityWarperV1 implements MouseWarper, ShadowableWarper {
 
-    /** threshold for the angleFirst */
+    /** threshold for the angle between movement and fixation */
     private int angleThres;
 
     /** threshold for the speed */
@@ -64,39 +69,33 @@ public class VelocityWarperV1 implements MouseWarper {
     /** needed time to react on the mouse warp */
     private int reactionTime;
 
-    /** time stamp */
-    private long timeStamp;
+    /** velocity estimation over the stored mousepositions */
+    private MouseKinematics kinematics;
 
     /** a list of all mouseposition within the durationThreshold */
-    private TreeMap<Long, Point> mousePositions;
+    private MouseTrajectory mousePositions;
+
+    /** features of the current sample which are shared by the rules */
+    private WarpFeatures features;
+
+    /** rules which have to be fulfilled for a warp */
+    private WarpPipeline pipeline;
 
     /** last fixation */
     private Point fixation;
 
-    /** necessary to move the mouse */
-    private Robot robot;
+    /** moves the mouse, only records the warps in shadow mode */
+    private WarpMover mover;
 
     /** information object */
     private PluginInformation information;
 
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleFirst;
-
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleSecLast;
-
-    /** key of the second last entry of the hashmap */
-    private long secondLastKey;
-
     /** stored properties for this plugin */
     private VelocityWarperV1Properties propertie;
 
     /** indicates if any calculations are already running */
     private boolean isProcessing;
 
-    /** distance from sthe start to the stop of the mousevector */
-    private double distanceStopFix;
-
     /** speed of the mouse */
     private double velocity;
 
@@ -120,25 +119,21 @@ public class VelocityWarperV1 implements MouseWarper {
         this.angleThres = 0;
         this.speedThres = 0;
         this.reactionTime = 0;
-        this.mousePositions = new TreeMap<Long, Point>();
+        this.kinematics = new MouseKinematics(10);
+        this.mousePositions = this.kinematics.getTrajectory();
+        this.features = new WarpFeatures(this.kinematics);
+        this.pipeline = new WarpPipeline();
         this.fixation = null;
         this.information = new PluginInformation("Velocity Warper V1", "Uses mouse velocityStartMid to calculate warpjump. BETA", true);
-        this.angleFirst = 0;
-        this.angleSecLast = 0;
         this.propertie = null;
         this.isProcessing = false;
-        this.distanceStopFix = 0;
         this.velocity = 0;
         this.setR = 0;
         this.setPoint = new Point();
         this.xMax = 0;
         this.yMax = 0;
 
-        try {
-            this.robot = new Robot();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.mover = new RobotWarpMover();
     }
 
     /*
@@ -155,8 +150,14 @@ public class VelocityWarperV1 implements MouseWarper {
         this.angleThres = this.propertie.getAngleThreshold();
         this.speedThres = this.propertie.getSpeed();
         this.reactionTime = this.propertie.getReactionTime();
-        this.xMax = Toolkit.getDefaultToolkit().getScreenSize().width;
-        this.yMax = Toolkit.getDefaultToolkit().getScreenSize().height;
+        this.xMax = this.mover.getScreenSize().width;
+        this.yMax = this.mover.getScreenSize().height;
+
+        // speed, home radius by reaction time and angle
+        this.pipeline = new WarpPipeline();
+        this.pipeline.add(WarpRules.minSpeed(this.speedThres));
+        this.pipeline.add(WarpRules.outsideReach(this.reactionTime));
+        this.pipeline.add(WarpRules.headingToFixation(this.angleThres));
 
         // refresh map
         this.refreshMouseMap();
@@ -186,7 +187,6 @@ public class VelocityWarperV1 implements MouseWarper {
      * de.dfki.km.text20.lightning.plugins.mouseWarp.MouseWarper#addMousePosition
      * (java.awt.Point)
      */
-    @SuppressWarnings("boxing")
     @Override
     public void addMousePosition(Point position, int interval, boolean isFixationValid) {
         this.isProcessing = true;
@@ -194,17 +194,8 @@ public class VelocityWarperV1 implements MouseWarper {
         // TODO: debugging
         //		long tmp = System.currentTimeMillis();
 
-        // key of the second last
-        this.secondLastKey = this.timeStamp;
-
-        // timestamp
-        this.timeStamp = System.currentTimeMillis();
-
-        // add to map
-        this.mousePositions.put(this.timeStamp, position);
-
-        // remove first
-        this.mousePositions.remove(this.mousePositions.firstKey());
+        // add to history, the oldest position falls out
+        this.kinematics.add(position.x, position.y, this.mover.nanoTime());
 
         // check if fixation is placed
         if ((this.fixation == null || !isFixationValid)) {
@@ -212,52 +203,25 @@ public class VelocityWarperV1 implements MouseWarper {
             return;
         }
 
-        // calculate setRadius and speed
-        this.velocity = this.mousePositions.lastEntry().getValue().distance(this.mousePositions.firstEntry().getValue()) / ((this.mousePositions.size() - 1) * interval);
-        this.setR = (int) (this.velocity * this.reactionTime);
-
-        // TODO: debugging
-        // if (speed > 0)
-        // System.out.println(speed + " * " + this.reactionTime + " = " + setR);
-
-        // check the speed
-        if (this.velocity < this.speedThres) {
+        // check the rules, cheap ones first
+        this.features.update(this.fixation);
+        if (!this.pipeline.accepts(this.features)) {
             this.isProcessing = false;
             return;
         }
 
-        // store distance
-        this.distanceStopFix = this.mousePositions.lastEntry().getValue().distance(this.fixation);
-
-        // check if the cursor is already in home radius
-        if (this.distanceStopFix < this.setR) {
-            this.isProcessing = false;
-            return;
-        }
+        // calculate setRadius and speed
+        this.velocity = this.features.getSpeed();
+        this.setR = (int) (this.velocity * this.reactionTime);
 
-        // checks the angleFirst between mouse movement and vector between start
-        // of the mouse movement and fixation point
-        this.angleFirst = calculateAngle(this.mousePositions.firstEntry().getValue(), this.mousePositions.lastEntry().getValue());
-        // System.out.println("angleFirst: " + this.angleFirst);
-        if ((this.angleFirst > this.angleThres)) {
-            this.isProcessing = false;
-            return;
-        }
-        this.angleSecLast = calculateAngle(this.mousePositions.get(this.secondLastKey), this.mousePositions.lastEntry().getValue());
-        // System.out.println("angleSecLast: " + this.angleSecLast);
-        if ((this.angleSecLast > this.angleThres)) {
-            this.isProcessing = false;
-            return;
-        }
+        // TODO: debugging
+        // System.out.println(this.velocity + " * " + this.reactionTime + " = " + this.setR);
 
         // calculate setpoint
         this.setPoint = this.calculateSetPoint(this.setR);
 
-        // places mouse cursor at the fixation point
-        this.robot.mouseMove(this.setPoint.x, this.setPoint.y);
-
-        // indicate warp
-        System.out.println("Warp - Mouse move to (" + this.setPoint.x + "," + this.setPoint.y + ") over a distance of " + (int) this.setPoint.distance(this.mousePositions.lastEntry().getValue()) + " Pixels. Method: Velocity Warper");
+        // places mouse cursor at the fixation point and indicates the warp
+        this.mover.move(this.information.getDisplayName(), this.setPoint, (int) this.mousePositions.distance(0, this.setPoint), -1, Double.NaN);
 
         // TODO: debugging
         // this.drawPicture(setPoint);
@@ -271,31 +235,6 @@ public class VelocityWarperV1 implements MouseWarper {
         //		System.out.println(System.currentTimeMillis() - tmp);
     }
 
-    /**
-     * Calculates the angleFirst between mouse-move-vector and start of movement
-     * to fixation. This calculation is treated like it is placed in a cartesian
-     * coordinate system.
-     * 
-     * @param start
-     *            point
-     * @param stop
-     *            point
-     * @return the angle
-     */
-    private double calculateAngle(Point start, Point stop) {
-        // angle in radian measure between x-axis and moving vector of the mouse
-        double mouseTraceAngle = Math.atan2(start.y - stop.y, start.x - stop.x);
-
-        // angle in radian measure between the x-axis and the vector from start
-        // point of the current mouse vector and the fixation point
-        double gazeVectorAngle = Math.atan2(start.y - this.fixation.y, start.x - this.fixation.x);
-
-        // angleFirst between this two ones in degrees
-        double angleTmp = (gazeVectorAngle - mouseTraceAngle) * 180 / Math.PI;
-
-        return Math.abs(angleTmp);
-    }
-
     /**
      * Calculates a set point between fixation point and the mouse vector. The
      * distance is given by setR. The coordinate system is the cartesian
@@ -304,7 +243,7 @@ public class VelocityWarperV1 implements MouseWarper {
     private Point calculateSetPoint(int radius) {
         // angle in radian measure between this x-axis and the vector from end
         // of mouse-vector to fixation
-        double phi = Math.atan2(this.mousePositions.lastEntry().getValue().y - this.fixation.y, this.mousePositions.lastEntry().getValue().x - this.fixation.x);
+        double phi = Math.atan2(this.mousePositions.getY(0) - this.fixation.y, this.mousePositions.getX(0) - this.fixation.x);
 
         // calculate x and y by their polar coordinates
         int x = (int) (radius * Math.cos(phi));
@@ -329,15 +268,9 @@ public class VelocityWarperV1 implements MouseWarper {
     /**
      * clears the mouse vector and fills it with dummydata
      */
-    @SuppressWarnings("boxing")
     private void refreshMouseMap() {
-        long iMax = 10;
-        Point currentMousePos = MouseInfo.getPointerInfo().getLocation();
-        this.mousePositions.clear();
-        this.timeStamp = iMax - 1;
-        for (long i = 0; i < iMax; i++) {
-            this.mousePositions.put(i, new Point(currentMousePos));
-        }
+        Point currentMousePos = this.mover.getMouseLocation();
+        this.kinematics.fill(currentMousePos.x, currentMousePos.y, this.mover.nanoTime());
     }
 
     /**
@@ -349,7 +282,6 @@ public class VelocityWarperV1 implements MouseWarper {
         // initialize variables
         Dimension dimension = Toolkit.getDefaultToolkit().getScreenSize();
         BufferedImage screenShot = null;
-        ArrayList<Long> keys = new ArrayList<Long>(this.mousePositions.keySet());
 
         // create screenshot
         Rectangle screenShotRect = new Rectangle(0, 0, dimension.width, dimension.height);
@@ -370,25 +302,24 @@ public class VelocityWarperV1 implements MouseWarper {
             graphic.setColor(new Color(255, 0, 0, 255));
             graphic.drawOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
             graphic.drawChars(("fixation point").toCharArray(), 0, 14, 12 + this.fixation.x, 12 + this.fixation.y);
-            graphic.drawChars(("" + this.angleFirst).toCharArray(), 0, ("" + this.angleFirst).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
-            graphic.drawChars(("" + this.angleSecLast).toCharArray(), 0, ("" + this.angleSecLast).toCharArray().length, 12 + this.fixation.x, 36 + this.fixation.y);
+            graphic.drawChars(("" + this.kinematics.getSpeed()).toCharArray(), 0, ("" + this.kinematics.getSpeed()).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
             graphic.setColor(new Color(255, 0, 0, 32));
             graphic.fillOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
 
             // visualize mouse vector
-            for (int i = 0; i < keys.size() - 1; i++) {
+            for (int i = 0; i < this.mousePositions.size() - 1; i++) {
                 graphic.setColor(new Color(0, 0, 255, 255));
-                graphic.drawOval((int) this.mousePositions.get(keys.get(i)).getX() - 5, (int) this.mousePositions.get(keys.get(i)).getY() - 5, 10, 10);
-                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, (int) this.mousePositions.get(keys.get(i)).getX() + 12, (int) this.mousePositions.get(keys.get(i)).getY() + 12);
+                graphic.drawOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, this.mousePositions.getX(this.mousePositions.getOldest() - i) + 12, this.mousePositions.getY(this.mousePositions.getOldest() - i) + 12);
                 graphic.setColor(new Color(0, 0, 255, 32));
-                graphic.fillOval((int) this.mousePositions.get(keys.get(i)).getX() - 5, (int) this.mousePositions.get(keys.get(i)).getY() - 5, 10, 10);
-                graphic.drawLine((int) this.mousePositions.get(keys.get(i)).getX(), (int) this.mousePositions.get(keys.get(i)).getY(), (int) this.mousePositions.get(keys.get(i + 1)).getX(), (int) this.mousePositions.get(keys.get(i + 1)).getY());
+                graphic.fillOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawLine(this.mousePositions.getX(this.mousePositions.getOldest() - i), this.mousePositions.getY(this.mousePositions.getOldest() - i), this.mousePositions.getX(this.mousePositions.getOldest() - i - 1), this.mousePositions.getY(this.mousePositions.getOldest() - i - 1));
             }
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.lastEntry().getValue().getX() - 5, (int) this.mousePositions.lastEntry().getValue().getY() - 5, 10, 10);
-            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, (int) this.mousePositions.lastEntry().getValue().getX() + 12, (int) this.mousePositions.lastEntry().getValue().getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
+            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, this.mousePositions.getX(0) + 12, this.mousePositions.getY(0) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.lastEntry().getValue().getX() - 5, (int) this.mousePositions.lastEntry().getValue().getY() - 5, 10, 10);
+            graphic.fillOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
 
             // calculate and visualize setpoint
             graphic.setColor(new Color(0, 255, 0, 255));
@@ -426,4 +357,16 @@ public class VelocityWarperV1 implements MouseWarper {
         // write current poperties in a file
         this.propertie.writeProperties();
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper#setWarpMover
+     * (de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover)
+     */
+    @Override
+    public void setWarpMover(WarpMover mover) {
+        this.mover = mover;
+    }
 }
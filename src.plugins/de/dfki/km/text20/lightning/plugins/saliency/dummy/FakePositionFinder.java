@@ -28,6 +28,7 @@ import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
 import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
 
 /**
@@ -55,6 +56,16 @@ public class FakePositionFinder implements SaliencyDetector {
         return new Point(0, 0);
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector#analyse(de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame)
+     */
+    @Override
+    public Point analyse(LuminanceFrame frame) {
+        return new Point(0, 0);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -28,6 +28,8 @@ import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
+import de.dfki.km.text20.lightning.plugins.saliency.NearestPixelSearch;
 import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
 
 /**
@@ -50,23 +52,26 @@ public class SimpleSobel implements SaliencyDetector {
     }
 
     /**
-     * Derivates the given screenshot in y-direction. 
-     * This painted pixels which have any different color as their following ones in white or grey color.
-     * All the other ones will be colored black.
+     * Derivates the given frame in y-direction (blue channel). 
+     * Pixels which have any different value as their following ones get a value greater than zero.
+     * All the other ones will be zero (black).
      */
-    private BufferedImage derivate(BufferedImage screenShot) {
-
-        BufferedImage derivatedScreenShot = new BufferedImage(screenShot.getHeight(), screenShot.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-
-        // Go through each pixel position in the derivate image ... 
-        for (int x = 0; x < screenShot.getHeight(); x++) {
-            for (int y = 0; y < screenShot.getHeight() - 1; y++) {
-                // ... and subtract the grey value of a pixel by the value of the following one to 
+    private byte[] derivate(LuminanceFrame frame) {
+        int dimension = frame.getHeight();
+        int[] pixels = frame.getPixels();
+        int stride = frame.getStride();
+        byte[] derivative = new byte[dimension * dimension];
+
+        // Go through each pixel position in the derivate ... 
+        for (int y = 0; y < dimension - 1; y++) {
+            int line = frame.getOffset() + y * stride;
+            for (int x = 0; x < dimension; x++) {
+                // ... and subtract the value of a pixel by the value of the following one to 
                 // derivate the screenshot in y-direction
-                derivatedScreenShot.setRGB(x, y, (screenShot.getRGB(x, y) & 0xFF) - (screenShot.getRGB(x, y + 1) & 0xFF));
+                derivative[y * dimension + x] = (byte) Math.abs((pixels[line + x] & 0xFF) - (pixels[line + stride + x] & 0xFF));
             }
         }
-        return derivatedScreenShot;
+        return derivative;
     }
 
     /* (non-Javadoc)
@@ -77,113 +82,20 @@ public class SimpleSobel implements SaliencyDetector {
      */
     @Override
     public Point analyse(BufferedImage screenShot) {
+        return this.analyse(LuminanceFrame.fromImage(screenShot));
+    }
 
-        //encoding for direction:
-        // 0 = down
-        // 1 = left
-        // 2 = up
-        // 3 = right
-        int direction = 0;
-
-        // size of the spiral in one direction
-        int size = 1;
-
+    /* (non-Javadoc)
+     * @see de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector#analyse(de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame)
+     */
+    @Override
+    public Point analyse(LuminanceFrame frame) {
         // derivated screenshot
-        BufferedImage derivatedScreenShot = derivate(screenShot);
-
-        // fixation point
-        Point point = new Point(derivatedScreenShot.getHeight() / 2, derivatedScreenShot.getHeight() / 2);
-
-        // offset from fixation to calculated target
-        Point offset = new Point(0, 0);
-
-        // grows till the whole screenshot is checked
-        while ((size < derivatedScreenShot.getHeight()) && (Math.abs(offset.x) < derivatedScreenShot.getHeight() / 2) && (Math.abs(offset.y) < derivatedScreenShot.getHeight() / 2)) {
-
-            // grow in every direction
-            switch (direction) {
-            case 0:
-
-                // run through line
-                for (int y = 0; (y < size) && (offset.y < derivatedScreenShot.getHeight() / 2 - 1); y++) {
-
-                    // move offset
-                    offset.setLocation(offset.x, offset.y + 1);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + offset.x, point.y + offset.y) & 0xFF) > 0)
-                        return offset;
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-                break;
-
-            case 1:
+        byte[] derivative = derivate(frame);
 
-                // run through line
-                for (int x = 0; (x < size) && (-offset.x < derivatedScreenShot.getHeight() / 2 - 1); x++) {
-
-                    // move offset
-                    offset.setLocation(offset.x - 1, offset.y);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + offset.x, point.y + offset.y) & 0xFF) > 0)
-                        return offset;
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-
-                // increase size
-                size++;
-                break;
-
-            case 2:
-
-                // run through line
-                for (int y = 0; (y < size) && (-offset.y < derivatedScreenShot.getHeight() / 2 - 1); y++) {
-
-                    // move offset
-                    offset.setLocation(offset.x, offset.y - 1);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + offset.x, point.y + offset.y) & 0xFF) > 0)
-                        return offset;
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-                break;
-
-            case 3:
-
-                // run through line
-                for (int x = 0; (x < size) && (offset.x < derivatedScreenShot.getHeight() / 2 - 1); x++) {
-
-                    // move offset
-                    offset.setLocation(offset.x + 1, offset.y);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + offset.x, point.y + offset.y) & 0xFF) > 0)
-                        return offset;
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-
-                // increase size
-                size++;
-                break;
-            }
-        }
+        // walk along the precomputed spiral, the first non-black pixel is returned
+        Point offset = NearestPixelSearch.getInstance(frame.getHeight()).searchSpiral(derivative, 0, frame.getHeight());
 
-        // if nothing had found
-        offset.setLocation(0, 0);
         return offset;
     }
 
@@ -41,11 +41,15 @@ import net.xeoh.plugins.meta.updatecheck.UpdateCheck;
 
 import com.melloware.jintellitype.JIntellitype;
 
+import de.dfki.km.text20.lightning.diagnosis.ClickTimings;
+import de.dfki.km.text20.lightning.diagnosis.EventLog;
 import de.dfki.km.text20.lightning.diagnosis.channels.tracing.LightningTracer;
 import de.dfki.km.text20.lightning.gui.TraySymbol;
 import de.dfki.km.text20.lightning.hotkey.Hotkey;
 import de.dfki.km.text20.lightning.plugins.InternalPluginManager;
 import de.dfki.km.text20.lightning.worker.FixationWatcher;
+import de.dfki.km.text20.lightning.worker.GazeState;
+import de.dfki.km.text20.lightning.worker.clickto.ClickPipeline;
 import de.dfki.km.text20.lightning.worker.clickto.FixationEvaluator;
 import de.dfki.km.text20.lightning.worker.evaluationmode.PrecisionEvaluator;
 import de.dfki.km.text20.lightning.worker.recalibrator.Recalibrator;
@@ -98,8 +102,8 @@ public class MainClass {
     /** collects evaluation data */
     private PrecisionEvaluator evaluator;
 
-    /** indicates if the trackinddata is valid */
-    private boolean trackingValid;
+    /** latest gaze data of the tracker */
+    private GazeState gaze;
 
     /** ding sound */
     private AudioClip soundDing;
@@ -122,6 +126,9 @@ public class MainClass {
     /** ShutDownHook */
     private Thread hook;
 
+    /** runs clicks and their side effects outside of the hotkey thread */
+    private ClickPipeline pipeline;
+
     /**
      * creates a new instance of the mainclass and initializes it
      * 
@@ -200,12 +207,14 @@ public class MainClass {
 
         // Creates classes which are needed for the three parts (clicking,
         // warping and evaluation) of this tool.
+        this.gaze = new GazeState();
         FixationEvaluator fixationEvaluator = new FixationEvaluator();
+        this.pipeline = new ClickPipeline(fixationEvaluator);
         this.evaluator = new PrecisionEvaluator();
         this.warper = new WarpCommander();
 
         // main component which listen on trackingevents
-        FixationWatcher fixationCatcher = new FixationWatcher(fixationEvaluator, this.evaluator);
+        FixationWatcher fixationCatcher = new FixationWatcher(fixationEvaluator);
 
         // add menu to tray
         this.trayIcon.setPopUpMenu();
@@ -435,12 +444,19 @@ public class MainClass {
      */
     public void exit(boolean type) {
 
+        // finish the running click and all deferred side effects, they may still update
+        // the reminder, the statistics and the click timings
+        if (this.pipeline != null) this.pipeline.close();
+
         // close reminder
         this.reminder.close();
 
         // store properties to a file
         this.properties.writeProperties();
 
+        // store click timings next to them
+        ClickTimings.getInstance().write();
+
         // update statistics
         this.addToStatistic("Session closed.");
 
@@ -460,6 +476,13 @@ public class MainClass {
             this.internalPluginManager.getCurrentMouseWarper().stop();
         }
 
+        // store the report of the shadow warpers and close the trajectory log, the shadow warpers
+        // record their last warps in the event log while they are drained
+        if (this.warper != null) this.warper.close();
+
+        // write all buffered log events, the click pipeline is already drained and later events are dropped
+        EventLog.getInstance().close();
+
         if (type) {
             // remove hook
             Runtime.getRuntime().removeShutdownHook(this.hook);
@@ -603,18 +626,17 @@ public class MainClass {
     }
 
     /**
-     * @return the trackingValid
+     * @return true if the trackingdata is valid
      */
     public boolean isTrackingValid() {
-        return this.trackingValid;
+        return this.gaze.isValid();
     }
 
     /**
-     * @param trackingValid
-     *            the trackingValid to set
+     * @return latest gaze data of the tracker, written by the fixation watcher
      */
-    public void setTrackingValid(boolean trackingValid) {
-        this.trackingValid = trackingValid;
+    public GazeState getGazeState() {
+        return this.gaze;
     }
 
     /**
@@ -643,6 +665,20 @@ public class MainClass {
         this.submitted = submitted;
     }
 
+    /**
+     * @return the click pipeline
+     */
+    public ClickPipeline getPipeline() {
+        return this.pipeline;
+    }
+
+    /**
+     * @return the sampler of the mouse warping
+     */
+    public WarpCommander getWarper() {
+        return this.warper;
+    }
+
     /**
      * @return the recalibrator
      */
@@ -98,6 +98,38 @@ public class Properties implements Serializable {
     /** indicates if the tracking recalibration is used */
     private boolean recalibration;
 
+    @Attribute
+    /** number of raw data events which must be valid to accept a fixation */
+    private int validityWindow;
+
+    @Attribute
+    /** maximum age of the raw data events in this window in milliseconds, 0 if only the number counts */
+    private int validityDuration;
+
+    @Attribute
+    /** source of the fixations, see FixationDetector: 0 = tracking library, 1 = I-VT, 2 = I-DT */
+    private int fixationDetection;
+
+    @Attribute
+    /** maximum gaze velocity in a fixation in pixel per millisecond, used by I-VT */
+    private double fixationVelocity;
+
+    @Attribute
+    /** maximum width plus height of a fixation in pixels, used by I-DT */
+    private int fixationDispersion;
+
+    @Attribute
+    /** minimum duration of a fixation in milliseconds, used by I-VT and I-DT */
+    private int fixationDuration;
+
+    @Attribute
+    /** indicates if all installed warpers are evaluated in shadow mode */
+    private boolean shadowWarpers;
+
+    @Attribute
+    /** indicates if mouse samples and fixations are recorded into a trajectory log */
+    private boolean recordTrajectory;
+
     /**
      * creates properties, tries to load property file
      */
@@ -131,6 +163,20 @@ public class Properties implements Serializable {
                     this.submittedFirst = ((Properties) this.object).isFirstSubmitted();
                     this.submittedSecond = ((Properties) this.object).isSecondSubmitted();
                     this.recalibration = ((Properties) this.object).isRecalibration();
+                    this.validityWindow = ((Properties) this.object).getValidityWindow();
+                    this.validityDuration = ((Properties) this.object).getValidityDuration();
+                    this.fixationDetection = ((Properties) this.object).getFixationDetection();
+                    this.fixationVelocity = ((Properties) this.object).getFixationVelocity();
+                    this.fixationDispersion = ((Properties) this.object).getFixationDispersion();
+                    this.fixationDuration = ((Properties) this.object).getFixationDuration();
+                    this.shadowWarpers = ((Properties) this.object).isShadowWarpers();
+                    this.recordTrajectory = ((Properties) this.object).isRecordTrajectory();
+
+                    // older files do not contain the validity window and the fixation detection
+                    if (this.validityWindow <= 0) this.validityWindow = 10;
+                    if (this.fixationVelocity <= 0) this.fixationVelocity = 1;
+                    if (this.fixationDispersion <= 0) this.fixationDispersion = 50;
+                    if (this.fixationDuration <= 0) this.fixationDuration = 100;
 
                     // reading successful
                     status = true;
@@ -175,6 +221,14 @@ public class Properties implements Serializable {
         this.detectorName = "";
         this.soundActivated = false;
         this.recalibration = false;
+        this.validityWindow = 10;
+        this.validityDuration = 0;
+        this.fixationDetection = 0;
+        this.fixationVelocity = 1;
+        this.fixationDispersion = 50;
+        this.fixationDuration = 100;
+        this.shadowWarpers = false;
+        this.recordTrajectory = false;
     }
 
     /**
@@ -379,5 +433,117 @@ public class Properties implements Serializable {
     public void setRecalibration(boolean recalibration) {
         this.recalibration = recalibration;
     }
+
+    /**
+     * @return number of raw data events which must be valid to accept a fixation
+     */
+    public int getValidityWindow() {
+        return this.validityWindow;
+    }
+
+    /**
+     * @param validityWindow number of raw data events which must be valid to accept a fixation
+     */
+    public void setValidityWindow(int validityWindow) {
+        this.validityWindow = validityWindow;
+    }
+
+    /**
+     * @return maximum age of the raw data events in the validity window in milliseconds, 0 if only the number counts
+     */
+    public int getValidityDuration() {
+        return this.validityDuration;
+    }
+
+    /**
+     * @param validityDuration maximum age of the raw data events in the validity window in milliseconds, 0 to disable
+     */
+    public void setValidityDuration(int validityDuration) {
+        this.validityDuration = validityDuration;
+    }
+
+    /**
+     * @return source of the fixations: 0 = tracking library, 1 = I-VT, 2 = I-DT
+     */
+    public int getFixationDetection() {
+        return this.fixationDetection;
+    }
+
+    /**
+     * @param fixationDetection source of the fixations: 0 = tracking library, 1 = I-VT, 2 = I-DT
+     */
+    public void setFixationDetection(int fixationDetection) {
+        this.fixationDetection = fixationDetection;
+    }
+
+    /**
+     * @return maximum gaze velocity in a fixation in pixel per millisecond
+     */
+    public double getFixationVelocity() {
+        return this.fixationVelocity;
+    }
+
+    /**
+     * @param fixationVelocity maximum gaze velocity in a fixation in pixel per millisecond
+     */
+    public void setFixationVelocity(double fixationVelocity) {
+        this.fixationVelocity = fixationVelocity;
+    }
+
+    /**
+     * @return maximum width plus height of a fixation in pixels
+     */
+    public int getFixationDispersion() {
+        return this.fixationDispersion;
+    }
+
+    /**
+     * @param fixationDispersion maximum width plus height of a fixation in pixels
+     */
+    public void setFixationDispersion(int fixationDispersion) {
+        this.fixationDispersion = fixationDispersion;
+    }
+
+    /**
+     * @return minimum duration of a fixation in milliseconds
+     */
+    public int getFixationDuration() {
+        return this.fixationDuration;
+    }
+
+    /**
+     * @param fixationDuration minimum duration of a fixation in milliseconds
+     */
+    public void setFixationDuration(int fixationDuration) {
+        this.fixationDuration = fixationDuration;
+    }
+
+    /**
+     * @return true if all installed warpers are evaluated in shadow mode
+     */
+    public boolean isShadowWarpers() {
+        return this.shadowWarpers;
+    }
+
+    /**
+     * @param shadowWarpers true if all installed warpers should be evaluated in shadow mode
+     */
+    public void setShadowWarpers(boolean shadowWarpers) {
+        this.shadowWarpers = shadowWarpers;
+    }
+
+    /**
+     * @return true if mouse samples and fixations are recorded into a trajectory log
+     */
+    public boolean isRecordTrajectory() {
+        return this.recordTrajectory;
+    }
+
+    /**
+     * @param recordTrajectory true if mouse samples and fixations should be recorded into a trajectory log
+     */
+    public void setRecordTrajectory(boolean recordTrajectory) {
+        this.recordTrajectory = recordTrajectory;
+    }
     
 }
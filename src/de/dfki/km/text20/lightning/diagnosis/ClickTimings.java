@@ -0,0 +1,178 @@
+/*
+ * ClickTimings.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.diagnosis;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the durations of the single stages of a click for each saliency detector and the delay
+ * of the mouse samples behind their deadlines. The report can be requested from the tray menu and
+ * is appended to a file when the tool is closed.
+ */
+public class ClickTimings {
+
+    /**
+     * stages of a click
+     */
+    public enum Stage {
+        /** Robot.createScreenCapture */
+        CAPTURE,
+
+        /** SaliencyDetector.analyse */
+        ANALYSE,
+
+        /** time the click waited for capture and analysis */
+        WAIT,
+
+        /** mouse move, press, release and move back */
+        CLICK,
+
+        /** Recalibrator.updateCalibration */
+        RECALIBRATION
+    }
+
+    /** file the report is written to, next to the properties */
+    private static final String FILE = "timings.log";
+
+    /** instance of singleton */
+    private static ClickTimings instance = null;
+
+    /** one histogram per stage for each detector name */
+    private final Map<String, LatencyHistogram[]> detectors;
+
+    /** delay of the mouse samples behind their deadlines */
+    private final LatencyHistogram sampling;
+
+    /**
+     * creates an empty collection
+     */
+    private ClickTimings() {
+        this.detectors = new LinkedHashMap<String, LatencyHistogram[]>();
+        this.sampling = new LatencyHistogram();
+    }
+
+    /**
+     * Returns the singleton, it is created at the first call.
+     *
+     * @return instance the only instance of ClickTimings
+     */
+    public static synchronized ClickTimings getInstance() {
+        if (instance == null) instance = new ClickTimings();
+        return instance;
+    }
+
+    /**
+     * returns the histograms of the given detector, they are created at the first call
+     */
+    private synchronized LatencyHistogram[] histograms(String detector) {
+        LatencyHistogram[] histograms = this.detectors.get(detector);
+        if (histograms == null) {
+            histograms = new LatencyHistogram[Stage.values().length];
+            for (int i = 0; i < histograms.length; i++)
+                histograms[i] = new LatencyHistogram();
+            this.detectors.put(detector, histograms);
+        }
+        return histograms;
+    }
+
+    /**
+     * adds a duration
+     *
+     * @param detector display name of the current saliency detector, null if there is none
+     * @param stage
+     * @param nanos duration in nanoseconds, see System.nanoTime()
+     */
+    public void record(String detector, Stage stage, long nanos) {
+        this.histograms(detector == null ? "none" : detector)[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * adds the delay of a mouse sample
+     *
+     * @param nanos time between deadline and sample in nanoseconds
+     */
+    public void recordSampling(long nanos) {
+        this.sampling.record(nanos);
+    }
+
+    /**
+     * @return p50, p99 and maximum of each stage, for each detector and for all of them together
+     */
+    public String report() {
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<String>(this.detectors.keySet());
+        }
+
+        // merge all detectors
+        LatencyHistogram[] all = new LatencyHistogram[Stage.values().length];
+        for (int i = 0; i < all.length; i++)
+            all[i] = new LatencyHistogram();
+
+        StringBuilder report = new StringBuilder();
+        for (String name : names) {
+            LatencyHistogram[] histograms = this.histograms(name);
+            report.append(name + "\r\n");
+            for (Stage stage : Stage.values()) {
+                report.append("    " + stage + ": " + histograms[stage.ordinal()] + "\r\n");
+                all[stage.ordinal()].merge(histograms[stage.ordinal()]);
+            }
+        }
+        if (names.size() > 1) {
+            report.append("all detectors\r\n");
+            for (Stage stage : Stage.values())
+                report.append("    " + stage + ": " + all[stage.ordinal()] + "\r\n");
+        }
+        if (this.sampling.getCount() > 0)
+            report.append("mouse sampling jitter: " + this.sampling + "\r\n");
+        return report.toString();
+    }
+
+    /**
+     * appends the current report with a timestamp to the timings file
+     *
+     * @return the file
+     */
+    public File write() {
+        File file = new File(FILE);
+        FileWriter writer = null;
+        try {
+            writer = new FileWriter(file, true);
+            writer.write("Timestamp: " + System.currentTimeMillis() + "\r\n" + this.report() + "\r\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (writer != null) try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return file;
+    }
+}
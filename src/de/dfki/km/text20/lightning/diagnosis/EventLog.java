@@ -0,0 +1,391 @@
+/*
+ * EventLog.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.diagnosis;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.dfki.km.text20.lightning.MainClass;
+
+/**
+ * Log for clicks, evaluation steps, warps and shadow warps. Events are stored as typed records in a preallocated
+ * ring buffer, so recording one costs only some array writes, method names are stored as ids.
+ * A background thread formats the records and writes them to console, diagnosis channel and
+ * statistics. If the buffer is full or the log is closed, new events are dropped and counted.
+ */
+public class EventLog implements Runnable {
+
+    /** record type of a click */
+    public static final int CLICK = 0;
+
+    /** record type of an evaluation step */
+    public static final int EVALUATION = 1;
+
+    /** record type of a mouse warp */
+    public static final int WARP = 2;
+
+    /** record type of a warp which a shadow warper would have done */
+    public static final int SHADOW_WARP = 3;
+
+    /** number of records which can be buffered */
+    private static final int CAPACITY = 1024;
+
+    /** time between two writes in milliseconds */
+    private static final long INTERVAL = 100;
+
+    /** instance of singleton */
+    private static EventLog instance = null;
+
+    /** record buffer, used by the producers */
+    private final Records buffer;
+
+    /** records which are currently written, used by the writer only */
+    private final Records batch;
+
+    /** number of recorded events, the record of event i is at i % CAPACITY */
+    private long head;
+
+    /** number of events which were taken by the writer */
+    private long tail;
+
+    /** number of dropped events */
+    private long dropped;
+
+    /** registered method names, the index is used as id */
+    private final List<String> methods;
+
+    /** ids of the registered method names */
+    private final Map<String, Integer> methodIds;
+
+    /** background writer */
+    private Thread writer;
+
+    /** indicates if the writer should go on */
+    private volatile boolean running;
+
+    /** true after close(), no records are accepted anymore */
+    private boolean closed;
+
+    /** held while a batch is written, so the writer and the final drain of close() do not share the batch */
+    private final Object writing;
+
+    /**
+     * creates the buffers and starts the writer
+     */
+    private EventLog() {
+        this.buffer = new Records(CAPACITY);
+        this.batch = new Records(CAPACITY);
+        this.head = 0;
+        this.tail = 0;
+        this.dropped = 0;
+        this.methods = new ArrayList<String>();
+        this.methodIds = new HashMap<String, Integer>();
+        this.running = true;
+        this.closed = false;
+        this.writing = new Object();
+        this.writer = new Thread(this, "EventLog");
+        this.writer.setDaemon(true);
+        this.writer.setPriority(Thread.MIN_PRIORITY);
+        this.writer.start();
+    }
+
+    /**
+     * Returns the singleton, it is created at the first call.
+     *
+     * @return instance the only instance of EventLog
+     */
+    public static synchronized EventLog getInstance() {
+        if (instance == null) instance = new EventLog();
+        return instance;
+    }
+
+    /**
+     * returns the id of the given method name, the name is registered at the first call
+     *
+     * @param name display name of a detector or warper, may be null
+     * @return id which is used in the records, -1 for null
+     */
+    private int register(String name) {
+        if (name == null) return -1;
+        Integer id = this.methodIds.get(name);
+        if (id == null) {
+            id = Integer.valueOf(this.methods.size());
+            this.methods.add(name);
+            this.methodIds.put(name, id);
+        }
+        return id.intValue();
+    }
+
+    /**
+     * records a click
+     *
+     * @param timestamp time of the screenshot
+     * @param fixation
+     * @param offset calculated offset from fixation to target
+     * @param dimension of the screenshot
+     * @param method display name of the saliency detector
+     * @param recalibration true if recalibration is used
+     */
+    public void click(long timestamp, Point fixation, Point offset, int dimension,
+                      String method, boolean recalibration) {
+        this.put(CLICK, timestamp, fixation.x, fixation.y, offset.x, offset.y, dimension, method, recalibration, Double.NaN);
+    }
+
+    /**
+     * records an evaluation step
+     *
+     * @param timestamp time of the fixation
+     * @param fixation
+     * @param mousePosition position the user looked at
+     * @param dimension of the screenshot
+     * @param recalibration true if recalibration is used
+     */
+    public void evaluation(long timestamp, Point fixation, Point mousePosition,
+                           int dimension, boolean recalibration) {
+        this.put(EVALUATION, timestamp, fixation.x, fixation.y, mousePosition.x, mousePosition.y, dimension, null, recalibration, Double.NaN);
+    }
+
+    /**
+     * records a mouse warp
+     *
+     * @param method display name of the warper
+     * @param target point the cursor was moved to
+     * @param distance warped distance in pixels, -1 if unknown
+     * @param radius distance between target and fixation in pixels, -1 if unknown
+     * @param speed mouse speed in pixel per millisecond, NaN if unknown
+     */
+    public void warp(String method, Point target, int distance, int radius, double speed) {
+        this.put(WARP, System.currentTimeMillis(), target.x, target.y, distance, radius, 0, method, false, speed);
+    }
+
+    /**
+     * records a warp which a shadow warper would have done
+     *
+     * @param method display name of the warper
+     * @param target point the cursor would have been moved to
+     * @param distance warped distance in pixels, -1 if unknown
+     * @param radius distance between target and fixation in pixels, -1 if unknown
+     * @param speed mouse speed in pixel per millisecond, NaN if unknown
+     */
+    public void shadowWarp(String method, Point target, int distance, int radius, double speed) {
+        this.put(SHADOW_WARP, System.currentTimeMillis(), target.x, target.y, distance, radius, 0, method, false, speed);
+    }
+
+    /**
+     * stores one record, drops it if the buffer is full or the log is closed
+     */
+    private synchronized void put(int type, long timestamp, int x, int y, int u, int v,
+                                  int dimension, String method, boolean flag, double value) {
+        if (this.closed || (this.head - this.tail >= CAPACITY)) {
+            this.dropped++;
+            return;
+        }
+        this.buffer.set((int) (this.head % CAPACITY), type, timestamp, x, y, u, v, dimension, this.register(method), flag, value);
+        this.head++;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+        while (this.running) {
+            try {
+                Thread.sleep(INTERVAL);
+            } catch (InterruptedException e) {
+                // write the rest and stop
+                break;
+            }
+            this.drain();
+        }
+        this.drain();
+    }
+
+    /**
+     * Stops accepting records, stops the writer and writes all buffered records, called when the tool
+     * is closed. Records which arrive afterwards are dropped and counted.
+     */
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+        }
+        this.running = false;
+        this.writer.interrupt();
+        try {
+            this.writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // the writer may have been too slow, everything which is left is written here
+        this.drain();
+    }
+
+    /**
+     * takes all buffered records and writes them, only the copy is done while the producers are locked
+     */
+    private void drain() {
+        synchronized (this.writing) {
+            int count;
+            long lost;
+            synchronized (this) {
+                count = (int) (this.head - this.tail);
+                for (int i = 0; i < count; i++)
+                    this.batch.copy(i, this.buffer, (int) ((this.tail + i) % CAPACITY));
+                this.tail = this.head;
+                lost = this.dropped;
+                this.dropped = 0;
+            }
+
+            for (int i = 0; i < count; i++)
+                this.write(i);
+            if (lost > 0) System.out.println("EventLog - " + lost + " events were dropped");
+        }
+    }
+
+    /**
+     * formats and writes the given record of the current batch
+     */
+    private void write(int i) {
+        Records r = this.batch;
+        MainClass main = MainClass.getInstance();
+        switch (r.type[i]) {
+        case CLICK:
+            String click = "Timestamp: " + r.timestamp[i] + ", Fixation: (" + r.x[i] + "," + r.y[i] + "), Offset: (" + r.u[i] + "," + r.v[i] + "), Dimension: " + r.dimension[i] + ", Method: " + this.method(r.method[i]) + ", Recalibration is used: " + r.flag[i];
+            System.out.println("Click - " + click);
+            main.getChannel().status("Click - " + click);
+            main.addToStatistic("click", click);
+            break;
+
+        case EVALUATION:
+            String evaluation = "Timestamp: " + r.timestamp[i] + ", Fixation: (" + r.x[i] + "," + r.y[i] + "), Mouseposition: (" + r.u[i] + "," + r.v[i] + "), Dimension: " + r.dimension[i] + ", Recalibration is used: " + r.flag[i];
+            System.out.println("Evaluation - " + evaluation);
+            main.getChannel().status("Evaluation - " + evaluation);
+            main.addToStatistic("evaluation", evaluation);
+            break;
+
+        case WARP:
+        case SHADOW_WARP:
+            StringBuilder warp = new StringBuilder((r.type[i] == WARP ? "Warp" : "Shadow warp") + " - Mouse move to (" + r.x[i] + "," + r.y[i] + ")");
+            if (r.u[i] >= 0) warp.append(" over a distance of " + r.u[i] + " Pixels");
+            if (r.v[i] >= 0) warp.append(" and an offset of " + r.v[i] + " Pixels");
+            warp.append(". Method: " + this.method(r.method[i]));
+            if (!Double.isNaN(r.value[i]))
+                warp.append(", Velocity: " + ((double) (Math.round(r.value[i] * 100)) / 100) + " Pixel/ms");
+            System.out.println(warp);
+            break;
+
+        default:
+            break;
+        }
+    }
+
+    /**
+     * @return name of the given method id
+     */
+    private synchronized String method(int id) {
+        if ((id < 0) || (id >= this.methods.size())) return "none";
+        return this.methods.get(id);
+    }
+
+    /**
+     * Parallel arrays which hold the fields of the records. The meaning of x, y, u and v depends on the type:
+     * click = fixation and offset, evaluation = fixation and mouse position, warp and shadow warp = target, distance and radius.
+     */
+    private static class Records {
+
+        /** record types */
+        final int[] type;
+
+        /** timestamps */
+        final long[] timestamp;
+
+        /** first x values */
+        final int[] x;
+
+        /** first y values */
+        final int[] y;
+
+        /** second x values */
+        final int[] u;
+
+        /** second y values */
+        final int[] v;
+
+        /** screenshot dimensions */
+        final int[] dimension;
+
+        /** method ids */
+        final int[] method;
+
+        /** recalibration flags */
+        final boolean[] flag;
+
+        /** additional values like the warp speed */
+        final double[] value;
+
+        /**
+         * @param capacity
+         */
+        Records(int capacity) {
+            this.type = new int[capacity];
+            this.timestamp = new long[capacity];
+            this.x = new int[capacity];
+            this.y = new int[capacity];
+            this.u = new int[capacity];
+            this.v = new int[capacity];
+            this.dimension = new int[capacity];
+            this.method = new int[capacity];
+            this.flag = new boolean[capacity];
+            this.value = new double[capacity];
+        }
+
+        /**
+         * sets all fields of the given record
+         */
+        void set(int i, int t, long time, int xValue, int yValue, int uValue, int vValue,
+                 int dimensionValue, int methodId, boolean flagValue, double extra) {
+            this.type[i] = t;
+            this.timestamp[i] = time;
+            this.x[i] = xValue;
+            this.y[i] = yValue;
+            this.u[i] = uValue;
+            this.v[i] = vValue;
+            this.dimension[i] = dimensionValue;
+            this.method[i] = methodId;
+            this.flag[i] = flagValue;
+            this.value[i] = extra;
+        }
+
+        /**
+         * copies record j of the given records to record i
+         */
+        void copy(int i, Records from, int j) {
+            this.set(i, from.type[j], from.timestamp[j], from.x[j], from.y[j], from.u[j], from.v[j], from.dimension[j], from.method[j], from.flag[j], from.value[j]);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * LatencyHistogram.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.diagnosis;
+
+/**
+ * Histogram of durations in nanoseconds. Each power of two is split into 16 linear buckets, so a
+ * percentile is off by at most 1/16 of its value while recording is only an array increment. Histograms
+ * with the same layout can be merged by adding their buckets.
+ */
+public class LatencyHistogram {
+
+    /** number of linear buckets per power of two, as bits */
+    private static final int SUB_BITS = 4;
+
+    /** number of linear buckets per power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** number of buckets, enough for every positive long */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    /** number of values in each bucket */
+    private final long[] counts;
+
+    /** number of recorded values */
+    private long count;
+
+    /** greatest recorded value */
+    private long max;
+
+    /**
+     * creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+        this.count = 0;
+        this.max = 0;
+    }
+
+    /**
+     * @return bucket of the given value
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return greatest value which falls into the given bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * adds a duration
+     *
+     * @param nanos duration in nanoseconds, negative values are stored as 0
+     */
+    public synchronized void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.counts[bucket(value)]++;
+        this.count++;
+        if (value > this.max) this.max = value;
+    }
+
+    /**
+     * adds all values of the given histogram to this one
+     *
+     * @param other
+     */
+    public void merge(LatencyHistogram other) {
+        long[] otherCounts;
+        long otherCount;
+        long otherMax;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherCount = other.count;
+            otherMax = other.max;
+        }
+        synchronized (this) {
+            for (int i = 0; i < BUCKETS; i++)
+                this.counts[i] += otherCounts[i];
+            this.count += otherCount;
+            this.max = Math.max(this.max, otherMax);
+        }
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return greatest recorded value in nanoseconds
+     */
+    public synchronized long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return value in nanoseconds below which the given percentage of the values lies, 0 if empty
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (this.count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(this.count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), this.max);
+        }
+        return this.max;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        return "n=" + this.count + ", p50=" + millis(this.getPercentile(50)) + " ms, p99=" + millis(this.getPercentile(99)) + " ms, max=" + millis(this.max) + " ms";
+    }
+
+    /**
+     * @return given nanoseconds as milliseconds with three decimals
+     */
+    private static String millis(long nanos) {
+        return String.format("%.3f", Double.valueOf(nanos / 1000000.0));
+    }
+}
@@ -23,7 +23,6 @@ package de.dfki.km.text20.lightning.evaluator.plugins.coveragedetector;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
@@ -32,7 +31,9 @@ import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.evaluator.plugins.CoverageAnalyser;
 import de.dfki.km.text20.lightning.evaluator.plugins.coveragedetector.gui.CoverageDetectorConfigImpl;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
 import de.dfki.km.text20.lightning.plugins.saliency.textdetector.GetImageText;
+import de.dfki.km.text20.lightning.plugins.saliency.textdetector.TextBoxes;
 
 /**
  * analyses the given screenshot with GetImageText and returns the coverage
@@ -54,9 +55,6 @@ public class CoverageDetector implements CoverageAnalyser {
     /** text analyser */
     private GetImageText analyser;
 
-    /** text boxes inside the screen shot */
-    private LinkedList<TextRegion> boxes;
-    
     /**
      * creates new instance and initializes its variables
      */
@@ -79,7 +77,6 @@ public class CoverageDetector implements CoverageAnalyser {
     public void start() {
         this.properties = CoverageDetectorProperties.getInstance();
         this.timeStamp = System.currentTimeMillis();
-        this.boxes = new LinkedList<TextRegion>();
     }
 
     /* (non-Javadoc)
@@ -96,36 +93,23 @@ public class CoverageDetector implements CoverageAnalyser {
     @Override
     public double analyse(BufferedImage screenShot) {
         // initialize variables
-        int textSize = 0;
-        this.analyser = new GetImageText(screenShot, this.properties.getLetterHeight(), this.properties.getLineSize(), this.properties.getSenitivity());
+        this.analyser = new GetImageText(LuminanceFrame.fromImage(screenShot), this.properties.getLetterHeight(), this.properties.getLineSize(), this.properties.getSenitivity());
         
-        // get text boxes
-        for (Object textRegion : this.analyser.getTextBoxes()) {
-            if (textRegion instanceof TextRegion) {
-                this.boxes.add((TextRegion) textRegion);
-            }
-        }
+        // get text boxes, their area is summed up while they are found
+        TextBoxes boxes = this.analyser.getTextBoxes();
 
         // draw image if debug is enabled
         if (this.properties.isDebug()) {
             try {
                 new File("./plugins/TextDetector/debug/Session_" + this.timeStamp).mkdirs();
-                ImageIO.write(this.analyser.isolateText(this.boxes), "png", new File("./plugins/TextDetector/debug/Session_" + this.timeStamp + "/" + System.currentTimeMillis() + "_TextDetectorDebug.png"));
+                ImageIO.write(this.analyser.isolateText(boxes), "png", new File("./plugins/TextDetector/debug/Session_" + this.timeStamp + "/" + System.currentTimeMillis() + "_TextDetectorDebug.png"));
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
         
-        // calculate coverage
-        for (TextRegion textRegion : this.boxes) {
-            textSize = textSize + textRegion.width() * textRegion.height();
-        }
-        
-        // reset boxes
-        this.boxes.clear();
-        
         // return coverage
-        return ((double) 100 / (double) (screenShot.getWidth() * screenShot.getHeight())) * textSize;
+        return ((double) 100 / (double) (screenShot.getWidth() * screenShot.getHeight())) * boxes.getArea();
     }
 
     /* (non-Javadoc)
@@ -49,6 +49,7 @@ import jxl.write.biff.RowsExceededException;
 import net.xeoh.plugins.diagnosis.local.DiagnosisChannel;
 import de.dfki.km.text20.lightning.evaluator.EvaluatorMain;
 import de.dfki.km.text20.lightning.evaluator.plugins.CoverageAnalyser;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
 import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
 import de.dfki.km.text20.lightning.worker.evaluationmode.StorageContainer;
 
@@ -183,7 +184,7 @@ public class EvaluatorWorker {
         }
 
         // calculate offset by running the detector
-        point = detector.analyse(screenShot);
+        point = detector.analyse(LuminanceFrame.fromImage(screenShot));
         point.translate(screenShot.getHeight() / 2, screenShot.getWidth() / 2);
 
         // write the png-file
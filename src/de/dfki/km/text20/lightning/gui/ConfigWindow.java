@@ -93,6 +93,9 @@ public class ConfigWindow {
     private void checkBoxTrainingActionPerformed(ActionEvent e) {
     }
 
+    private void comboBoxFixationDetectionActionPerformed(ActionEvent e) {
+    }
+
     private void initComponents() {
         // JFormDesigner - Component initialization - DO NOT MODIFY  //GEN-BEGIN:initComponents
         // Generated using JFormDesigner non-commercial license
@@ -117,6 +120,10 @@ public class ConfigWindow {
         labelWarpMethod = new JLabel();
         comboBoxWarpMethod = new JComboBox();
         buttonWarpConfig = new JButton();
+        labelShadowWarpers = new JLabel();
+        checkBoxShadowWarpers = new JCheckBox();
+        labelRecordTrajectory = new JLabel();
+        checkBoxRecordTrajectory = new JCheckBox();
         panel3 = new JPanel();
         labelEvaluation = new JLabel();
         checkBoxEvaluation = new JCheckBox();
@@ -133,6 +140,19 @@ public class ConfigWindow {
         labelDetector = new JLabel();
         comboBoxDetector = new JComboBox();
         buttonDetectorConfig = new JButton();
+        panel5 = new JPanel();
+        labelValidityWindow = new JLabel();
+        spinnerValidityWindow = new JSpinner();
+        labelValidityDuration = new JLabel();
+        spinnerValidityDuration = new JSpinner();
+        labelFixationDetection = new JLabel();
+        comboBoxFixationDetection = new JComboBox();
+        labelFixationDuration = new JLabel();
+        spinnerFixationDuration = new JSpinner();
+        labelFixationVelocity = new JLabel();
+        spinnerFixationVelocity = new JSpinner();
+        labelFixationDispersion = new JLabel();
+        spinnerFixationDispersion = new JSpinner();
         buttonSubmit = new JButton();
         buttonDefault = new JButton();
         buttonOK = new JButton();
@@ -155,7 +175,7 @@ public class ConfigWindow {
                 {
                     contentPanel.setLayout(new FormLayout(
                         "3*(20dlu:grow, $lcgap), 20dlu:grow",
-                        "top:default, $lgap, top:48dlu, $lgap, default:grow, $lgap, default"));
+                        "top:default, $lgap, top:48dlu, $lgap, default:grow, 2*($lgap, default)"));
                     ((FormLayout)contentPanel.getLayout()).setColumnGroups(new int[][] {{1, 3}, {5, 7}});
 
                     //======== panel1 ========
@@ -225,7 +245,7 @@ public class ConfigWindow {
                         panel2.setBorder(new TitledBorder("Mouse Warping"));
                         panel2.setLayout(new FormLayout(
                             "80dlu:grow, $lcgap, 80dlu:grow",
-                            "2*(default, $lgap), default"));
+                            "4*(default, $lgap), default"));
 
                         //---- labelEnableMouseWarp ----
                         labelEnableMouseWarp.setText("Enable Mouse Warp");
@@ -248,6 +268,16 @@ public class ConfigWindow {
                         //---- buttonWarpConfig ----
                         buttonWarpConfig.setText("Configuration");
                         panel2.add(buttonWarpConfig, cc.xy(3, 5));
+
+                        //---- labelShadowWarpers ----
+                        labelShadowWarpers.setText("Shadow Warpers");
+                        panel2.add(labelShadowWarpers, cc.xywh(1, 7, 2, 1));
+                        panel2.add(checkBoxShadowWarpers, cc.xy(3, 7));
+
+                        //---- labelRecordTrajectory ----
+                        labelRecordTrajectory.setText("Record Trajectory");
+                        panel2.add(labelRecordTrajectory, cc.xywh(1, 9, 2, 1));
+                        panel2.add(checkBoxRecordTrajectory, cc.xy(3, 9));
                     }
                     contentPanel.add(panel2, cc.xywh(5, 1, 3, 1, CellConstraints.FILL, CellConstraints.TOP));
 
@@ -323,6 +353,69 @@ public class ConfigWindow {
                     }
                     contentPanel.add(panel4, cc.xywh(1, 5, 3, 1, CellConstraints.DEFAULT, CellConstraints.FILL));
 
+                    //======== panel5 ========
+                    {
+                        panel5.setBorder(new TitledBorder("Gaze Data"));
+                        panel5.setLayout(new FormLayout(
+                            "3*(20dlu:grow, $lcgap), 20dlu:grow",
+                            "2*(default, $lgap), default"));
+                        ((FormLayout)panel5.getLayout()).setColumnGroups(new int[][] {{1, 3}, {5, 7}});
+
+                        //---- labelValidityWindow ----
+                        labelValidityWindow.setText("Valid Events");
+                        panel5.add(labelValidityWindow, cc.xy(1, 1));
+
+                        //---- spinnerValidityWindow ----
+                        spinnerValidityWindow.setModel(new SpinnerNumberModel(1, 1, 999, 1));
+                        panel5.add(spinnerValidityWindow, cc.xy(3, 1));
+
+                        //---- labelValidityDuration ----
+                        labelValidityDuration.setText("Max. Event Age (ms)");
+                        panel5.add(labelValidityDuration, cc.xy(5, 1));
+
+                        //---- spinnerValidityDuration ----
+                        spinnerValidityDuration.setModel(new SpinnerNumberModel(0, 0, 9999, 10));
+                        panel5.add(spinnerValidityDuration, cc.xy(7, 1));
+
+                        //---- labelFixationDetection ----
+                        labelFixationDetection.setText("Fixation Detection");
+                        panel5.add(labelFixationDetection, cc.xy(1, 3));
+
+                        //---- comboBoxFixationDetection ----
+                        comboBoxFixationDetection.addActionListener(new ActionListener() {
+                            @Override
+                            public void actionPerformed(ActionEvent e) {
+                                comboBoxFixationDetectionActionPerformed(e);
+                            }
+                        });
+                        panel5.add(comboBoxFixationDetection, cc.xy(3, 3));
+
+                        //---- labelFixationDuration ----
+                        labelFixationDuration.setText("Min. Duration (ms)");
+                        panel5.add(labelFixationDuration, cc.xy(5, 3));
+
+                        //---- spinnerFixationDuration ----
+                        spinnerFixationDuration.setModel(new SpinnerNumberModel(0, 0, 9999, 10));
+                        panel5.add(spinnerFixationDuration, cc.xy(7, 3));
+
+                        //---- labelFixationVelocity ----
+                        labelFixationVelocity.setText("Max. Velocity (px/ms)");
+                        panel5.add(labelFixationVelocity, cc.xy(1, 5));
+
+                        //---- spinnerFixationVelocity ----
+                        spinnerFixationVelocity.setModel(new SpinnerNumberModel(1.0, 0.01, 99.0, 0.1));
+                        panel5.add(spinnerFixationVelocity, cc.xy(3, 5));
+
+                        //---- labelFixationDispersion ----
+                        labelFixationDispersion.setText("Max. Dispersion (px)");
+                        panel5.add(labelFixationDispersion, cc.xy(5, 5));
+
+                        //---- spinnerFixationDispersion ----
+                        spinnerFixationDispersion.setModel(new SpinnerNumberModel(1, 1, 999, 1));
+                        panel5.add(spinnerFixationDispersion, cc.xy(7, 5));
+                    }
+                    contentPanel.add(panel5, cc.xywh(1, 7, 7, 1));
+
                     //---- buttonSubmit ----
                     buttonSubmit.setText("Submit");
                     buttonSubmit.addActionListener(new ActionListener() {
@@ -331,7 +424,7 @@ public class ConfigWindow {
                             buttonSubmitActionPerformed(e);
                         }
                     });
-                    contentPanel.add(buttonSubmit, cc.xy(1, 7));
+                    contentPanel.add(buttonSubmit, cc.xy(1, 9));
 
                     //---- buttonDefault ----
                     buttonDefault.setText("Default");
@@ -341,7 +434,7 @@ public class ConfigWindow {
                             buttonDefaultActionPerformed(e);
                         }
                     });
-                    contentPanel.add(buttonDefault, cc.xy(3, 7));
+                    contentPanel.add(buttonDefault, cc.xy(3, 9));
 
                     //---- buttonOK ----
                     buttonOK.setText("OK");
@@ -351,7 +444,7 @@ public class ConfigWindow {
                             buttonOKActionPerformed(e);
                         }
                     });
-                    contentPanel.add(buttonOK, cc.xywh(5, 7, 1, 1, CellConstraints.DEFAULT, CellConstraints.FILL));
+                    contentPanel.add(buttonOK, cc.xywh(5, 9, 1, 1, CellConstraints.DEFAULT, CellConstraints.FILL));
 
                     //---- buttonCancel ----
                     buttonCancel.setText("Cancel");
@@ -361,12 +454,12 @@ public class ConfigWindow {
                             buttonCancelActionPerformed(e);
                         }
                     });
-                    contentPanel.add(buttonCancel, cc.xy(7, 7));
+                    contentPanel.add(buttonCancel, cc.xy(7, 9));
                 }
                 dialogPane.add(contentPanel);
             }
             mainFrameContentPane.add(dialogPane);
-            mainFrame.setSize(570, 370);
+            mainFrame.setSize(570, 525);
             mainFrame.setLocationRelativeTo(mainFrame.getOwner());
         }
         // JFormDesigner - End of component initialization  //GEN-END:initComponents
@@ -395,6 +488,10 @@ public class ConfigWindow {
     protected JLabel labelWarpMethod;
     protected JComboBox comboBoxWarpMethod;
     protected JButton buttonWarpConfig;
+    protected JLabel labelShadowWarpers;
+    protected JCheckBox checkBoxShadowWarpers;
+    protected JLabel labelRecordTrajectory;
+    protected JCheckBox checkBoxRecordTrajectory;
     private JPanel panel3;
     protected JLabel labelEvaluation;
     protected JCheckBox checkBoxEvaluation;
@@ -411,6 +508,19 @@ public class ConfigWindow {
     protected JLabel labelDetector;
     protected JComboBox comboBoxDetector;
     protected JButton buttonDetectorConfig;
+    private JPanel panel5;
+    protected JLabel labelValidityWindow;
+    protected JSpinner spinnerValidityWindow;
+    protected JLabel labelValidityDuration;
+    protected JSpinner spinnerValidityDuration;
+    protected JLabel labelFixationDetection;
+    protected JComboBox comboBoxFixationDetection;
+    protected JLabel labelFixationDuration;
+    protected JSpinner spinnerFixationDuration;
+    protected JLabel labelFixationVelocity;
+    protected JSpinner spinnerFixationVelocity;
+    protected JLabel labelFixationDispersion;
+    protected JSpinner spinnerFixationDispersion;
     protected JButton buttonSubmit;
     protected JButton buttonDefault;
     protected JButton buttonOK;
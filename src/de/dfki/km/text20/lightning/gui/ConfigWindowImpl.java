@@ -40,6 +40,7 @@ import de.dfki.km.text20.lightning.hotkey.HotkeyContainer;
 import de.dfki.km.text20.lightning.plugins.InternalPluginManager;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.worker.FixationDetector;
 import de.dfki.km.text20.lightning.worker.evaluationmode.StorageContainer;
 
 /**
@@ -96,6 +97,7 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         this.spinnerDimension.setValue(this.properties.getDimension());
         this.buttonSubmit.setEnabled(!this.main.isSubmitted());
         this.checkBoxRecalibration.setSelected(this.properties.isRecalibration());
+        this.manageGazeConfig();
 
         // initialize renderer of comboboxes
         this.renderer = initRenderer();
@@ -123,6 +125,7 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         this.mainFrame.addWindowListener(this);
         this.buttonClearRecalibration.addActionListener(this);
         this.buttonSelect.addActionListener(this);
+        this.comboBoxFixationDetection.addActionListener(this);
 
         // initialize checkbox
         this.checkBoxEvaluation.setSelected(!this.main.isNormalMode());
@@ -248,6 +251,11 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
             this.buttonSelectActionPerformed();
             return;
         }
+
+        if (event.getSource() == this.comboBoxFixationDetection) {
+            this.comboBoxFixationDetectionActionPerformed();
+            return;
+        }
     }
 
     /**
@@ -260,8 +268,16 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         // change variables in the properties and in the method manager
         this.properties.setDimension(Integer.parseInt(this.spinnerDimension.getValue().toString()));
         this.properties.setUseWarp(this.checkBoxUseWarp.isSelected());
+        this.properties.setShadowWarpers(this.checkBoxShadowWarpers.isSelected());
+        this.properties.setRecordTrajectory(this.checkBoxRecordTrajectory.isSelected());
         this.properties.setSoundActivated(this.checkBoxSound.isSelected());
         this.properties.setRecalibration(this.checkBoxRecalibration.isSelected());
+        this.properties.setValidityWindow(Integer.parseInt(this.spinnerValidityWindow.getValue().toString()));
+        this.properties.setValidityDuration(Integer.parseInt(this.spinnerValidityDuration.getValue().toString()));
+        this.properties.setFixationDetection(this.comboBoxFixationDetection.getSelectedIndex());
+        this.properties.setFixationVelocity(Double.parseDouble(this.spinnerFixationVelocity.getValue().toString()));
+        this.properties.setFixationDispersion(Integer.parseInt(this.spinnerFixationDispersion.getValue().toString()));
+        this.properties.setFixationDuration(Integer.parseInt(this.spinnerFixationDuration.getValue().toString()));
         Hotkey.getInstance().setHotkey(1, ((HotkeyContainer) this.comboBoxActionHotkey.getSelectedItem()), true);
         Hotkey.getInstance().setHotkey(2, ((HotkeyContainer) this.comboBoxStatusHotkey.getSelectedItem()), true);
 
@@ -366,6 +382,7 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         // take values of global properties and preselect them
         this.spinnerDimension.setValue(this.properties.getDimension());
         this.checkBoxSound.setSelected(this.properties.isSoundActivated());
+        this.manageGazeConfig();
 
         // make hotkey notifying the change
         Hotkey.getInstance().resetTmpKeys();
@@ -409,12 +426,29 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         this.buttonSelect.setEnabled(this.checkBoxEvaluation.isSelected());
         this.textFieldOutputPath.setEnabled(this.checkBoxEvaluation.isSelected());
         this.labelEnableMouseWarp.setEnabled(!this.checkBoxEvaluation.isSelected());
+        this.labelShadowWarpers.setEnabled(!this.checkBoxEvaluation.isSelected());
+        this.checkBoxShadowWarpers.setEnabled(!this.checkBoxEvaluation.isSelected());
+        this.labelRecordTrajectory.setEnabled(!this.checkBoxEvaluation.isSelected());
+        this.checkBoxRecordTrajectory.setEnabled(!this.checkBoxEvaluation.isSelected());
         this.checkBoxUseWarpActionPerformed();
         if (!this.checkBoxEvaluation.isSelected() && this.checkBoxUseWarp.isSelected()) this.enableWarpConfig(true);
         else
             this.enableWarpConfig(false);
     }
 
+    /**
+     * enables the thresholds which are used by the selected fixation detection
+     */
+    private void comboBoxFixationDetectionActionPerformed() {
+        int detection = this.comboBoxFixationDetection.getSelectedIndex();
+        this.labelFixationDuration.setEnabled(detection != FixationDetector.LIBRARY);
+        this.spinnerFixationDuration.setEnabled(detection != FixationDetector.LIBRARY);
+        this.labelFixationVelocity.setEnabled(detection == FixationDetector.VELOCITY);
+        this.spinnerFixationVelocity.setEnabled(detection == FixationDetector.VELOCITY);
+        this.labelFixationDispersion.setEnabled(detection == FixationDetector.DISPERSION);
+        this.spinnerFixationDispersion.setEnabled(detection == FixationDetector.DISPERSION);
+    }
+
     /**
      * Fired if the Select button is clicked. Shows the file chooser.
      */
@@ -544,6 +578,8 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
     private void manageWarpConfig() {
         // preselect values
         this.checkBoxUseWarp.setSelected(this.properties.isUseWarp());
+        this.checkBoxShadowWarpers.setSelected(this.properties.isShadowWarpers());
+        this.checkBoxRecordTrajectory.setSelected(this.properties.isRecordTrajectory());
 
         // remove values
         this.autoSelect = true;
@@ -568,6 +604,27 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         this.checkBoxUseWarpActionPerformed();
     }
 
+    /**
+     * preselects the values of the gaze data settings, they are read by the fixation watcher at the start of this tool
+     */
+    private void manageGazeConfig() {
+        this.spinnerValidityWindow.setValue(this.properties.getValidityWindow());
+        this.spinnerValidityDuration.setValue(this.properties.getValidityDuration());
+        this.spinnerFixationVelocity.setValue(this.properties.getFixationVelocity());
+        this.spinnerFixationDispersion.setValue(this.properties.getFixationDispersion());
+        this.spinnerFixationDuration.setValue(this.properties.getFixationDuration());
+
+        // the index of an option is the value of the property
+        this.autoSelect = true;
+        this.comboBoxFixationDetection.removeAllItems();
+        this.comboBoxFixationDetection.addItem("Tracking Library");
+        this.comboBoxFixationDetection.addItem("Velocity (I-VT)");
+        this.comboBoxFixationDetection.addItem("Dispersion (I-DT)");
+        this.comboBoxFixationDetection.setSelectedIndex(Math.min(Math.max(this.properties.getFixationDetection(), 0), 2));
+        this.autoSelect = false;
+        this.comboBoxFixationDetectionActionPerformed();
+    }
+
     /**
      * if mouse warp is used the configuration is enabled, otherwise not
      */
@@ -591,6 +648,8 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         String labelDetectorTT = "<HTML><body>Method to check the radius around the fixation point.</body></HTML>";
         String labelEnableMouseWarpTT = "<HTML><body>Enables/Disables the mouse warp permanently.</body></HTML>";
         String labelWarpMethodTT = "<HTML><body>Method which is used to warp the mouse.</body></HTML>";
+        String labelRecordTrajectoryTT = "<HTML><body>Records the mouse movements and fixations<br>into the directory 'trajectories', so the warpers<br>can be replayed and tuned offline.</body></HTML>";
+        String labelShadowWarpersTT = "<HTML><body>Runs all installed warpers in the background<br>and counts their warps without moving the mouse.<br>The counters are written to shadow.log.</body></HTML>";
         String labelEvaluationTT = "<HTML><body>This activates the evaluation mode.<br>This mode is used to collect data<br>which can be evaluated later.</body></HTML>";
         String labelSoundTT = "<HTML><body>Enables/Disables the sound notifications.</body></HTML>";
         String labelUserTT = "<HTML><body>Your name to identify the data.</body></HTML>";
@@ -600,6 +659,12 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         String labelRecalibrationTT = "<HTML><body>Every cursor warp and evaluation<br>step recalibrates the Trackingserver<br>if this checkboxs is selected.<br>This feature will only work with<br>Trackingserver 1.4 or higher.</HTML></body>";
         String buttonClearRecalibrationTT = "<HTML><body>This button clears all the recalibrations<br>and sets the tracking device back<br>to defult calibration.</HTML></body>";
         String buttonDefaultTT = "<HTML><body>Restores default values of some variables.</body></HTML>";
+        String labelValidityWindowTT = "<HTML><body>Number of the last eyetracking events which must be valid<br>to accept a fixation.<br>Changes take effect after a restart of this tool.</body></HTML>";
+        String labelFixationDetectionTT = "<HTML><body>Source of the fixations. The tracking library reports them<br>after they ended, the built-in detections find them in the<br>raw data as soon as they lasted the minimum duration.<br>Changes take effect after a restart of this tool.</body></HTML>";
+        String labelFixationDurationTT = "<HTML><body>Minimum duration of a fixation of the built-in detections.</body></HTML>";
+        String labelFixationVelocityTT = "<HTML><body>Maximum gaze velocity in a fixation of the velocity detection.</body></HTML>";
+        String labelFixationDispersionTT = "<HTML><body>Maximum width plus height of a fixation of the dispersion detection.</body></HTML>";
+        String labelValidityDurationTT = "<HTML><body>Events which are older than this are not checked,<br>0 checks all of the valid events above.<br>Changes take effect after a restart of this tool.</body></HTML>";
 
         // set tool tips
         this.labelStatusHotkey.setToolTipText(labelStatusHotkeyTT);
@@ -608,6 +673,8 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         this.labelDetector.setToolTipText(labelDetectorTT);
         this.labelEnableMouseWarp.setToolTipText(labelEnableMouseWarpTT);
         this.labelWarpMethod.setToolTipText(labelWarpMethodTT);
+        this.labelShadowWarpers.setToolTipText(labelShadowWarpersTT);
+        this.labelRecordTrajectory.setToolTipText(labelRecordTrajectoryTT);
         this.labelEvaluation.setToolTipText(labelEvaluationTT);
         this.labelSound.setToolTipText(labelSoundTT);
         this.labelName.setToolTipText(labelUserTT);
@@ -617,6 +684,12 @@ public class ConfigWindowImpl extends ConfigWindow implements ActionListener,
         this.labelRecalibration.setToolTipText(labelRecalibrationTT);
         this.buttonClearRecalibration.setToolTipText(buttonClearRecalibrationTT);
         this.buttonDefault.setToolTipText(buttonDefaultTT);
+        this.labelValidityWindow.setToolTipText(labelValidityWindowTT);
+        this.labelValidityDuration.setToolTipText(labelValidityDurationTT);
+        this.labelFixationDetection.setToolTipText(labelFixationDetectionTT);
+        this.labelFixationDuration.setToolTipText(labelFixationDurationTT);
+        this.labelFixationVelocity.setToolTipText(labelFixationVelocityTT);
+        this.labelFixationDispersion.setToolTipText(labelFixationDispersionTT);
 
     }
 
@@ -25,8 +25,10 @@ import java.awt.MenuItem;
 import java.awt.PopupMenu;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 
 import de.dfki.km.text20.lightning.MainClass;
+import de.dfki.km.text20.lightning.diagnosis.ClickTimings;
 
 /**
  * A singleton of the menu which is shown by a click on the tray icon.
@@ -68,6 +70,20 @@ public class TrayMenu {
             });
             menu.add(configMenu);
 
+            // adds dump of the click timings to the menu
+            final MenuItem timings = new MenuItem("Click Timings");
+            timings.addActionListener(new ActionListener() {
+
+                // prints the current timings and appends them to the timings file
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    System.out.println(ClickTimings.getInstance().report());
+                    File file = ClickTimings.getInstance().write();
+                    MainClass.getInstance().showTrayMessage("Click timings were written to " + file.getAbsolutePath());
+                }
+            });
+            menu.add(timings);
+
             // adds change state button to the menu
             /*final MenuItem changeState = new MenuItem("Disable");
             changeState.addActionListener(new ActionListener() {
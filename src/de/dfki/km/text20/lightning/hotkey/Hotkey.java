@@ -22,6 +22,7 @@
 package de.dfki.km.text20.lightning.hotkey;
 
 import java.awt.MouseInfo;
+import java.awt.Point;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 
@@ -31,6 +32,7 @@ import com.melloware.jintellitype.JIntellitypeConstants;
 
 import de.dfki.km.text20.lightning.MainClass;
 import de.dfki.km.text20.lightning.Properties;
+import de.dfki.km.text20.lightning.worker.clickto.ClickPipeline;
 import de.dfki.km.text20.lightning.worker.clickto.FixationEvaluator;
 import de.dfki.km.text20.lightning.worker.evaluationmode.PrecisionEvaluator;
 
@@ -75,7 +77,7 @@ public class Hotkey implements HotkeyListener {
 
     /**
      * indicates status of evaluation step true = catch fixation false = catch
-     * mouse position
+     * mouse position, only used on the click lane
      */
     private boolean evaluationStatus;
 
@@ -160,80 +162,95 @@ public class Hotkey implements HotkeyListener {
 
             // check if trackingdevice provides correct data and if the
             if (!this.main.isTrackingValid()) {
-                this.main.showTrayMessage("Eyes not found!");
-                this.main.playError();
+                this.main.getPipeline().warn("Eyes not found!");
                 return;
             }
 
             // increase use count
-            this.main.getReminder().addUse();
+            this.main.getPipeline().countUse();
 
             // decide which mode
             if (this.main.isNormalMode()) {
-                // if the hotkey is typed, the stored fixation will be evaluated
-                if (this.fixationEvaluator.evaluateLocation()) this.main.playDing();
+                // if the hotkey is typed, the stored fixation will be evaluated by the pipeline, 
+                // presses during a running click are coalesced
+                this.main.getPipeline().click();
                 break;
             }
 
-            if (this.evaluationStatus) {
+            // the evaluation step runs on the click lane as well, only the mouse position is taken at the press
+            final Point mousePosition = MouseInfo.getPointerInfo().getLocation();
+            this.main.getPipeline().click(new Runnable() {
 
-                // store last fixation point
-                if (this.precisionEvaluator.storeFixation()) {
-                    this.main.showTrayMessage("Evaluation: fixation position recognized, now place the mouse to the point you look at and press " + this.getCurrentHotkey(1, true) + " again...");
-                    this.evaluationStatus = !(this.evaluationStatus);
-                    break;
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public void run() {
+                    evaluate(mousePosition);
                 }
+            });
+            break;
+        // status hotkey
+        case 2:
+            // change status
+            this.main.toggleStatus();
+            break;
+        default:
+            return;
+        }
+    }
 
-                // indicate error
-                this.main.playError();
-                this.main.showTrayMessage("Evaluation: --WARNING-- failure in recognizing fixation position, please try again...");
-                break;
-            }
+    /**
+     * Executes one evaluation step on the click lane. Messages and sounds are deferred to the
+     * side effect lane.
+     * 
+     * @param mousePosition position of the mouse when the hotkey was pressed
+     */
+    private void evaluate(Point mousePosition) {
+        ClickPipeline pipeline = this.main.getPipeline();
 
-            if (!this.evaluationStatus) {
-                // set mouse position which is associated with the last stored fixation and react on its return value
-                switch (this.precisionEvaluator.setMousePosition(MouseInfo.getPointerInfo().getLocation())) {
-                case OK:
-                    // indicate success
-                    this.main.playDing();
-                    this.main.showTrayMessage("Evaluation: mouse position recognized, now look at the next point and press " + this.getCurrentHotkey(1, true) + " again...\r\n\r\n" + this.precisionEvaluator.getCount() + " datatsets already stored.");
+        if (this.evaluationStatus) {
+
+            // store last fixation point
+            if (this.precisionEvaluator.storeFixation()) {
+                pipeline.inform("Evaluation: fixation position recognized, now place the mouse to the point you look at and press " + this.getCurrentHotkey(1, true) + " again...");
+                this.evaluationStatus = !(this.evaluationStatus);
+                return;
+            }
 
-                    // toggle status
-                    this.evaluationStatus = !(this.evaluationStatus);
+            // indicate error
+            pipeline.warn("Evaluation: --WARNING-- failure in recognizing fixation position, please try again...");
+            return;
+        }
 
-                    break;
+        // set mouse position which is associated with the last stored fixation and react on its return value
+        switch (this.precisionEvaluator.setMousePosition(mousePosition)) {
+        case OK:
+            // indicate success
+            pipeline.confirm("Evaluation: mouse position recognized, now look at the next point and press " + this.getCurrentHotkey(1, true) + " again...\r\n\r\n" + this.precisionEvaluator.getCount() + " datatsets already stored.");
 
-                case ALREADY_PROCESSING:
-                    // do nothing
-                    break;
+            // toggle status
+            this.evaluationStatus = !(this.evaluationStatus);
 
-                case NO_FIXATION:
-                    // theoretical never reached
-                    break;
+            break;
 
-                case OUT_OFF_DIMENSION:
-                    // indicate failure
-                    this.main.playError();
-                    this.main.showTrayMessage("Evaluation: --WARNING-- mouse position was out of dimension! now look at the next point and press " + this.getCurrentHotkey(1, true) + " again...\r\n\r\n" + this.precisionEvaluator.getCount() + " datatsets already stored.");
+        case ALREADY_PROCESSING:
+            // do nothing
+            break;
 
-                    // toggle status
-                    this.evaluationStatus = !(this.evaluationStatus);
+        case NO_FIXATION:
+            // theoretical never reached
+            break;
 
-                    break;
+        case OUT_OFF_DIMENSION:
+            // indicate failure
+            pipeline.warn("Evaluation: --WARNING-- mouse position was out of dimension! now look at the next point and press " + this.getCurrentHotkey(1, true) + " again...\r\n\r\n" + this.precisionEvaluator.getCount() + " datatsets already stored.");
 
-                default:
-                    break;
-                }
-            }
+            // toggle status
+            this.evaluationStatus = !(this.evaluationStatus);
 
             break;
-        // status hotkey
-        case 2:
-            // change status
-            this.main.toggleStatus();
-            break;
+
         default:
-            return;
+            break;
         }
     }
 
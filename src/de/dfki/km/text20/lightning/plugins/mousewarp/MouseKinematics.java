@@ -0,0 +1,287 @@
+/*
+ * MouseKinematics.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+/**
+ * Estimates velocity and acceleration of the mouse from its last positions. A quadratic is fitted 
+ * to x(t) and y(t) by least squares with the real sample times, so single late or noisy samples 
+ * have little influence. The sums of the fit are updated when a position enters or leaves the 
+ * window and rebuilt once per window length to keep rounding errors small, so each sample costs 
+ * constant time. Directions are compared by dot products against the cosine of the allowed angle, 
+ * no trigonometric function is needed per sample.
+ */
+public class MouseKinematics {
+
+    /** relative size of a determinant which is treated as 0 */
+    private static final double EPSILON = 1e-9;
+
+    /** positions in the window, the times are in nanoseconds */
+    private final MouseTrajectory trajectory;
+
+    /** time the sums are relative to in nanoseconds */
+    private long origin;
+
+    /** sums of the powers of the relative times in milliseconds */
+    private double st, st2, st3, st4;
+
+    /** sums of x times the powers of the relative times */
+    private double sx, sxt, sxt2;
+
+    /** sums of y times the powers of the relative times */
+    private double sy, syt, syt2;
+
+    /** number of added positions since the sums were rebuilt */
+    private int sinceRebuild;
+
+    /** indicates if the estimation has to be solved again */
+    private boolean dirty;
+
+    /** velocity at the newest position in pixel per millisecond */
+    private double vx, vy;
+
+    /** acceleration in pixel per square millisecond */
+    private double ax, ay;
+
+    /** linear and quadratic coefficient of the fit of x, reused for every fit */
+    private final double[] fx = new double[2];
+
+    /** linear and quadratic coefficient of the fit of y, reused for every fit */
+    private final double[] fy = new double[2];
+
+    /**
+     * @param window number of positions which are used for the estimation
+     */
+    public MouseKinematics(int window) {
+        this.trajectory = new MouseTrajectory(window);
+        this.rebuild();
+    }
+
+    /**
+     * adds a position, the oldest one leaves the window if it is full
+     * 
+     * @param x
+     * @param y
+     * @param nanos time of the position, see System.nanoTime()
+     */
+    public void add(int x, int y, long nanos) {
+        // the sums of an empty window are started relative to the first position, absolute times would cost their precision
+        if (this.trajectory.size() == 0) {
+            this.trajectory.add(x, y, nanos);
+            this.rebuild();
+            return;
+        }
+        if (this.trajectory.size() == this.trajectory.getCapacity()) {
+            int oldest = this.trajectory.getOldest();
+            this.update(this.trajectory.getX(oldest), this.trajectory.getY(oldest), this.trajectory.getTime(oldest), -1);
+        }
+        this.trajectory.add(x, y, nanos);
+        this.update(x, y, nanos, 1);
+        this.dirty = true;
+
+        if (++this.sinceRebuild >= this.trajectory.getCapacity()) this.rebuild();
+    }
+
+    /**
+     * replaces the window by the given position, the mouse is treated as resting there
+     * 
+     * @param x
+     * @param y
+     * @param nanos
+     */
+    public void fill(int x, int y, long nanos) {
+        this.trajectory.fill(x, y, nanos);
+        this.rebuild();
+    }
+
+    /**
+     * removes the oldest position
+     */
+    public void removeOldest() {
+        if (this.trajectory.size() == 0) return;
+        int oldest = this.trajectory.getOldest();
+        this.update(this.trajectory.getX(oldest), this.trajectory.getY(oldest), this.trajectory.getTime(oldest), -1);
+        this.trajectory.removeOldest();
+        this.dirty = true;
+    }
+
+    /**
+     * removes all positions
+     */
+    public void clear() {
+        this.trajectory.clear();
+        this.rebuild();
+    }
+
+    /**
+     * adds or removes the contribution of one position to the sums
+     */
+    private void update(int x, int y, long nanos, int sign) {
+        double t = (nanos - this.origin) / 1000000.0;
+        double t2 = t * t;
+        this.st += sign * t;
+        this.st2 += sign * t2;
+        this.st3 += sign * t2 * t;
+        this.st4 += sign * t2 * t2;
+        this.sx += sign * x;
+        this.sxt += sign * x * t;
+        this.sxt2 += sign * x * t2;
+        this.sy += sign * y;
+        this.syt += sign * y * t;
+        this.syt2 += sign * y * t2;
+    }
+
+    /**
+     * calculates the sums again, relative to the newest position
+     */
+    private void rebuild() {
+        this.origin = this.trajectory.size() == 0 ? 0 : this.trajectory.getTime(0);
+        this.st = this.st2 = this.st3 = this.st4 = 0;
+        this.sx = this.sxt = this.sxt2 = 0;
+        this.sy = this.syt = this.syt2 = 0;
+        for (int age = 0; age < this.trajectory.size(); age++)
+            this.update(this.trajectory.getX(age), this.trajectory.getY(age), this.trajectory.getTime(age), 1);
+        this.sinceRebuild = 0;
+        this.dirty = true;
+    }
+
+    /**
+     * solves the normal equations of the quadratic fit, falls back to a line if there are too few 
+     * different times and to rest if there is only one
+     */
+    private void solve() {
+        if (!this.dirty) return;
+        this.dirty = false;
+        this.vx = this.vy = this.ax = this.ay = 0;
+
+        double n = this.trajectory.size();
+        if (n < 2) return;
+        double tn = (this.trajectory.getTime(0) - this.origin) / 1000000.0;
+
+        // quadratic: determinant of the symmetric 3x3 normal matrix
+        double m00 = this.st2 * this.st4 - this.st3 * this.st3;
+        double m01 = this.st * this.st4 - this.st3 * this.st2;
+        double m02 = this.st * this.st3 - this.st2 * this.st2;
+        double det = n * m00 - this.st * m01 + this.st2 * m02;
+        if ((n >= 3) && (Math.abs(det) > EPSILON * n * this.st2 * this.st4)) {
+            this.solve3(det, n, this.sx, this.sxt, this.sxt2, this.fx);
+            this.solve3(det, n, this.sy, this.syt, this.syt2, this.fy);
+            this.vx = this.fx[0] + 2 * this.fx[1] * tn;
+            this.vy = this.fy[0] + 2 * this.fy[1] * tn;
+            this.ax = 2 * this.fx[1];
+            this.ay = 2 * this.fy[1];
+            return;
+        }
+
+        // line
+        double det2 = n * this.st2 - this.st * this.st;
+        if (Math.abs(det2) <= EPSILON * n * this.st2) return;
+        this.vx = (n * this.sxt - this.st * this.sx) / det2;
+        this.vy = (n * this.syt - this.st * this.sy) / det2;
+    }
+
+    /**
+     * Cramer's rule for the linear and quadratic coefficient of the fit.
+     * 
+     * @param result receives the linear and quadratic coefficient
+     */
+    private void solve3(double det, double n, double s, double st1, double st2Value, double[] result) {
+        // replace the second column by the right side
+        double b = n * (st1 * this.st4 - this.st3 * st2Value) - s * (this.st * this.st4 - this.st3 * this.st2) + this.st2 * (this.st * st2Value - st1 * this.st2);
+
+        // replace the third column by the right side
+        double c = n * (this.st2 * st2Value - st1 * this.st3) - this.st * (this.st * st2Value - st1 * this.st2) + s * (this.st * this.st3 - this.st2 * this.st2);
+        result[0] = b / det;
+        result[1] = c / det;
+    }
+
+    /**
+     * @return positions in the window, the times are in nanoseconds
+     */
+    public MouseTrajectory getTrajectory() {
+        return this.trajectory;
+    }
+
+    /**
+     * @return velocity in x direction at the newest position in pixel per millisecond
+     */
+    public double getVelocityX() {
+        this.solve();
+        return this.vx;
+    }
+
+    /**
+     * @return velocity in y direction at the newest position in pixel per millisecond
+     */
+    public double getVelocityY() {
+        this.solve();
+        return this.vy;
+    }
+
+    /**
+     * @return speed at the newest position in pixel per millisecond
+     */
+    public double getSpeed() {
+        this.solve();
+        return Math.sqrt(this.vx * this.vx + this.vy * this.vy);
+    }
+
+    /**
+     * @return acceleration along the movement in pixel per square millisecond, negative if the mouse slows down
+     */
+    public double getTangentialAcceleration() {
+        double speed = this.getSpeed();
+        if (speed == 0) return 0;
+        return (this.ax * this.vx + this.ay * this.vy) / speed;
+    }
+
+    /**
+     * Checks if the target lies within a cone around the current movement direction, starting at the 
+     * given point.
+     * 
+     * @param fromX
+     * @param fromY
+     * @param toX
+     * @param toY
+     * @param cosine cosine of the half opening angle, see coneCosine
+     * @return true if the mouse moves towards the target, false if it rests or the target is reached
+     */
+    public boolean isInCone(int fromX, int fromY, int toX, int toY, double cosine) {
+        this.solve();
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double dot = dx * this.vx + dy * this.vy;
+        double norms = (dx * dx + dy * dy) * (this.vx * this.vx + this.vy * this.vy);
+        if (norms == 0) return false;
+
+        // compare dot / |d||v| with the cosine without a square root
+        double limit = cosine * cosine * norms;
+        if (cosine >= 0) return (dot >= 0) && (dot * dot >= limit);
+        return (dot >= 0) || (dot * dot <= limit);
+    }
+
+    /**
+     * @param degrees half opening angle of a cone
+     * @return cosine which can be given to isInCone, calculate it once per threshold
+     */
+    public static double coneCosine(double degrees) {
+        return Math.cos(Math.toRadians(degrees));
+    }
+}
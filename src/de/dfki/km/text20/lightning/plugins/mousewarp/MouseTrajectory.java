@@ -0,0 +1,184 @@
+/*
+ * MouseTrajectory.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+import java.awt.Point;
+
+/**
+ * Fixed-capacity history of mouse positions for the warpers. Coordinates and times are stored 
+ * in parallel arrays which are used as ring, so adding a position needs no allocation and the 
+ * oldest one is overwritten when the history is full. Positions are accessed by their age, 
+ * 0 is the newest one.
+ */
+public class MouseTrajectory {
+
+    /** x coordinates */
+    private final int[] x;
+
+    /** y coordinates */
+    private final int[] y;
+
+    /** times of the positions */
+    private final long[] time;
+
+    /** index of the newest position */
+    private int newest;
+
+    /** number of stored positions */
+    private int size;
+
+    /**
+     * @param capacity maximum number of positions
+     */
+    public MouseTrajectory(int capacity) {
+        this.x = new int[Math.max(1, capacity)];
+        this.y = new int[this.x.length];
+        this.time = new long[this.x.length];
+        this.clear();
+    }
+
+    /**
+     * adds a position, the oldest one is overwritten if the history is full
+     * 
+     * @param xValue
+     * @param yValue
+     * @param timeValue time of the position, the unit is up to the warper
+     */
+    public void add(int xValue, int yValue, long timeValue) {
+        this.newest = (this.newest + 1) % this.x.length;
+        this.x[this.newest] = xValue;
+        this.y[this.newest] = yValue;
+        this.time[this.newest] = timeValue;
+        if (this.size < this.x.length) this.size++;
+    }
+
+    /**
+     * replaces the history by the given position, repeated until the history is full
+     * 
+     * @param xValue
+     * @param yValue
+     * @param timeValue
+     */
+    public void fill(int xValue, int yValue, long timeValue) {
+        this.clear();
+        for (int i = 0; i < this.x.length; i++)
+            this.add(xValue, yValue, timeValue);
+    }
+
+    /**
+     * removes all positions
+     */
+    public void clear() {
+        this.newest = this.x.length - 1;
+        this.size = 0;
+    }
+
+    /**
+     * removes the oldest position
+     */
+    public void removeOldest() {
+        if (this.size > 0) this.size--;
+    }
+
+    /**
+     * @return number of stored positions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return maximum number of positions
+     */
+    public int getCapacity() {
+        return this.x.length;
+    }
+
+    /**
+     * @return age of the oldest position
+     */
+    public int getOldest() {
+        return this.size - 1;
+    }
+
+    /**
+     * @return array index of the position with the given age
+     */
+    private int index(int age) {
+        if ((age < 0) || (age >= this.size)) throw new IndexOutOfBoundsException("age " + age + ", size " + this.size);
+        int i = this.newest - age;
+        return i < 0 ? i + this.x.length : i;
+    }
+
+    /**
+     * @param age 0 is the newest position
+     * @return x coordinate
+     */
+    public int getX(int age) {
+        return this.x[this.index(age)];
+    }
+
+    /**
+     * @param age 0 is the newest position
+     * @return y coordinate
+     */
+    public int getY(int age) {
+        return this.y[this.index(age)];
+    }
+
+    /**
+     * @param age 0 is the newest position
+     * @return time of the position
+     */
+    public long getTime(int age) {
+        return this.time[this.index(age)];
+    }
+
+    /**
+     * @param age 0 is the newest position
+     * @return the position as new point
+     */
+    public Point getPoint(int age) {
+        int i = this.index(age);
+        return new Point(this.x[i], this.y[i]);
+    }
+
+    /**
+     * @param first age of the first position
+     * @param second age of the second position
+     * @return distance between the two positions
+     */
+    public double distance(int first, int second) {
+        int i = this.index(first);
+        int j = this.index(second);
+        return Point.distance(this.x[i], this.y[i], this.x[j], this.y[j]);
+    }
+
+    /**
+     * @param age of the position
+     * @param point
+     * @return distance between the position and the given point
+     */
+    public double distance(int age, Point point) {
+        int i = this.index(age);
+        return Point.distance(this.x[i], this.y[i], point.x, point.y);
+    }
+}
@@ -35,7 +35,7 @@ import de.dfki.km.text20.lightning.plugins.CommonPluginInterface;
 public interface MouseWarper extends Plugin, CommonPluginInterface {
     
     /**
-     * sets current fixation point
+     * sets current fixation point, called on the same thread as addMousePosition
      * 
      * @param fixation
      */
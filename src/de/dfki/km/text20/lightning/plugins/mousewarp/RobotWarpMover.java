@@ -0,0 +1,101 @@
+/*
+ * RobotWarpMover.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+import java.awt.Dimension;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Robot;
+import java.awt.Toolkit;
+
+import de.dfki.km.text20.lightning.diagnosis.EventLog;
+
+/**
+ * Default WarpMover, moves the cursor by a Robot and writes the warp to the event log. The robot 
+ * is created at the first warp, so warpers can also be created without a display.
+ */
+public class RobotWarpMover implements WarpMover {
+
+    /** necessary to move the mouse, null until the first warp */
+    private Robot robot;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#move(java.lang.String,
+     * java.awt.Point, int, int, double)
+     */
+    @Override
+    public void move(String method, Point target, int distance, int radius, double speed) {
+        if (this.robot == null) try {
+            this.robot = new Robot();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        this.robot.mouseMove(target.x, target.y);
+        EventLog.getInstance().warp(method, target, distance, radius, speed);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#isShadow()
+     */
+    @Override
+    public boolean isShadow() {
+        return false;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#nanoTime()
+     */
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#getMouseLocation()
+     */
+    @Override
+    public Point getMouseLocation() {
+        // the pointer info is null if no mouse is available
+        PointerInfo pointer = MouseInfo.getPointerInfo();
+        if (pointer == null) return new Point();
+        return pointer.getLocation();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#getScreenSize()
+     */
+    @Override
+    public Dimension getScreenSize() {
+        return Toolkit.getDefaultToolkit().getScreenSize();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * TunableWarper.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+/**
+ * Optional interface for mouse warpers whose thresholds can be tuned offline by replaying recorded 
+ * trajectories. The parameters are given as doubles in a fixed order, integer parameters are 
+ * rounded. Parameters which are set before start replace the properties of this instance only, 
+ * so several instances can be tuned in parallel.
+ */
+public interface TunableWarper extends ShadowableWarper {
+
+    /**
+     * @return names of the parameters
+     */
+    public String[] getParameterNames();
+
+    /**
+     * @return values of the parameters in the properties
+     */
+    public double[] getParameters();
+
+    /**
+     * replaces the properties of this instance, has to be called before start
+     * 
+     * @param values one for each parameter, null to use the properties
+     */
+    public void setParameters(double[] values);
+
+    /**
+     * writes the given values into the properties file
+     * 
+     * @param values one for each parameter
+     */
+    public void storeParameters(double[] values);
+}
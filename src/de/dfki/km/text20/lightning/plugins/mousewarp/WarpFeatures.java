@@ -0,0 +1,143 @@
+/*
+ * WarpFeatures.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+import java.awt.Point;
+
+/**
+ * Features of the current mouse sample which are shared by the rules of a WarpPipeline. Each feature 
+ * is calculated at the first request after update and then reused by all following rules.
+ */
+public class WarpFeatures {
+
+    /** velocity estimation over the stored positions */
+    private final MouseKinematics kinematics;
+
+    /** stored positions, the newest one is the current position */
+    private final MouseTrajectory trajectory;
+
+    /** current fixation */
+    private Point fixation;
+
+    /** distance from the current position to the fixation, NaN if not calculated */
+    private double distanceToFixation;
+
+    /** distance from the oldest position to the fixation, NaN if not calculated */
+    private double startDistanceToFixation;
+
+    /** distance from the oldest to the current position, NaN if not calculated */
+    private double travel;
+
+    /** speed in pixel per millisecond, NaN if not calculated */
+    private double speed;
+
+    /** acceleration along the movement in pixel per square millisecond, NaN if not calculated */
+    private double acceleration;
+
+    /**
+     * @param kinematics estimation the features are taken from
+     */
+    public WarpFeatures(MouseKinematics kinematics) {
+        this.kinematics = kinematics;
+        this.trajectory = kinematics.getTrajectory();
+        this.update(null);
+    }
+
+    /**
+     * discards all calculated features, has to be called after each new position or fixation
+     * 
+     * @param fixation current fixation, must not be null while the rules are evaluated
+     */
+    public void update(Point fixation) {
+        this.fixation = fixation;
+        this.distanceToFixation = Double.NaN;
+        this.startDistanceToFixation = Double.NaN;
+        this.travel = Double.NaN;
+        this.speed = Double.NaN;
+        this.acceleration = Double.NaN;
+    }
+
+    /**
+     * @return the fixation
+     */
+    public Point getFixation() {
+        return this.fixation;
+    }
+
+    /**
+     * @return the kinematics
+     */
+    public MouseKinematics getKinematics() {
+        return this.kinematics;
+    }
+
+    /**
+     * @return distance from the current position to the fixation
+     */
+    public double getDistanceToFixation() {
+        if (Double.isNaN(this.distanceToFixation))
+            this.distanceToFixation = this.trajectory.distance(0, this.fixation);
+        return this.distanceToFixation;
+    }
+
+    /**
+     * @return distance from the oldest position to the fixation
+     */
+    public double getStartDistanceToFixation() {
+        if (Double.isNaN(this.startDistanceToFixation))
+            this.startDistanceToFixation = this.trajectory.distance(this.trajectory.getOldest(), this.fixation);
+        return this.startDistanceToFixation;
+    }
+
+    /**
+     * @return distance from the oldest to the current position
+     */
+    public double getTravel() {
+        if (Double.isNaN(this.travel))
+            this.travel = this.trajectory.distance(this.trajectory.getOldest(), 0);
+        return this.travel;
+    }
+
+    /**
+     * @return speed in pixel per millisecond
+     */
+    public double getSpeed() {
+        if (Double.isNaN(this.speed)) this.speed = this.kinematics.getSpeed();
+        return this.speed;
+    }
+
+    /**
+     * @return acceleration along the movement in pixel per square millisecond
+     */
+    public double getTangentialAcceleration() {
+        if (Double.isNaN(this.acceleration))
+            this.acceleration = this.kinematics.getTangentialAcceleration();
+        return this.acceleration;
+    }
+
+    /**
+     * @param cosine cosine of the half opening angle, see MouseKinematics.coneCosine
+     * @return true if the mouse moves from the current position towards the fixation
+     */
+    public boolean isHeadingToFixation(double cosine) {
+        return this.kinematics.isInCone(this.trajectory.getX(0), this.trajectory.getY(0), this.fixation.x, this.fixation.y, cosine);
+    }
+}
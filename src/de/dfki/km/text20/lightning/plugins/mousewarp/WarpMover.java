@@ -0,0 +1,64 @@
+/*
+ * WarpMover.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+import java.awt.Dimension;
+import java.awt.Point;
+
+/**
+ * Connection of a MouseWarper to the desktop. It executes the warps and provides the time, the 
+ * cursor position and the screen size. The default moves the cursor and reports the warp, in 
+ * shadow mode or during a replay the warp is only recorded and time and cursor are taken from 
+ * the samples.
+ */
+public interface WarpMover {
+
+    /**
+     * moves the cursor to the target and reports the warp
+     * 
+     * @param method display name of the warper
+     * @param target point the cursor is moved to
+     * @param distance warped distance in pixels, -1 if unknown
+     * @param radius distance between target and fixation in pixels, -1 if unknown
+     * @param speed mouse speed in pixel per millisecond, NaN if unknown
+     */
+    public void move(String method, Point target, int distance, int radius, double speed);
+
+    /**
+     * @return true if the cursor is not really moved
+     */
+    public boolean isShadow();
+
+    /**
+     * @return current time in nanoseconds, see System.nanoTime()
+     */
+    public long nanoTime();
+
+    /**
+     * @return current position of the cursor
+     */
+    public Point getMouseLocation();
+
+    /**
+     * @return size of the screen
+     */
+    public Dimension getScreenSize();
+}
@@ -0,0 +1,105 @@
+/*
+ * WarpPipeline.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+/**
+ * Warp strategy as a list of rules. The rules are kept in the order of their costs and are evaluated 
+ * until the first one fails, so cheap rules filter most samples before the direction is compared 
+ * and the cost of a sample is bounded by the rules which are really needed.
+ */
+public class WarpPipeline {
+
+    /** rules ordered by their costs, rules with equal costs keep the order of adding */
+    private WarpRule[] rules;
+
+    /** rule which failed at the last evaluation, null if all were fulfilled */
+    private WarpRule rejection;
+
+    /**
+     * creates an empty pipeline, which accepts every sample
+     */
+    public WarpPipeline() {
+        this.rules = new WarpRule[0];
+        this.rejection = null;
+    }
+
+    /**
+     * adds a rule behind all rules with lower or equal cost
+     * 
+     * @param rule
+     */
+    public void add(WarpRule rule) {
+        WarpRule[] added = new WarpRule[this.rules.length + 1];
+        int index = this.rules.length;
+        while ((index > 0) && (this.rules[index - 1].getCost() > rule.getCost()))
+            index--;
+        System.arraycopy(this.rules, 0, added, 0, index);
+        added[index] = rule;
+        System.arraycopy(this.rules, index, added, index + 1, this.rules.length - index);
+        this.rules = added;
+    }
+
+    /**
+     * evaluates the rules until the first one fails
+     * 
+     * @param features of the current mouse sample
+     * @return true if all rules are fulfilled
+     */
+    public boolean accepts(WarpFeatures features) {
+        for (WarpRule rule : this.rules) {
+            if (!rule.accepts(features)) {
+                this.rejection = rule;
+                return false;
+            }
+        }
+        this.rejection = null;
+        return true;
+    }
+
+    /**
+     * @return rule which failed at the last evaluation, null if all were fulfilled
+     */
+    public WarpRule getRejection() {
+        return this.rejection;
+    }
+
+    /**
+     * @return number of rules
+     */
+    public int size() {
+        return this.rules.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder names = new StringBuilder();
+        for (WarpRule rule : this.rules) {
+            if (names.length() > 0) names.append(", ");
+            names.append(rule.getName());
+        }
+        return names.toString();
+    }
+}
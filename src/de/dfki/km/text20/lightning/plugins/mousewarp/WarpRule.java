@@ -0,0 +1,83 @@
+/*
+ * WarpRule.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+/**
+ * One condition of a warp strategy. A rule only reads the given features, so the rules of a 
+ * WarpPipeline can be evaluated in any order. The cost tells the pipeline which rules should be 
+ * evaluated first.
+ */
+public abstract class WarpRule {
+
+    /** cost of a rule which only compares stored positions */
+    public static final int DISTANCE = 1;
+
+    /** cost of a rule which needs the velocity estimation */
+    public static final int ESTIMATION = 2;
+
+    /** cost of a rule which compares the direction of the movement */
+    public static final int DIRECTION = 3;
+
+    /** name of the rule, used for diagnosis */
+    private final String name;
+
+    /** relative cost of the evaluation */
+    private final int cost;
+
+    /**
+     * @param name of the rule, used for diagnosis
+     * @param cost relative cost of the evaluation, see DISTANCE, ESTIMATION and DIRECTION
+     */
+    protected WarpRule(String name, int cost) {
+        this.name = name;
+        this.cost = cost;
+    }
+
+    /**
+     * @param features of the current mouse sample
+     * @return true if the condition is fulfilled
+     */
+    public abstract boolean accepts(WarpFeatures features);
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the cost
+     */
+    public int getCost() {
+        return this.cost;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
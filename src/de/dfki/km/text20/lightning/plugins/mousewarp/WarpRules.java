@@ -0,0 +1,174 @@
+/*
+ * WarpRules.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+/**
+ * Rules the warpers are composed of. A new warp strategy is a WarpPipeline of these rules, 
+ * further conditions can be added as subclasses of WarpRule.
+ */
+public class WarpRules {
+
+    /**
+     * only static factories
+     */
+    private WarpRules() {
+    }
+
+    /**
+     * @param radius radius around the fixation within the mouse cursor won't be moved
+     * @return rule which is fulfilled if the cursor is outside of the radius
+     */
+    public static WarpRule outsideHomeRadius(final int radius) {
+        return new WarpRule("home radius " + radius, WarpRule.DISTANCE) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getDistanceToFixation() >= radius;
+            }
+        };
+    }
+
+    /**
+     * @param distance minimum distance in pixels
+     * @return rule which is fulfilled if the mouse has traveled the distance within the stored positions
+     */
+    public static WarpRule minTravel(final int distance) {
+        return new WarpRule("travel " + distance, WarpRule.DISTANCE) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getTravel() >= distance;
+            }
+        };
+    }
+
+    /**
+     * @return rule which is fulfilled if the traveled distance is not greater than the distance to the 
+     *         fixation, so a set point at this distance does not lie behind the cursor
+     */
+    public static WarpRule travelBeforeFixation() {
+        return new WarpRule("travel before fixation", WarpRule.DISTANCE) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return (int) features.getTravel() <= features.getDistanceToFixation();
+            }
+        };
+    }
+
+    /**
+     * @return rule which is fulfilled if the cursor is closer to the fixation than the oldest position
+     */
+    public static WarpRule approaching() {
+        return new WarpRule("approaching", WarpRule.DISTANCE) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getStartDistanceToFixation() > features.getDistanceToFixation();
+            }
+        };
+    }
+
+    /**
+     * @return rule which is fulfilled if the mouse moves
+     */
+    public static WarpRule moving() {
+        return new WarpRule("moving", WarpRule.ESTIMATION) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getSpeed() != 0;
+            }
+        };
+    }
+
+    /**
+     * @param speed in pixel per millisecond
+     * @return rule which is fulfilled if the mouse is at least this fast
+     */
+    public static WarpRule minSpeed(final double speed) {
+        return new WarpRule("speed >= " + speed, WarpRule.ESTIMATION) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getSpeed() >= speed;
+            }
+        };
+    }
+
+    /**
+     * @param speed in pixel per millisecond
+     * @return rule which is fulfilled if the mouse is at most this fast
+     */
+    public static WarpRule maxSpeed(final double speed) {
+        return new WarpRule("speed <= " + speed, WarpRule.ESTIMATION) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getSpeed() <= speed;
+            }
+        };
+    }
+
+    /**
+     * @param reactionTime in milliseconds
+     * @return rule which is fulfilled if the cursor would not reach the fixation within the reaction 
+     *         time at the current speed
+     */
+    public static WarpRule outsideReach(final int reactionTime) {
+        return new WarpRule("reach " + reactionTime + " ms", WarpRule.ESTIMATION) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getDistanceToFixation() >= (int) (features.getSpeed() * reactionTime);
+            }
+        };
+    }
+
+    /**
+     * @param acceleration in pixel per square millisecond
+     * @return rule which is fulfilled if the mouse accelerates at least this much along its movement
+     */
+    public static WarpRule minAcceleration(final double acceleration) {
+        return new WarpRule("acceleration >= " + acceleration, WarpRule.ESTIMATION) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.getTangentialAcceleration() >= acceleration;
+            }
+        };
+    }
+
+    /**
+     * @param angle half opening angle of the cone in degrees
+     * @return rule which is fulfilled if the mouse moves towards the fixation
+     */
+    public static WarpRule headingToFixation(int angle) {
+        final double cosine = MouseKinematics.coneCosine(angle);
+        return new WarpRule("angle " + angle, WarpRule.DIRECTION) {
+
+            @Override
+            public boolean accepts(WarpFeatures features) {
+                return features.isHeadingToFixation(cosine);
+            }
+        };
+    }
+}
@@ -26,39 +26,43 @@ import java.awt.AWTException;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.Toolkit;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.ArrayList;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
-import javax.swing.Timer;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseKinematics;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseSampleListener;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseTrajectory;
 import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.RobotWarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpFeatures;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpPipeline;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpRules;
 import de.dfki.km.text20.lightning.plugins.mousewarp.velocitywarper.gui.VelocityWarperConfigImpl;
 
 /**
  * Simple version of mouse warper which checks angle between
- * mouse-move-vector and end of movement to fixation, distance from start to
- * endpoint of movement and its velocity. If all premises are fulfilled the cursor is moved to the fixation
+ * mouse-move-vector and end of movement to fixation, distance from
+ * endpoint of movement to fixation and its velocity, both estimated by MouseKinematics. If all premises are fulfilled the cursor is moved to the fixation
  * point (with the distance of setR).
  * 
  * @author Christoph Käding
  * 
  */
 @PluginImplementation
-public class VelocityWarper implements MouseWarper {
+public class VelocityWarper implements MouseWarper, TunableWarper, MouseSampleListener {
 
-    /** threshold for the angleStartEnd */
+    /** threshold for the angle between movement and fixation */
     private int angleThres;
 
     /** threshold for the speed */
@@ -67,41 +71,38 @@ public class VelocityWarper implements MouseWarper {
     /** needed time to react on the mouse warp */
     private int reactionTime;
 
+    /** velocity estimation over the stored mousepositions */
+    private MouseKinematics kinematics;
+
     /** a list of all stored mouseposition */
-    private ArrayList<Point> mousePositions;
+    private MouseTrajectory mousePositions;
+
+    /** features of the current sample which are shared by the rules */
+    private WarpFeatures features;
+
+    /** rules which have to be fulfilled for a warp */
+    private WarpPipeline pipeline;
 
     /** last fixation */
     private Point fixation;
 
-    /** necessary to move the mouse */
-    private Robot robot;
+    /** moves the mouse, only records the warps in shadow mode */
+    private WarpMover mover;
+
+    /** tuned parameters which replace the properties, null if the properties are used */
+    private double[] parameters;
 
     /** information object */
     private PluginInformation information;
 
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleStartEnd;
-
-    /** angle between mouse vector and start-fixation-vector */
-    private double angleStartMid;
-
     /** stored properties for this plugin */
     private VelocityWarperProperties propertie;
 
     /** indicates if any calculations are already running */
     private boolean isProcessing;
 
-    /** distance from sthe start to the stop of the mousevector */
-    private double distanceStopFix;
-
-    /** speed of the mouse */
-    private double velocityStartEnd;
-
-    /** speed of the mouse */
-    private double velocityStartMid;
-
-    /** index of the element in the middle*/
-    private int mid;
+    /** speed of the mouse in pixel per millisecond */
+    private double velocity;
 
     /** radius in which the mousecursor will be placed around the fixation */
     private int setR;
@@ -115,12 +116,6 @@ public class VelocityWarper implements MouseWarper {
     /** current screen resolution */
     private int yMax;
 
-    /** internal timer */
-    private Timer timer;
-
-    /** internal timer interval */
-    private int setIntervall;
-
     /** warped distance */
     private double distance;
 
@@ -132,39 +127,24 @@ public class VelocityWarper implements MouseWarper {
         this.angleThres = 0;
         this.speedThres = 0;
         this.reactionTime = 0;
-        this.mousePositions = new ArrayList<Point>();
+        // five positions like before, calculateSetPoint uses the middle one
+        this.kinematics = new MouseKinematics(5);
+        this.mousePositions = this.kinematics.getTrajectory();
+        this.features = new WarpFeatures(this.kinematics);
+        this.pipeline = new WarpPipeline();
         this.fixation = null;
         this.information = new PluginInformation("Velocity Warper", "Uses mouse velocity to calculate warpjump.", true);
-        this.angleStartEnd = 0;
-        this.angleStartMid = 0;
         this.propertie = null;
         this.isProcessing = false;
-        this.distanceStopFix = 0;
-        this.velocityStartEnd = 0;
-        this.velocityStartMid = 0;
+        this.velocity = 0;
         this.setR = 0;
         this.setPoint = new Point();
         this.xMax = 0;
         this.yMax = 0;
-        this.setIntervall = 1;
-        this.mid = 0;
         this.distance = 0;
 
-        try {
-            this.robot = new Robot();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        this.timer = new Timer(1, new ActionListener() {
-
-            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
-            @Override
-            public void actionPerformed(ActionEvent arg0) {
-                mousePositions.add(MouseInfo.getPointerInfo().getLocation());
-                mousePositions.remove(0);
-            }
-        });
+        this.mover = new RobotWarpMover();
+        this.parameters = null;
     }
 
     /*
@@ -181,14 +161,25 @@ public class VelocityWarper implements MouseWarper {
         this.angleThres = this.propertie.getAngleThreshold();
         this.speedThres = this.propertie.getSpeed();
         this.reactionTime = this.propertie.getReactionTime();
-        this.xMax = Toolkit.getDefaultToolkit().getScreenSize().width;
-        this.yMax = Toolkit.getDefaultToolkit().getScreenSize().height;
+
+        // tuned parameters replace the properties
+        if (this.parameters != null) {
+            this.angleThres = (int) Math.round(this.parameters[0]);
+            this.speedThres = this.parameters[1];
+            this.reactionTime = (int) Math.round(this.parameters[2]);
+        }
+        this.xMax = this.mover.getScreenSize().width;
+        this.yMax = this.mover.getScreenSize().height;
         this.distance = 0;
 
+        // speed, home radius by reaction time and angle
+        this.pipeline = new WarpPipeline();
+        this.pipeline.add(WarpRules.minSpeed(this.speedThres));
+        this.pipeline.add(WarpRules.outsideReach(this.reactionTime));
+        this.pipeline.add(WarpRules.headingToFixation(this.angleThres));
+
         // refresh map
         this.refreshMouseMap();
-        this.mid = this.mousePositions.size() / 4;
-        this.timer.start();
     }
 
     /*
@@ -208,6 +199,18 @@ public class VelocityWarper implements MouseWarper {
         else if (this.fixation.y > this.yMax) this.fixation.y = this.yMax;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.dfki.km.text20.lightning.plugins.mousewarp.MouseSampleListener#addMouseSample
+     * (int, int, long)
+     */
+    @Override
+    public void addMouseSample(int x, int y, long nanos) {
+        this.kinematics.add(x, y, nanos);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -218,57 +221,32 @@ public class VelocityWarper implements MouseWarper {
     @Override
     public void addMousePosition(Point position, int interval, boolean isFixationValid) {
         this.isProcessing = true;
-        this.timer.stop();
         
         // check if fixation is placed
         if ((this.fixation == null || !isFixationValid)) {
             this.isProcessing = false;
-            this.timer.start();
             return;
         }
 
-        // calculate setRadius and speed
-        this.velocityStartEnd = this.mousePositions.get(0).distance(this.mousePositions.get(this.mousePositions.size() - 1)) / (this.setIntervall * (this.mousePositions.size() - 1));
-        this.velocityStartMid = this.mousePositions.get(0).distance(this.mousePositions.get(this.mid)) / (this.setIntervall * this.mid);
-        this.setR = (int) (this.velocityStartEnd * this.reactionTime);
-
-        // check the speed
-        if ((this.velocityStartEnd < this.speedThres) || (this.velocityStartMid < this.speedThres)) {
+        // check the rules, cheap ones first
+        this.features.update(this.fixation);
+        if (!this.pipeline.accepts(this.features)) {
             this.isProcessing = false;
-            this.timer.start();
             return;
         }
 
-        // store distance
-        this.distanceStopFix = this.mousePositions.get(this.mousePositions.size() - 1).distance(this.fixation);
-
-        // check if the cursor is already in home radius
-        if (this.distanceStopFix < this.setR) {
-            this.isProcessing = false;
-            this.timer.start();
-            return;
-        }
-
-        // checks the angles
-        this.angleStartEnd = calculateAngle(this.mousePositions.get(0), this.mousePositions.get(this.mousePositions.size() - 1));
-        this.angleStartMid = calculateAngle(this.mousePositions.get(this.mid), this.mousePositions.get(this.mousePositions.size() - 1));
-        if ((this.angleStartEnd > this.angleThres) || (this.angleStartMid > this.angleThres)) {
-            this.isProcessing = false;
-            this.timer.start();
-            return;
-        }
+        // calculate setRadius and speed
+        this.velocity = this.features.getSpeed();
+        this.setR = (int) (this.velocity * this.reactionTime);
 
         // calculate setpoint
         this.setPoint = this.calculateSetPoint(this.setR);
 
-        // places mouse cursor at the setpoint
-        this.robot.mouseMove(this.setPoint.x, this.setPoint.y);
-
         // calculate distance
-        this.distance = this.distance + this.setPoint.distance(this.mousePositions.get(this.mousePositions.size() - 1));
+        this.distance = this.distance + this.mousePositions.distance(0, this.setPoint);
 
-        // indicate warp
-        System.out.println("Warp - Mouse move to (" + this.setPoint.x + "," + this.setPoint.y + ") over a distance of " + (int) this.setPoint.distance(this.mousePositions.get(this.mousePositions.size() - 1)) + " Pixels and an offset of " + this.setR + " Pixels. Method: Velocity Warper , Velocity: " + ((double) (Math.round(this.velocityStartEnd * 100)) / 100) + " Pixel/ms");
+        // places mouse cursor at the setpoint and indicates the warp
+        this.mover.move(this.information.getDisplayName(), this.setPoint, (int) this.mousePositions.distance(0, this.setPoint), this.setR, this.velocity);
 
         // TODO: debugging
         //        this.drawPicture();
@@ -276,35 +254,9 @@ public class VelocityWarper implements MouseWarper {
         // resets variables
         this.fixation = null;
         this.refreshMouseMap();
-        this.timer.start();
         this.isProcessing = false;
     }
 
-    /**
-     * Calculates the angleStartEnd between mouse-move-vector and start of movement
-     * to fixation. This calculation is treated like it is placed in a cartesian
-     * coordinate system.
-     * 
-     * @param start
-     *            point
-     * @param stop
-     *            point
-     * @return the angle
-     */
-    private double calculateAngle(Point start, Point stop) {
-        // angle in radian measure between x-axis and moving vector of the mouse
-        double mouseTraceAngle = Math.atan2(start.y - stop.y, start.x - stop.x);
-
-        // angle in radian measure between the x-axis and the vector from start
-        // point of the current mouse vector and the fixation point
-        double gazeVectorAngle = Math.atan2(start.y - this.fixation.y, start.x - this.fixation.x);
-
-        // angleStartEnd between this two ones in degrees
-        double angleTmp = (gazeVectorAngle - mouseTraceAngle) * 180 / Math.PI;
-
-        return Math.abs(angleTmp);
-    }
-
     /**
      * Calculates a set point between fixation point and the mouse vector. The
      * distance is given by setR. The coordinate system is the cartesian
@@ -313,7 +265,7 @@ public class VelocityWarper implements MouseWarper {
     private Point calculateSetPoint(int radius) {
         // angle in radian measure between this x-axis and the vector from end
         // of mouse-vector to fixation
-        double phi = Math.atan2(this.mousePositions.get(2).y - this.fixation.y, this.mousePositions.get(2).x - this.fixation.x);
+        double phi = Math.atan2(this.mousePositions.getY(2) - this.fixation.y, this.mousePositions.getX(2) - this.fixation.x);
 
         // calculate x and y by their polar coordinates
         int x = (int) (radius * Math.cos(phi));
@@ -339,11 +291,8 @@ public class VelocityWarper implements MouseWarper {
      * clears the mouse vector and fills it with dummydata
      */
     private void refreshMouseMap() {
-        Point currentMousePos = MouseInfo.getPointerInfo().getLocation();
-        int iMax = 5;
-        this.mousePositions.clear();
-        for (int i = 0; i < iMax; i++)
-            this.mousePositions.add(currentMousePos);
+        Point currentMousePos = this.mover.getMouseLocation();
+        this.kinematics.fill(currentMousePos.x, currentMousePos.y, this.mover.nanoTime());
     }
 
     /**
@@ -375,7 +324,7 @@ public class VelocityWarper implements MouseWarper {
             graphic.setColor(new Color(255, 0, 0, 255));
             graphic.drawOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
             graphic.drawChars(("fixation point").toCharArray(), 0, 14, 12 + this.fixation.x, 12 + this.fixation.y);
-            graphic.drawChars(("" + this.angleStartEnd).toCharArray(), 0, ("" + this.angleStartEnd).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
+            graphic.drawChars(("" + this.velocity).toCharArray(), 0, ("" + this.velocity).toCharArray().length, 12 + this.fixation.x, 24 + this.fixation.y);
             graphic.setColor(new Color(255, 0, 0, 32));
             graphic.fillOval(this.fixation.x - 5, this.fixation.y - 5, 10, 10);
 
@@ -383,17 +332,17 @@ public class VelocityWarper implements MouseWarper {
             // TODO add for-loop do iterate through mousepositions
             for (int i = 0; i < this.mousePositions.size() - 2; i++) {
                 graphic.setColor(new Color(0, 0, 255, 255));
-                graphic.drawOval((int) this.mousePositions.get(i).getX() - 5, (int) this.mousePositions.get(i).getY() - 5, 10, 10);
-                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, (int) this.mousePositions.get(i).getX() + 12, (int) this.mousePositions.get(i).getY() + 12);
+                graphic.drawOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawChars(("" + i).toCharArray(), 0, ("" + i).toCharArray().length, this.mousePositions.getX(this.mousePositions.getOldest() - i) + 12, this.mousePositions.getY(this.mousePositions.getOldest() - i) + 12);
                 graphic.setColor(new Color(0, 0, 255, 32));
-                graphic.fillOval((int) this.mousePositions.get(i).getX() - 5, (int) this.mousePositions.get(i).getY() - 5, 10, 10);
-                graphic.drawLine((int) this.mousePositions.get(i).getX(), (int) this.mousePositions.get(i).getY(), (int) this.mousePositions.get(i + 1).getX(), (int) this.mousePositions.get(i + 1).getY());
+                graphic.fillOval(this.mousePositions.getX(this.mousePositions.getOldest() - i) - 5, this.mousePositions.getY(this.mousePositions.getOldest() - i) - 5, 10, 10);
+                graphic.drawLine(this.mousePositions.getX(this.mousePositions.getOldest() - i), this.mousePositions.getY(this.mousePositions.getOldest() - i), this.mousePositions.getX(this.mousePositions.getOldest() - i - 1), this.mousePositions.getY(this.mousePositions.getOldest() - i - 1));
             }
             graphic.setColor(new Color(0, 0, 255, 255));
-            graphic.drawOval((int) this.mousePositions.get(this.mousePositions.size() - 1).getX() - 5, (int) this.mousePositions.get(this.mousePositions.size() - 1).getY() - 5, 10, 10);
-            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, (int) this.mousePositions.get(this.mousePositions.size() - 1).getX() + 12, (int) this.mousePositions.get(this.mousePositions.size() - 1).getY() + 12);
+            graphic.drawOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
+            graphic.drawChars(("" + (this.mousePositions.size() - 1)).toCharArray(), 0, ("" + (this.mousePositions.size() - 1)).toCharArray().length, this.mousePositions.getX(0) + 12, this.mousePositions.getY(0) + 12);
             graphic.setColor(new Color(0, 0, 255, 32));
-            graphic.fillOval((int) this.mousePositions.get(this.mousePositions.size() - 1).getX() - 5, (int) this.mousePositions.get(this.mousePositions.size() - 1).getY() - 5, 10, 10);
+            graphic.fillOval(this.mousePositions.getX(0) - 5, this.mousePositions.getY(0) - 5, 10, 10);
 
             // calculate and visualize setpoint
             graphic.setColor(new Color(0, 255, 0, 255));
@@ -429,10 +378,66 @@ public class VelocityWarper implements MouseWarper {
     @Override
     public void stop() {
         // write current poperties in a file
-        this.timer.stop();
         this.fixation = null;
         this.propertie.writeProperties();
         if (this.distance > 0)
             $("./plugins/VelocityWarper/distance.log").file().append(System.currentTimeMillis() + ": " + this.distance + "\r\n");
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper#setWarpMover
+     * (de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover)
+     */
+    @Override
+    public void setWarpMover(WarpMover mover) {
+        this.mover = mover;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameterNames()
+     */
+    @Override
+    public String[] getParameterNames() {
+        return new String[] { "angle", "speed", "reaction time" };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#getParameters()
+     */
+    @Override
+    public double[] getParameters() {
+        VelocityWarperProperties properties = VelocityWarperProperties.getInstance();
+        return new double[] { properties.getAngleThreshold(), properties.getSpeed(), properties.getReactionTime() };
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#setParameters(double[])
+     */
+    @Override
+    public void setParameters(double[] values) {
+        this.parameters = (values == null) ? null : values.clone();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper#storeParameters(double[])
+     */
+    @Override
+    public void storeParameters(double[] values) {
+        VelocityWarperProperties properties = VelocityWarperProperties.getInstance();
+        properties.setAngleThreshold((int) Math.round(values[0]));
+        properties.setSpeed(values[1]);
+        properties.setReactionTime((int) Math.round(values[2]));
+        properties.writeProperties();
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * LazyDerivative.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.plugins.saliency;
+
+import java.util.Arrays;
+
+/**
+ * Y-derivative of the luminance of a frame which is only calculated for the pixels which are requested.
+ * Luminance and derivative values are memoized in scratch buffers which are reused for the following
+ * frames, so no full frame pass is needed when the nearest edge is close to the fixation.
+ * An instance must not be shared between threads.
+ */
+public class LazyDerivative {
+
+    /** current frame */
+    private LuminanceFrame frame;
+
+    /** memoized luminance values */
+    private byte[] luminance;
+
+    /** memoized derivative values */
+    private byte[] derivative;
+
+    /** generation in which the luminance of a pixel was calculated */
+    private int[] luminanceStamps;
+
+    /** generation in which the derivative of a pixel was calculated */
+    private int[] derivativeStamps;
+
+    /** current generation, increased for every frame so the buffers must not be cleared */
+    private int generation;
+
+    /**
+     * creates a new derivative without any frame
+     */
+    public LazyDerivative() {
+        this.luminance = new byte[0];
+        this.derivative = new byte[0];
+        this.luminanceStamps = new int[0];
+        this.derivativeStamps = new int[0];
+        this.generation = 0;
+    }
+
+    /**
+     * sets the frame which should be derivated and invalidates all memoized values
+     *
+     * @param frame
+     */
+    public void reset(LuminanceFrame frame) {
+        int size = frame.getWidth() * frame.getHeight();
+        this.frame = frame;
+
+        // grow scratch buffers if necessary
+        if (this.luminanceStamps.length < size) {
+            this.luminance = new byte[size];
+            this.derivative = new byte[size];
+            this.luminanceStamps = new int[size];
+            this.derivativeStamps = new int[size];
+            this.generation = 0;
+        }
+
+        // start a new generation, clear the stamps if the counter overflows
+        if (this.generation == Integer.MAX_VALUE) {
+            Arrays.fill(this.luminanceStamps, 0);
+            Arrays.fill(this.derivativeStamps, 0);
+            this.generation = 0;
+        }
+        this.generation++;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return luminance (0 - 255) of the given pixel, same formula as LuminanceFrame
+     */
+    public int luminance(int x, int y) {
+        int index = y * this.frame.getWidth() + x;
+        if (this.luminanceStamps[index] != this.generation) {
+            this.luminance[index] = (byte) LuminanceFrame.luminance(this.frame.rgb(x, y));
+            this.luminanceStamps[index] = this.generation;
+        }
+        return this.luminance[index] & 0xFF;
+    }
+
+    /**
+     * Returns the absolute difference between the luminance of the given pixel and the following one in
+     * y-direction. Pixels in the last line have no following one, their derivative is 0.
+     *
+     * @param x
+     * @param y
+     * @return derivative (0 - 255) of the given pixel
+     */
+    public int derivative(int x, int y) {
+        if (y >= this.frame.getHeight() - 1) return 0;
+        int index = y * this.frame.getWidth() + x;
+        if (this.derivativeStamps[index] != this.generation) {
+            this.derivative[index] = (byte) Math.abs(this.luminance(x, y) - this.luminance(x, y + 1));
+            this.derivativeStamps[index] = this.generation;
+        }
+        return this.derivative[index] & 0xFF;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * LuminanceFrame.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.plugins.saliency;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Primitive view of a screenshot which is handed to the saliency detectors. The packed RGB pixels are
+ * taken directly from the data buffer of the capture if possible, so no per pixel getRGB calls or
+ * color conversions are needed. The luminance plane is calculated once on first request.
+ */
+public class LuminanceFrame {
+
+    /** packed RGB pixels, 0xRRGGBB */
+    private final int[] pixels;
+
+    /** index of the upper left pixel inside the pixel array */
+    private final int offset;
+
+    /** distance between two lines inside the pixel array */
+    private final int stride;
+
+    /** width of the frame */
+    private final int width;
+
+    /** height of the frame */
+    private final int height;
+
+    /** luminance of each pixel, row by row without padding, calculated on demand */
+    private byte[] luminance;
+
+    /**
+     * creates a frame on the given packed RGB pixels
+     *
+     * @param pixels packed RGB pixels, alpha is ignored
+     * @param offset index of the upper left pixel
+     * @param stride distance between two lines
+     * @param width
+     * @param height
+     */
+    public LuminanceFrame(int[] pixels, int offset, int stride, int width, int height) {
+        this.pixels = pixels;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates a frame of the given image. Screenshots of the robot are backed by a packed int buffer,
+     * in this case the buffer is used directly (also for subimages). All other image types are read
+     * with a single bulk getRGB call.
+     *
+     * @param image
+     * @return frame which represents the given image
+     */
+    public static LuminanceFrame fromImage(BufferedImage image) {
+        Raster raster = image.getRaster();
+        int type = image.getType();
+
+        // direct access is only possible if the buffer holds exactly one rgb pixel per int
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) && (raster.getDataBuffer() instanceof DataBufferInt) && (raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+            DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+            int scanline = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            int start = buffer.getOffset() - raster.getSampleModelTranslateY() * scanline - raster.getSampleModelTranslateX();
+            return new LuminanceFrame(buffer.getData(), start, scanline, image.getWidth(), image.getHeight());
+        }
+
+        // fallback for all other image types
+        int[] data = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        return new LuminanceFrame(data, 0, image.getWidth(), image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * @return the packed RGB pixels, use getOffset() and getStride() for indexing
+     */
+    public int[] getPixels() {
+        return this.pixels;
+    }
+
+    /**
+     * @return index of the upper left pixel inside the pixel array
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * @return distance between two lines inside the pixel array
+     */
+    public int getStride() {
+        return this.stride;
+    }
+
+    /**
+     * @return the width
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * @return the height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return packed RGB value of the given pixel
+     */
+    public int rgb(int x, int y) {
+        return this.pixels[this.offset + y * this.stride + x];
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return luminance (0 - 255) of the given pixel
+     */
+    public int luminance(int x, int y) {
+        return this.getLuminance()[y * this.width + x] & 0xFF;
+    }
+
+    /**
+     * Calculates the luminance of the given pixel as integer approximation of 0.299 R + 0.587 G + 0.114 B.
+     *
+     * @param rgb packed RGB value
+     * @return luminance (0 - 255)
+     */
+    public static int luminance(int rgb) {
+        return (77 * ((rgb >> 16) & 0xFF) + 150 * ((rgb >> 8) & 0xFF) + 29 * (rgb & 0xFF)) >> 8;
+    }
+
+    /**
+     * Returns the luminance plane, row by row with a stride equal to the width.
+     *
+     * @return luminance of each pixel
+     */
+    public byte[] getLuminance() {
+        if (this.luminance != null) return this.luminance;
+
+        byte[] gray = new byte[this.width * this.height];
+        int index = 0;
+        for (int y = 0; y < this.height; y++) {
+            int line = this.offset + y * this.stride;
+            for (int x = 0; x < this.width; x++) {
+                gray[index++] = (byte) luminance(this.pixels[line + x]);
+            }
+        }
+        this.luminance = gray;
+        return gray;
+    }
+
+    /**
+     * copies the frame into a new image, only used for debugging
+     *
+     * @return image of this frame
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, this.width, this.height, this.pixels, this.offset, this.stride);
+        return image;
+    }
+}
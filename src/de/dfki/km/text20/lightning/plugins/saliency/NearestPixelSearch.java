@@ -0,0 +1,299 @@
+/*
+ * NearestPixelSearch.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.plugins.saliency;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Searches the nearest pixel to the center of a square screenshot which is not black. The offsets around
+ * the center are precomputed and sorted by their squared euclidean distance, so the first hit is
+ * always the nearest one. Equal distances are ordered like the former spiral (down, left, up, right).
+ * One table is created for each screenshot dimension and shared by all detectors.
+ */
+public class NearestPixelSearch {
+
+    /** already created tables, mapped by dimension */
+    private static final Map<Integer, NearestPixelSearch> tables = new HashMap<Integer, NearestPixelSearch>();
+
+    /** dimension of the screenshot */
+    private final int dimension;
+
+    /** x-offsets sorted by distance */
+    private final int[] offsetX;
+
+    /** y-offsets sorted by distance */
+    private final int[] offsetY;
+
+    /** squared distances of the offsets */
+    private final int[] distance;
+
+    /** x-offsets in the order of the spiral */
+    private final int[] spiralX;
+
+    /** y-offsets in the order of the spiral */
+    private final int[] spiralY;
+
+    /** index behind the last offset of each leg of the spiral */
+    private final int[] legEnd;
+
+    /**
+     * creates the sorted offset table for the given dimension
+     *
+     * @param dimension
+     */
+    private NearestPixelSearch(int dimension) {
+        this.dimension = dimension;
+
+        // offsets stay inside the screenshot and leave out the outer border like the former spiral
+        int radius = Math.max(0, dimension / 2 - 1);
+        int size = (2 * radius + 1) * (2 * radius + 1) - 1;
+
+        // key = squared distance in the upper half, position inside the spiral in the lower one,
+        // so sorting the keys gives the exact euclidean order with the spiral as tie breaker
+        long[] keys = new long[size];
+        int[] spiralX = new int[size];
+        int[] spiralY = new int[size];
+        int x = 0;
+        int y = 0;
+        int index = 0;
+        int leg = 1;
+        int[] ends = new int[4 * radius + 8];
+        int legs = 0;
+
+        // encoding for direction: 0 = down, 1 = left, 2 = up, 3 = right
+        int direction = 0;
+        while (index < size) {
+            for (int i = 0; i < leg; i++) {
+                switch (direction) {
+                case 0:
+                    y++;
+                    break;
+                case 1:
+                    x--;
+                    break;
+                case 2:
+                    y--;
+                    break;
+                default:
+                    x++;
+                    break;
+                }
+                if ((Math.abs(x) <= radius) && (Math.abs(y) <= radius)) {
+                    spiralX[index] = x;
+                    spiralY[index] = y;
+                    keys[index] = ((long) (x * x + y * y) << 32) | index;
+                    index++;
+                }
+            }
+            if ((legs == 0) || (ends[legs - 1] < index)) ends[legs++] = index;
+            if ((direction == 1) || (direction == 3)) leg++;
+            direction = (direction + 1) % 4;
+        }
+        this.spiralX = spiralX;
+        this.spiralY = spiralY;
+        this.legEnd = Arrays.copyOf(ends, legs);
+        Arrays.sort(keys);
+
+        // store sorted table
+        this.offsetX = new int[size];
+        this.offsetY = new int[size];
+        this.distance = new int[size];
+        for (int i = 0; i < size; i++) {
+            int position = (int) (keys[i] & 0xFFFFFFFFL);
+            this.offsetX[i] = spiralX[position];
+            this.offsetY[i] = spiralY[position];
+            this.distance[i] = (int) (keys[i] >>> 32);
+        }
+    }
+
+    /**
+     * returns the table for the given dimension, it is created at the first request
+     *
+     * @param dimension of the screenshot
+     * @return search table
+     */
+    public static NearestPixelSearch getInstance(int dimension) {
+        synchronized (tables) {
+            NearestPixelSearch search = tables.get(Integer.valueOf(dimension));
+            if (search == null) {
+                search = new NearestPixelSearch(dimension);
+                tables.put(Integer.valueOf(dimension), search);
+            }
+            return search;
+        }
+    }
+
+    /**
+     * searches the nearest non-black pixel
+     *
+     * @param data gray values
+     * @param offset index of the upper left pixel
+     * @param stride distance between two lines
+     * @return offset of the nearest pixel to the center, (0,0) if nothing was found
+     */
+    public Point search(byte[] data, int offset, int stride) {
+        int center = offset + (this.dimension / 2) * stride + this.dimension / 2;
+        for (int i = 0; i < this.offsetX.length; i++) {
+            if (data[center + this.offsetY[i] * stride + this.offsetX[i]] != 0)
+                return new Point(this.offsetX[i], this.offsetY[i]);
+        }
+        return new Point(0, 0);
+    }
+
+    /**
+     * searches the nearest pixel which has some bits of the mask set
+     *
+     * @param data packed pixels
+     * @param offset index of the upper left pixel
+     * @param stride distance between two lines
+     * @param mask bits which are tested, e.g. 0xFF for the blue channel
+     * @return offset of the nearest pixel to the center, (0,0) if nothing was found
+     */
+    public Point search(int[] data, int offset, int stride, int mask) {
+        int center = offset + (this.dimension / 2) * stride + this.dimension / 2;
+        for (int i = 0; i < this.offsetX.length; i++) {
+            if ((data[center + this.offsetY[i] * stride + this.offsetX[i]] & mask) != 0)
+                return new Point(this.offsetX[i], this.offsetY[i]);
+        }
+        return new Point(0, 0);
+    }
+
+    /**
+     * Searches the nearest marked pixel of a bitset. Bit x % 64 of word y * words + x / 64
+     * represents pixel (x,y), so only the words of the visited offsets are read.
+     *
+     * @param bits marked pixels, line by line
+     * @param words number of words per line
+     * @return offset of the nearest pixel to the center, (0,0) if nothing was found
+     */
+    public Point search(long[] bits, int words) {
+        int center = this.dimension / 2;
+        for (int i = 0; i < this.offsetX.length; i++) {
+            int x = center + this.offsetX[i];
+            if (((bits[(center + this.offsetY[i]) * words + (x >>> 6)] >>> x) & 1) != 0)
+                return new Point(this.offsetX[i], this.offsetY[i]);
+        }
+        return new Point(0, 0);
+    }
+
+    /**
+     * Searches the nearest pixel with a derivative greater than zero. The derivative is only
+     * calculated for the visited pixels, so the work depends on the distance to the nearest edge.
+     *
+     * @param derivative lazy derivative of the current frame
+     * @return offset of the nearest pixel to the center, (0,0) if nothing was found
+     */
+    public Point search(LazyDerivative derivative) {
+        int center = this.dimension / 2;
+        for (int i = 0; i < this.offsetX.length; i++) {
+            if (derivative.derivative(center + this.offsetX[i], center + this.offsetY[i]) != 0)
+                return new Point(this.offsetX[i], this.offsetY[i]);
+        }
+        return new Point(0, 0);
+    }
+
+    /**
+     * Walks along the spiral and returns the first non-black pixel, which is not always the
+     * nearest one. This is the order of the former SimpleSobel.
+     *
+     * @param data gray values
+     * @param offset index of the upper left pixel
+     * @param stride distance between two lines
+     * @return offset of the found pixel to the center, (0,0) if nothing was found
+     */
+    public Point searchSpiral(byte[] data, int offset, int stride) {
+        int center = offset + (this.dimension / 2) * stride + this.dimension / 2;
+        for (int i = 0; i < this.spiralX.length; i++) {
+            if (data[center + this.spiralY[i] * stride + this.spiralX[i]] != 0)
+                return new Point(this.spiralX[i], this.spiralY[i]);
+        }
+        return new Point(0, 0);
+    }
+
+    /**
+     * Walks along the spiral and returns the nearest pixel with a derivative greater than zero of
+     * the first leg which contains one. This is faster than the exact search for distant edges,
+     * but a hit on an earlier leg may be farther away than one on the next leg.
+     *
+     * @param derivative lazy derivative of the current frame
+     * @return offset of the found pixel to the center, (0,0) if nothing was found
+     */
+    public Point searchSpiral(LazyDerivative derivative) {
+        int center = this.dimension / 2;
+        int start = 0;
+        for (int leg = 0; leg < this.legEnd.length; leg++) {
+            // nearest hit of this leg, the first one wins on equal distances
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int i = start; i < this.legEnd[leg]; i++) {
+                int x = this.spiralX[i];
+                int y = this.spiralY[i];
+                if (derivative.derivative(center + x, center + y) == 0) continue;
+                if (x * x + y * y < bestDistance) {
+                    best = i;
+                    bestDistance = x * x + y * y;
+                }
+            }
+            if (best >= 0) return new Point(this.spiralX[best], this.spiralY[best]);
+            start = this.legEnd[leg];
+        }
+        return new Point(0, 0);
+    }
+
+    /**
+     * @return number of offsets in the table
+     */
+    public int size() {
+        return this.offsetX.length;
+    }
+
+    /**
+     * @return x-offsets sorted by distance, must not be changed
+     */
+    public int[] getOffsetX() {
+        return this.offsetX;
+    }
+
+    /**
+     * @return y-offsets sorted by distance, must not be changed
+     */
+    public int[] getOffsetY() {
+        return this.offsetY;
+    }
+
+    /**
+     * @return squared distances of the offsets, must not be changed
+     */
+    public int[] getDistance() {
+        return this.distance;
+    }
+
+    /**
+     * @return the dimension
+     */
+    public int getDimension() {
+        return this.dimension;
+    }
+}
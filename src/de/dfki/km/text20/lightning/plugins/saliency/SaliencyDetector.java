@@ -43,6 +43,15 @@ public interface SaliencyDetector extends Plugin, CommonPluginInterface {
      */
     public Point analyse(BufferedImage screenShot);
 
+    /**
+     * Analyzes the given frame and calculates an offset which is added to the fixation point.
+     * This is the same as analyse(BufferedImage) but works directly on the primitive pixel data.
+     * 
+     * @param frame in which center is the fixation point
+     * @return offset of the next position which is realized as the real target
+     */
+    public Point analyse(LuminanceFrame frame);
+
     /**
      * Returns some information about the plugin.
      * Make sure you always return the same object, because a id will be set in it!!
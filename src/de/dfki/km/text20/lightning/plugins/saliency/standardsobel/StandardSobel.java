@@ -24,9 +24,7 @@ package de.dfki.km.text20.lightning.plugins.saliency.standardsobel;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
-import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
-import java.awt.image.ColorConvertOp;
 import java.io.File;
 
 import javax.imageio.ImageIO;
@@ -34,6 +32,9 @@ import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.saliency.LazyDerivative;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
+import de.dfki.km.text20.lightning.plugins.saliency.NearestPixelSearch;
 import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
 
 /**
@@ -51,234 +52,45 @@ public class StandardSobel implements SaliencyDetector {
     /** current timestamp for debugging */
     private long timestamp;
 
+    /** lazy y-derivative of the current screenshot, reused for every click */
+    private LazyDerivative derivative;
+
     /**
      * creates new simple sobel object
      */
     public StandardSobel() {
         this.information = new PluginInformation("Standard Sobel", "Basic version of the saliency detector.", false);
-    }
-
-    /**
-     * Derivates the given screenshot in y-direction. 
-     * This painted pixels which have any different color as their following ones in white or grey color.
-     * All the other ones will be colored black.
-     */
-    private BufferedImage derivate(BufferedImage screenShot) {
-
-        ColorConvertOp converter = new ColorConvertOp(ColorSpace.getInstance(ColorSpace.CS_GRAY), null);
-        screenShot = converter.filter(screenShot, null);
-        BufferedImage derivatedScreenShot = new BufferedImage(screenShot.getHeight(), screenShot.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-
-        // Go through each pixel position in the derivate image ... 
-        for (int x = 0; x < screenShot.getHeight(); x++) {
-            for (int y = 0; y < screenShot.getHeight() - 1; y++) {
-                // ... and subtract the grey value of a pixel by the value of the following one to 
-                // derivate the screenshot in y-direction
-                derivatedScreenShot.setRGB(x, y, (screenShot.getRGB(x, y) & 0xFF) - (screenShot.getRGB(x, y + 1) & 0xFF));
-            }
-        }
-        return derivatedScreenShot;
+        this.derivative = new LazyDerivative();
     }
 
     /* (non-Javadoc)
      * @see de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector#analyse(java.awt.image.BufferedImage)
      */
     /**
-     * A kind of spiral grows from the fixation point and returns the nearest point which is not black (works with derivated screenshot).
+     * Walks through the offsets around the fixation point sorted by distance and returns the nearest point which is not black
+     * (works with the y-derivative, which is only calculated for visited pixels).
      */
     @Override
     public Point analyse(BufferedImage screenShot) {
+        return this.analyse(LuminanceFrame.fromImage(screenShot));
+    }
+
+    /* (non-Javadoc)
+     * @see de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector#analyse(de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame)
+     */
+    @Override
+    public Point analyse(LuminanceFrame frame) {
         // set current timestamp
         this.timestamp = System.currentTimeMillis();
 
-        //encoding for direction:
-        // 0 = down
-        // 1 = left
-        // 2 = up
-        // 3 = right
-        int direction = 0;
-
-        // size of the spiral in one direction
-        int size = 1;
-
-        // temporary stored distance between founded point and fixation
-        double storedDistance = Double.MAX_VALUE;
-
-        // derivated screenshot
-        BufferedImage derivatedScreenShot = derivate(screenShot);
-
-        // fixation point
-        Point point = new Point(derivatedScreenShot.getHeight() / 2, derivatedScreenShot.getHeight() / 2);
-
-        // indicates if a non-black-point had found
-        boolean found = false;
-
-        // temporary point which represents the current point of the spiral
-        Point temp = new Point(0, 0);
-
-        // offset from fixation to calculated target
-        Point offset = new Point(Integer.MAX_VALUE, Integer.MAX_VALUE);
-
-        // grows till the whole screenshot is checked
-        while ((size < derivatedScreenShot.getHeight()) && (Math.abs(temp.x) < derivatedScreenShot.getHeight() / 2) && (Math.abs(temp.y) < derivatedScreenShot.getHeight() / 2)) {
-
-            // grow in every direction
-            switch (direction) {
-
-            case 0:
-                // check if it is possible to find a better offset
-                if (storedDistance < temp.x) return offset;
-
-                // run through line
-                for (int y = 0; (y < size) && (temp.y < derivatedScreenShot.getHeight() / 2 - 1); y++) {
-
-                    // move temporary point
-                    temp.setLocation(temp.x, temp.y + 1);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + temp.x, point.y + temp.y) & 0xFF) > 0) {
-
-                        // TODO: comment this out, its only for debugging
-                        //                        this.drawPicture(derivatedScreenShot, new Point(point.x + temp.x, point.y + temp.y));
-
-                        // check if the point is closer than the current offset
-                        if (new Point(point.x + temp.x, point.y + temp.y).distance(point) < storedDistance) {
-
-                            // set new offset
-                            offset.setLocation(temp);
-
-                            // store distance
-                            storedDistance = new Point(point.x + offset.x, point.y + offset.y).distance(point);
-
-                            // indicate that a non-black-point was found
-                            found = true;
-                        }
-                    }
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-                break;
+        // the y-derivative is only calculated for the pixels the search visits
+        this.derivative.reset(frame);
 
-            case 1:
-                // check if it is possible to find a better offset
-                if (storedDistance < temp.y) return offset;
-
-                // run through line
-                for (int x = 0; (x < size) && (-temp.x < derivatedScreenShot.getHeight() / 2 - 1); x++) {
-
-                    // move temporary point
-                    temp.setLocation(temp.x - 1, temp.y);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + temp.x, point.y + temp.y) & 0xFF) > 0) {
-
-                        // TODO: comment this out, its only for debugging
-                        //                        this.drawPicture(derivatedScreenShot, new Point(point.x + temp.x, point.y + temp.y));
-
-                        // check if the point is closer than the current offset
-                        if (new Point(point.x + temp.x, point.y + temp.y).distance(point) < storedDistance) {
-
-                            // set new offset
-                            offset.setLocation(temp);
-
-                            // store distance
-                            storedDistance = new Point(point.x + offset.x, point.y + offset.y).distance(point);
-
-                            // indicate that a non-black-point was found
-                            found = true;
-                        }
-                    }
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-
-                // increase size
-                size++;
-                break;
-
-            case 2:
-                // check if it is possible to find a better offset
-                if (storedDistance < -temp.x) return offset;
-
-                // run through line
-                for (int y = 0; (y < size) && (-temp.y < derivatedScreenShot.getHeight() / 2 - 1); y++) {
-
-                    // move temporary point
-                    temp.setLocation(temp.x, temp.y - 1);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + temp.x, point.y + temp.y) & 0xFF) > 0) {
-
-                        // TODO: comment this out, its only for debugging
-                        //                        this.drawPicture(derivatedScreenShot, new Point(point.x + temp.x, point.y + temp.y));
-
-                        // check if the point is closer than the current offset
-                        if (new Point(point.x + temp.x, point.y + temp.y).distance(point) < storedDistance) {
-
-                            // set new offset
-                            offset.setLocation(temp);
-
-                            // store distance
-                            storedDistance = new Point(point.x + offset.x, point.y + offset.y).distance(point);
-
-                            // indicate that a non-black-point was found
-                            found = true;
-                        }
-                    }
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-                break;
-
-            case 3:
-                // check if it is possible to find a better offset
-                if (storedDistance < -temp.y) return offset;
-
-                // run through line
-                for (int x = 0; (x < size) && (temp.x < derivatedScreenShot.getHeight() / 2 - 1); x++) {
-
-                    // move temporary point
-                    temp.setLocation(temp.x + 1, temp.y);
-
-                    // check if something which is not black there
-                    if ((derivatedScreenShot.getRGB(point.x + temp.x, point.y + temp.y) & 0xFF) > 0) {
-
-                        // TODO: comment this out, its only for debugging
-                        //                        this.drawPicture(derivatedScreenShot, new Point(point.x + temp.x, point.y + temp.y));
-
-                        // check if the point is closer than the current offset
-                        if (new Point(point.x + temp.x, point.y + temp.y).distance(point) < storedDistance) {
-
-                            // set new offset
-                            offset.setLocation(temp);
-
-                            // store distance
-                            storedDistance = new Point(point.x + offset.x, point.y + offset.y).distance(point);
-
-                            // indicate that a non-black-point was found
-                            found = true;
-                        }
-                    }
-                }
-
-                // change direction
-                direction++;
-                direction = direction % 4;
-
-                // increase size
-                size++;
-                break;
-            }
-        }
+        // walk through the precomputed offsets, the first non-black pixel is the nearest one
+        Point offset = NearestPixelSearch.getInstance(frame.getHeight()).search(this.derivative);
 
-        // if nothing had found
-        if (!found) offset.setLocation(0, 0);
+        // TODO: comment this out, its only for debugging
+        //        this.drawPicture(frame.toImage(), new Point(frame.getHeight() / 2 + offset.x, frame.getHeight() / 2 + offset.y));
 
         return offset;
     }
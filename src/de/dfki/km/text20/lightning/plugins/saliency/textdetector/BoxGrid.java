@@ -0,0 +1,170 @@
+/*
+ * BoxGrid.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
+
+import java.awt.Point;
+
+/**
+ * Uniform grid over the vertical midlines of text boxes. Each midline is a horizontal segment from
+ * the left border to the last column inside the box, registered in every cell it crosses. The
+ * nearest point is searched in rings of cells around the query point, so only the cells close to
+ * it are visited and the distance to each segment is calculated analytically.
+ */
+class BoxGrid {
+
+    /** indexed boxes */
+    private final TextBoxes boxes;
+
+    /** size of one square cell */
+    private final int cell;
+
+    /** number of cell columns */
+    private final int columns;
+
+    /** number of cell rows */
+    private final int rows;
+
+    /** index of the first entry of each cell in entries, one additional value for the end */
+    private final int[] start;
+
+    /** box indices, grouped by cell */
+    private final int[] entries;
+
+    /**
+     * builds the grid with two passes, one to count and one to fill the cells
+     *
+     * @param boxes which should be indexed
+     * @param width of the area which contains the boxes
+     * @param height of the area which contains the boxes
+     */
+    BoxGrid(TextBoxes boxes, int width, int height) {
+        this.boxes = boxes;
+
+        // about one box per cell
+        int perSide = (int) Math.ceil(Math.sqrt(Math.max(1, boxes.size())));
+        this.cell = Math.max(4, Math.max(width, height) / perSide);
+        this.columns = Math.max(1, (width + this.cell - 1) / this.cell);
+        this.rows = Math.max(1, (height + this.cell - 1) / this.cell);
+
+        // count entries per cell
+        int[] count = new int[this.columns * this.rows + 1];
+        for (int i = 0; i < boxes.size(); i++) {
+            if (boxes.width(i) <= 0) continue;
+            int row = this.row(this.midline(i));
+            for (int c = this.column(boxes.x1(i)); c <= this.column(this.lastColumn(i)); c++)
+                count[row * this.columns + c + 1]++;
+        }
+        for (int i = 1; i < count.length; i++)
+            count[i] += count[i - 1];
+        this.start = count.clone();
+
+        // fill cells
+        this.entries = new int[count[count.length - 1]];
+        for (int i = 0; i < boxes.size(); i++) {
+            if (boxes.width(i) <= 0) continue;
+            int row = this.row(this.midline(i));
+            for (int c = this.column(boxes.x1(i)); c <= this.column(this.lastColumn(i)); c++)
+                this.entries[count[row * this.columns + c]++] = i;
+        }
+    }
+
+    /**
+     * @return line of the vertical midline of the given box
+     */
+    private int midline(int box) {
+        return this.boxes.y1(box) + this.boxes.height(box) / 2;
+    }
+
+    /**
+     * @return last column of the midline of the given box
+     */
+    private int lastColumn(int box) {
+        return this.boxes.x1(box) + this.boxes.width(box) - 1;
+    }
+
+    /**
+     * @return cell column of the given x value, clipped to the grid
+     */
+    private int column(int x) {
+        return Math.min(this.columns - 1, Math.max(0, x / this.cell));
+    }
+
+    /**
+     * @return cell row of the given y value, clipped to the grid
+     */
+    private int row(int y) {
+        return Math.min(this.rows - 1, Math.max(0, y / this.cell));
+    }
+
+    /**
+     * @return squared distance between the given point and the midline of the given box
+     */
+    private long distance(int box, int x, int y) {
+        long dx = x - Math.min(Math.max(x, this.boxes.x1(box)), this.lastColumn(box));
+        long dy = y - this.midline(box);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Searches the point on the box midlines which is nearest to the given point. Of several
+     * boxes with the same distance the one with the lowest index is taken.
+     *
+     * @param x
+     * @param y
+     * @return nearest point, null if there is no box with a width greater than zero
+     */
+    Point nearest(int x, int y) {
+        int bestBox = -1;
+        long bestDistance = Long.MAX_VALUE;
+        int cx = this.column(x);
+        int cy = this.row(y);
+        int maxRing = Math.max(Math.max(cx, this.columns - 1 - cx), Math.max(cy, this.rows - 1 - cy));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // every cell of this ring is at least (ring - 1) cells away from the point
+            long reach = (long) Math.max(0, ring - 1) * this.cell;
+            if ((bestBox >= 0) && (reach * reach > bestDistance)) break;
+
+            for (int r = cy - ring; r <= cy + ring; r++) {
+                if ((r < 0) || (r >= this.rows)) continue;
+
+                // inner rows of the ring only have the left and right cell
+                int step = ((r == cy - ring) || (r == cy + ring)) ? 1 : Math.max(1, 2 * ring);
+                for (int c = cx - ring; c <= cx + ring; c += step) {
+                    if ((c < 0) || (c >= this.columns)) continue;
+
+                    int index = r * this.columns + c;
+                    for (int e = this.start[index]; e < this.start[index + 1]; e++) {
+                        int box = this.entries[e];
+                        long distance = this.distance(box, x, y);
+                        if ((distance < bestDistance) || ((distance == bestDistance) && (box < bestBox))) {
+                            bestDistance = distance;
+                            bestBox = box;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (bestBox < 0) return null;
+        return new Point(Math.min(Math.max(x, this.boxes.x1(bestBox)), this.lastColumn(bestBox)), this.midline(bestBox));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * BoxMerger.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Merges text boxes until no pair can be merged anymore. Boxes are registered in horizontal bands
+ * of the screenshot, so the full criterion of GetImageText.merge(TextBoxes, int, int) is only
+ * tested for boxes which are vertically close enough to get the distance based reasons. All other
+ * pairs need four of the five remaining reasons, which are counted first and only lead to a merge
+ * test if they are enough.
+ */
+class BoxMerger {
+
+    /** analyser which provides the merge criterion */
+    private final GetImageText analyser;
+
+    /** height of one band, equal to the largest vertical merge distance */
+    private final int band;
+
+    /** boxes which are merged */
+    private final TextBoxes boxes;
+
+    /** false if the box was merged into another one */
+    private boolean[] alive;
+
+    /** indices of the boxes which touch each band */
+    private final List<List<Integer>> bands;
+
+    /** last scan in which a box was tested, avoids double tests of boxes registered in several bands */
+    private int[] visited;
+
+    /** number of the current scan */
+    private int scan;
+
+    /**
+     * @param analyser provides the merge criterion
+     * @param boxes which should be merged
+     * @param height of the screenshot
+     */
+    BoxMerger(GetImageText analyser, TextBoxes boxes, int height) {
+        this.analyser = analyser;
+        this.band = Math.max(1, Math.max(analyser.merge_dist1, analyser.merge_dist2));
+        this.boxes = boxes;
+        this.alive = new boolean[this.boxes.size()];
+        this.visited = new int[this.boxes.size()];
+        this.bands = new ArrayList<List<Integer>>();
+        for (int i = 0; i <= height / this.band + 2; i++)
+            this.bands.add(new ArrayList<Integer>());
+
+        for (int i = 0; i < this.boxes.size(); i++) {
+            this.alive[i] = true;
+            this.register(i);
+        }
+    }
+
+    /**
+     * adds the box to all bands which are touched by it, extended by the merge distance
+     */
+    private void register(int index) {
+        for (int i = this.bandOf(this.boxes.y1(index) - this.band); i <= this.bandOf(this.boxes.y2(index) + this.band); i++)
+            this.bands.get(i).add(Integer.valueOf(index));
+    }
+
+    /**
+     * @return band of the given line, clipped to the existing bands
+     */
+    private int bandOf(int y) {
+        return Math.min(this.bands.size() - 1, Math.max(0, y / this.band));
+    }
+
+    /**
+     * Merges the boxes until nothing changes anymore. A box which grew is tested again against
+     * its new neighbours. Merged boxes are removed from the table at the end.
+     *
+     * @return the given table with the merged boxes
+     */
+    TextBoxes merge() {
+        LinkedList<Integer> pending = new LinkedList<Integer>();
+        for (int i = 0; i < this.boxes.size(); i++)
+            pending.add(Integer.valueOf(i));
+
+        while (!pending.isEmpty()) {
+            int i = pending.removeFirst().intValue();
+            if (!this.alive[i]) continue;
+
+            int survivor = this.mergeWithNeighbour(i);
+            if (survivor >= 0) {
+                this.register(survivor);
+                pending.add(Integer.valueOf(survivor));
+            }
+        }
+
+        // from the end, so the box which is moved into a gap is always alive
+        for (int i = this.boxes.size() - 1; i >= 0; i--)
+            if (!this.alive[i]) this.boxes.remove(i);
+        return this.boxes;
+    }
+
+    /**
+     * Tests the given box against all boxes in its bands and merges it with the first one that fits.
+     * If none fits, the remaining boxes are scanned for one which fits without a distance reason.
+     *
+     * @return index of the merged box, -1 if nothing was merged
+     */
+    private int mergeWithNeighbour(int i) {
+        this.scan++;
+        for (int b = this.bandOf(this.boxes.y1(i)); b <= this.bandOf(this.boxes.y2(i)); b++) {
+            List<Integer> candidates = this.bands.get(b);
+            for (int c = 0; c < candidates.size(); c++) {
+                int j = candidates.get(c).intValue();
+                if (j == i || !this.alive[j] || this.visited[j] == this.scan) continue;
+                this.visited[j] = this.scan;
+
+                // the criterion is not symmetric, so both directions are tested
+                if (this.analyser.merge(this.boxes, i, j)) {
+                    this.alive[j] = false;
+                    return i;
+                }
+                if (this.analyser.merge(this.boxes, j, i)) {
+                    this.alive[i] = false;
+                    return j;
+                }
+            }
+        }
+
+        // outside of the bands both distance reasons fail, so the other ones have to reach 4
+        for (int j = 0; j < this.boxes.size(); j++) {
+            if (j == i || !this.alive[j] || this.visited[j] == this.scan) continue;
+            if (this.analyser.reasonsWithoutDistance(this.boxes, i, j) > 3 && this.analyser.merge(this.boxes, i, j)) {
+                this.alive[j] = false;
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * ContrastMap.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
+
+/**
+ * Binary contrast map of a screenshot. Each line is stored row-major as a sequence of 64 bit words,
+ * so line and column projections can be calculated with popcounts instead of single pixel access.
+ */
+public class ContrastMap {
+
+    /** width of the map */
+    private final int width;
+
+    /** height of the map */
+    private final int height;
+
+    /** number of words per line */
+    private final int words;
+
+    /** bits of the map, bit x % 64 of word y * words + x / 64 represents pixel (x,y) */
+    private final long[] bits;
+
+    /** integral image of this map, created on first request */
+    private SummedAreaTable table;
+
+    /** integral image of the stem pixels of this map, created on first request */
+    private SummedAreaTable stemTable;
+
+    /**
+     * creates an empty map
+     *
+     * @param width
+     * @param height
+     */
+    public ContrastMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.words = (width + 63) >>> 6;
+        this.bits = new long[this.words * height];
+    }
+
+    /**
+     * @return the width
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * @return the height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * marks the given pixel
+     *
+     * @param x
+     * @param y
+     */
+    public void set(int x, int y) {
+        this.bits[y * this.words + (x >>> 6)] |= 1L << x;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return 1 if the given pixel is marked, 0 otherwise (also outside of the map)
+     */
+    public int get(int x, int y) {
+        if (x < 0 || y < 0 || x >= this.width || y >= this.height) return 0;
+        return (int) (this.bits[y * this.words + (x >>> 6)] >>> x) & 1;
+    }
+
+    /**
+     * @param y line
+     * @return number of marked pixels in the given line
+     */
+    public int countLine(int y) {
+        int count = 0;
+        int start = y * this.words;
+        for (int i = start; i < start + this.words; i++)
+            count += Long.bitCount(this.bits[i]);
+        return count;
+    }
+
+    /**
+     * @param y line
+     * @param x1 first column (inclusive)
+     * @param x2 last column (exclusive)
+     * @return number of marked pixels in the given part of the line
+     */
+    public int countLine(int y, int x1, int x2) {
+        x1 = Math.max(0, x1);
+        x2 = Math.min(this.width, x2);
+        if (x1 >= x2) return 0;
+
+        int start = y * this.words;
+        int first = x1 >>> 6;
+        int last = (x2 - 1) >>> 6;
+        long firstMask = -1L << x1;
+        long lastMask = -1L >>> (63 - ((x2 - 1) & 63));
+        if (first == last) return Long.bitCount(this.bits[start + first] & firstMask & lastMask);
+
+        int count = Long.bitCount(this.bits[start + first] & firstMask);
+        for (int i = first + 1; i < last; i++)
+            count += Long.bitCount(this.bits[start + i]);
+        return count + Long.bitCount(this.bits[start + last] & lastMask);
+    }
+
+    /**
+     * @param x column
+     * @param y1 first line (inclusive)
+     * @param y2 last line (exclusive)
+     * @return number of marked pixels in the given part of the column
+     */
+    public int countColumn(int x, int y1, int y2) {
+        if (x < 0 || x >= this.width) return 0;
+        y1 = Math.max(0, y1);
+        y2 = Math.min(this.height, y2);
+
+        int count = 0;
+        int word = x >>> 6;
+        for (int y = y1; y < y2; y++)
+            count += (int) (this.bits[y * this.words + word] >>> x) & 1;
+        return count;
+    }
+
+    /**
+     * Adds the number of marked pixels of each column inside the given band of lines to the
+     * given array. Only the marked bits are visited.
+     *
+     * @param y1 first line (inclusive)
+     * @param y2 last line (exclusive)
+     * @param projection array with at least width entries
+     */
+    public void projectColumns(int y1, int y2, int[] projection) {
+        for (int y = Math.max(0, y1); y < Math.min(this.height, y2); y++) {
+            int start = y * this.words;
+            for (int i = 0; i < this.words; i++) {
+                long word = this.bits[start + i];
+                while (word != 0) {
+                    projection[(i << 6) + Long.numberOfTrailingZeros(word)]++;
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of words per line
+     */
+    public int getWords() {
+        return this.words;
+    }
+
+    /**
+     * @return bits of the map, line by line, must not be changed
+     */
+    public long[] getBits() {
+        return this.bits;
+    }
+
+    /**
+     * The table is built once, so the map must not be changed afterwards.
+     *
+     * @return integral image of this map
+     */
+    public SummedAreaTable getTable() {
+        if (this.table == null) this.table = new SummedAreaTable(this);
+        return this.table;
+    }
+
+    /**
+     * The table is built once, so the map must not be changed afterwards.
+     *
+     * @return integral image of the stem pixels of this map, see stems()
+     */
+    public SummedAreaTable getStemTable() {
+        if (this.stemTable == null) this.stemTable = new SummedAreaTable(this.stems());
+        return this.stemTable;
+    }
+
+    /**
+     * Creates a map which marks every pixel which has a marked pixel in its 3x3 neighborhood
+     * in each of the lines above, itself and below. These are the pixels which belong to a stem.
+     *
+     * @return map of stem pixels
+     */
+    public ContrastMap stems() {
+        ContrastMap stems = new ContrastMap(this.width, this.height);
+
+        // horizontally dilated lines
+        long[] dilated = new long[this.bits.length];
+        for (int y = 0; y < this.height; y++) {
+            int start = y * this.words;
+            for (int i = 0; i < this.words; i++) {
+                long word = this.bits[start + i];
+                long lower = i > 0 ? this.bits[start + i - 1] >>> 63 : 0;
+                long upper = i < this.words - 1 ? this.bits[start + i + 1] << 63 : 0;
+                dilated[start + i] = word | (word << 1) | lower | (word >>> 1) | upper;
+            }
+
+            // nothing must be dilated beyond the right border
+            if ((this.width & 63) != 0) dilated[start + this.words - 1] &= -1L >>> (64 - (this.width & 63));
+        }
+
+        // a stem pixel needs a dilated pixel above, at and below its position
+        for (int y = 1; y < this.height - 1; y++) {
+            int start = y * this.words;
+            for (int i = 0; i < this.words; i++)
+                stems.bits[start + i] = dilated[start + i - this.words] & dilated[start + i] & dilated[start + i + this.words];
+        }
+
+        return stems;
+    }
+}
@@ -18,71 +18,10 @@ package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
 
 import javax.imageio.ImageIO;
 
-/**
- * Two dimensional box
- */
-@SuppressWarnings("all")
-class TextRegion {
-    int x1;
-    int y1;
-    int x2;
-    int y2;
-    double mass;
-
-    /**
-     * Creates a new <code>TextRegion</code> instance.
-     *
-     * @param xs an <code>int</code> value
-     * @param ys an <code>int</code> value
-     * @param xe an <code>int</code> value
-     * @param ye an <code>int</code> value
-     * @param maxx an <code>int</code> value
-     * @param maxy an <code>int</code> value
-     */
-    TextRegion(int xs, int ys, int xe, int ye, int maxx, int maxy, double m) {
-        if (xs < 0) x1 = 0;
-        else if (xs > maxx) x1 = maxx;
-        else
-            x1 = xs;
-        if (xe < 0) x2 = 0;
-        else if (xe > maxx) x2 = maxx;
-        else
-            x2 = xe;
-        if (ys < 0) y1 = 0;
-        else if (ys > maxy) y1 = maxy;
-        else
-            y1 = ys;
-        if (ye < 0) y2 = 0;
-        else if (ye > maxy) y2 = maxy;
-        else
-            y2 = ye;
-        mass = m;
-    }
-
-    int area() {
-        return width() * height();
-    }
-
-    int height() {
-        return y2 - y1;
-    }
-
-    int width() {
-        return x2 - x1;
-    }
-
-    double density() {
-        return mass / area();
-    }
-
-    double aspect() {
-        return (double) height() / (double) width();
-    }
-}
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
 
 /**
  * Get text from images
@@ -91,7 +30,7 @@ class TextRegion {
  */
 @SuppressWarnings("all")
 public class GetImageText {
-    private BufferedImage image;
+    private LuminanceFrame frame;
 
     // modified by Christoph Käding
     private int letterHeight;
@@ -109,17 +48,17 @@ public class GetImageText {
     private BufferedImage contrastjpg;
 
     // modified by Christoph Käding
-    private LinkedList storedBoxes;
+    private TextBoxes storedBoxes;
 
     // modified by Christoph Käding
-    private int [][] storedContrast;
+    private ContrastMap storedContrast;
 
     /**
      * Default constructor
      * @param img The image containing text
      */
     public GetImageText(BufferedImage img) {
-        image = img;
+        frame = LuminanceFrame.fromImage(img);
         merge_densityFactor = 0.5;
         merge_mass = 15;
         merge_dist1 = 4;
@@ -130,7 +69,7 @@ public class GetImageText {
         this.stemSize = 70;
         this.letterHeight = 10;
         this.sensitivity = 1.5;
-        this.storedBoxes = new LinkedList<TextRegion>();
+        this.storedBoxes = new TextBoxes();
     }
 
     /**
@@ -138,7 +77,7 @@ public class GetImageText {
      */
     public GetImageText(BufferedImage img, double m_densityFactor, int m_mass,
                         int m_dist1, double m_distfac, int m_dist2) {
-        image = img;
+        frame = LuminanceFrame.fromImage(img);
         merge_densityFactor = m_densityFactor;
         merge_mass = m_mass;
         merge_dist1 = m_dist1;
@@ -150,7 +89,7 @@ public class GetImageText {
         this.letterHeight = 10;
         this.lineSize = 100;
         this.sensitivity = 1.5;
-        this.storedBoxes = new LinkedList<TextRegion>();
+        this.storedBoxes = new TextBoxes();
     }
 
     /**
@@ -171,11 +110,28 @@ public class GetImageText {
      */
     public GetImageText(BufferedImage img, int letterHeight, int lineSize,
                         double sensitivity) {
-        this.image = img;
+        this.frame = LuminanceFrame.fromImage(img);
         this.letterHeight = letterHeight;
         this.lineSize = lineSize;
         this.sensitivity = sensitivity;
-        this.storedBoxes = new LinkedList<TextRegion>();
+        this.storedBoxes = new TextBoxes();
+    }
+
+    /**
+     * Constructor which works directly on the pixels of the given frame
+     * 
+     * @param frame 
+     * @param letterHeight 
+     * @param lineSize 
+     * @param sensitivity 
+     */
+    public GetImageText(LuminanceFrame frame, int letterHeight, int lineSize,
+                        double sensitivity) {
+        this.frame = frame;
+        this.letterHeight = letterHeight;
+        this.lineSize = lineSize;
+        this.sensitivity = sensitivity;
+        this.storedBoxes = new TextBoxes();
     }
 
     /**
@@ -206,34 +162,50 @@ public class GetImageText {
     }
 
     // modified by Christoph Käding
+    /**
+     * The image is only built on the first request, the detection itself works on the contrast map.
+     * 
+     * @return contrast map of the last getTextBoxes() call as black and white image
+     */
     public BufferedImage getContrastImage() {
+        if ((this.contrastjpg == null) && (this.storedContrast != null)) {
+            this.contrastjpg = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_RGB);
+            for (int j = 0; j < frame.getHeight(); j++)
+                for (int i = 0; i < frame.getWidth(); i++)
+                    if (this.storedContrast.get(i, j) != 0) this.contrastjpg.setRGB(i, j, 0xffffff);
+        }
         return this.contrastjpg;
     }
 
+    /**
+     * @return contrast map of the last getTextBoxes() call
+     */
+    public ContrastMap getContrastMap() {
+        return this.storedContrast;
+    }
+
     /**
      * Discard boxes that do not appear to contain text
      */
-    LinkedList discardNonText(LinkedList boxes, int[][] contrast) {
+    TextBoxes discardNonText(TextBoxes boxes, ContrastMap contrast) {
+        // pixels which have contrast in their neighbourhood above, at and below them
+        SummedAreaTable stems = contrast.getStemTable();
         int i = 0;
         while (i < boxes.size()) {
             int numberOfStems = 0;
-            TextRegion thisBox = (TextRegion) boxes.get(i);
             // Count the stems in this box
-            if (thisBox.y1 != thisBox.y2) {
-                for (int a = thisBox.x1 + 1; a < thisBox.x2 - 1; a++) {
-                    int thisStemHeight = 0;
-                    for (int b = thisBox.y1 + 1; b < thisBox.y2 - 1; b++)
-                        if ((contrast[a][b] != 0 || contrast[a - 1][b] != 0 || contrast[a + 1][b] != 0) && (contrast[a][b - 1] != 0 || contrast[a - 1][b - 1] != 0 || contrast[a + 1][b - 1] != 0) && (contrast[a][b + 1] != 0 || contrast[a - 1][b + 1] != 0 || contrast[a + 1][b + 1] != 0))
-                            thisStemHeight++;
+            if (boxes.y1(i) != boxes.y2(i)) {
+                for (int a = boxes.x1(i) + 1; a < boxes.x2(i) - 1; a++) {
+                    int thisStemHeight = stems.column(a, boxes.y1(i) + 1, boxes.y2(i) - 1);
                     //a stem must cover at least 70% of a vertical line
                     // modified by Christoph Käding
-                    if ((100 * thisStemHeight) / thisBox.height() > this.stemSize)
+                    if ((100 * thisStemHeight) / boxes.height(i) > this.stemSize)
                         numberOfStems++;
                 }
             }
-            if (thisBox.area() < 50 || thisBox.aspect() > .2 || thisBox.height() < 5 || thisBox.width() < 20
+            if (boxes.area(i) < 50 || boxes.aspect(i) > .2 || boxes.height(i) < 5 || boxes.width(i) < 20
             // expect at least one stem for every <height> of <width>
-            || numberOfStems < thisBox.width() / thisBox.height()) boxes.remove(i--);
+            || numberOfStems < boxes.width(i) / boxes.height(i)) boxes.remove(i--);
             i++;
         }
         return (boxes);
@@ -242,29 +214,27 @@ public class GetImageText {
     /**
      * Shrink each box as much as possible
      */
-    LinkedList shrink(LinkedList boxes, int[][] contrast) {
+    TextBoxes shrink(TextBoxes boxes, ContrastMap contrast) {
+        SummedAreaTable table = contrast.getTable();
         int i = 0;
         while (i < boxes.size()) {
-            TextRegion thisBox = (TextRegion) boxes.get(i);
-            if (thisBox.x1 != thisBox.x2 && thisBox.y1 != thisBox.y2) {
-                int total = 0;
-                for (int a = thisBox.x1; a < thisBox.x2; a++)
-                    for (int b = thisBox.y1; b < thisBox.y2; b++)
-                        total += contrast[a][b];
-                double averagex = total / thisBox.height();
-                double averagey = total / thisBox.width();
-                int newx1 = thisBox.x1;
-                int newx2 = thisBox.x2;
-                int newy1 = thisBox.y1;
-                int newy2 = thisBox.y2;
+            int x1 = boxes.x1(i);
+            int x2 = boxes.x2(i);
+            int y1 = boxes.y1(i);
+            int y2 = boxes.y2(i);
+            if (x1 != x2 && y1 != y2) {
+                int total = table.sum(x1, y1, x2, y2);
+                double averagex = total / boxes.height(i);
+                double averagey = total / boxes.width(i);
+                int newx1 = x1;
+                int newx2 = x2;
+                int newy1 = y1;
+                int newy2 = y2;
                 boolean moved = true;
                 while (newx1 < newx2 && moved) {
                     moved = false;
-                    int t1 = 0, t2 = 0;
-                    for (int b = thisBox.y1; b < thisBox.y2; b++) {
-                        t1 += contrast[newx1][b];
-                        t2 += contrast[newx2][b];
-                    }
+                    int t1 = table.column(newx1, y1, y2);
+                    int t2 = table.column(newx2, y1, y2);
                     if (t1 < averagey) {
                         newx1++;
                         moved = true;
@@ -277,11 +247,8 @@ public class GetImageText {
                 moved = true;
                 while (newy1 < newy2 && moved) {
                     moved = false;
-                    int t1 = 0, t2 = 0;
-                    for (int a = thisBox.x1; a < thisBox.x2; a++) {
-                        t1 += contrast[a][newy1];
-                        t2 += contrast[a][newy2];
-                    }
+                    int t1 = table.line(newy1, x1, x2);
+                    int t2 = table.line(newy2, x1, x2);
                     if (t1 < averagex) {
                         newy1++;
                         moved = true;
@@ -291,10 +258,7 @@ public class GetImageText {
                         moved = true;
                     }
                 }
-                thisBox.x1 = newx1;
-                thisBox.x2 = newx2;
-                thisBox.y1 = newy1;
-                thisBox.y2 = newy2;
+                boxes.setBounds(i, newx1, newy1, newx2, newy2);
             }
             i++;
         }
@@ -307,153 +271,173 @@ public class GetImageText {
     public double merge_distfac;
     public int merge_dist2;
 
-    LinkedList merge(LinkedList boxes) {
-        boolean change = true;
-        while (change == true) {
-            change = false;
-            int i = 0;
-            while (i < boxes.size()) {
-                int j = 0;
-                while (i < boxes.size() && j < boxes.size()) {
-                    if (i != j) {
-                        TextRegion thisBox = (TextRegion) boxes.get(i);
-                        TextRegion thatBox = (TextRegion) boxes.get(j);
-                        change = merge(thisBox, thatBox);
-                        if (change) {
-                            boxes.set(i, thisBox);
-                            boxes.remove(j);
-                            j--;
-                        }
-                    }
-                    j++;
-                }
-                i++;
-            }
-        }
-        return (boxes);
+    /**
+     * Merges boxes until no pair fits the merge criterion anymore. Vertically distant boxes
+     * are only tested if they can merge without a distance reason, see BoxMerger.
+     */
+    TextBoxes merge(TextBoxes boxes) {
+        return new BoxMerger(this, boxes, frame.getHeight()).merge();
     }
 
-    boolean merge(TextRegion thisBox, TextRegion thatBox) {
-        int mergex1 = Math.min(thisBox.x1, thatBox.x1);
-        int mergex2 = Math.max(thisBox.x2, thatBox.x2);
-        int mergey1 = Math.min(thisBox.y1, thatBox.y1);
-        int mergey2 = Math.max(thisBox.y2, thatBox.y2);
-        double mergemass = thisBox.mass + thatBox.mass;
-        double mergedensity = mergemass / ((mergex2 - mergex1) * (mergey2 - mergey1));
-        double mergeaspect = ((double) mergey2 - mergey1) / ((double) mergex2 - mergex1);
-
-        double reasonsToMerge = 0;
-        if (mergedensity > merge_densityFactor * thisBox.density()) reasonsToMerge++;
-        if (mergedensity > merge_densityFactor * thatBox.density()) reasonsToMerge++;
-        if (mergeaspect < thisBox.aspect()) reasonsToMerge++;
-        if (mergeaspect < thatBox.aspect()) reasonsToMerge++;
-        if (thisBox.mass > merge_mass && thatBox.mass > merge_mass) reasonsToMerge++;
-        int maxboxwidth = Math.max(thisBox.width(), thatBox.width());
-        if (Math.abs(thisBox.y1 - thatBox.y1) < merge_dist1 && Math.abs(thisBox.y2 - thatBox.y1) < merge_dist1 && (Math.abs(thisBox.x1 - thatBox.x2) < merge_distfac * maxboxwidth || Math.abs(thisBox.x2 - thatBox.x1) < merge_distfac * maxboxwidth))
+    /**
+     * Merges the second box into the first one if the criterion is fulfilled.
+     * The second box is not removed from the table.
+     *
+     * @return true if the boxes were merged
+     */
+    boolean merge(TextBoxes boxes, int thisBox, int thatBox) {
+        int mergex1 = Math.min(boxes.x1(thisBox), boxes.x1(thatBox));
+        int mergex2 = Math.max(boxes.x2(thisBox), boxes.x2(thatBox));
+        int mergey1 = Math.min(boxes.y1(thisBox), boxes.y1(thatBox));
+        int mergey2 = Math.max(boxes.y2(thisBox), boxes.y2(thatBox));
+        double mergemass = boxes.mass(thisBox) + boxes.mass(thatBox);
+
+        double reasonsToMerge = reasonsWithoutDistance(boxes, thisBox, thatBox);
+        int maxboxwidth = Math.max(boxes.width(thisBox), boxes.width(thatBox));
+        if (Math.abs(boxes.y1(thisBox) - boxes.y1(thatBox)) < merge_dist1 && Math.abs(boxes.y2(thisBox) - boxes.y1(thatBox)) < merge_dist1 && (Math.abs(boxes.x1(thisBox) - boxes.x2(thatBox)) < merge_distfac * maxboxwidth || Math.abs(boxes.x2(thisBox) - boxes.x1(thatBox)) < merge_distfac * maxboxwidth))
             reasonsToMerge++;
-        if ((Math.abs(thisBox.y1 - thatBox.y1) < merge_dist2 || Math.abs(thisBox.y2 - thatBox.y2) < merge_dist2) && (Math.abs(thisBox.x1 - thatBox.x2) < merge_distfac * maxboxwidth || Math.abs(thisBox.x2 - thatBox.x1) < merge_distfac * maxboxwidth))
+        if ((Math.abs(boxes.y1(thisBox) - boxes.y1(thatBox)) < merge_dist2 || Math.abs(boxes.y2(thisBox) - boxes.y2(thatBox)) < merge_dist2) && (Math.abs(boxes.x1(thisBox) - boxes.x2(thatBox)) < merge_distfac * maxboxwidth || Math.abs(boxes.x2(thisBox) - boxes.x1(thatBox)) < merge_distfac * maxboxwidth))
             reasonsToMerge++;
         if (reasonsToMerge > 3) { // 7 reasons max
-            thisBox.x1 = mergex1;
-            thisBox.x2 = mergex2;
-            thisBox.y1 = mergey1;
-            thisBox.y2 = mergey2;
-            thisBox.mass = mergemass;
+            boxes.setBounds(thisBox, mergex1, mergey1, mergex2, mergey2);
+            boxes.setMass(thisBox, mergemass);
             return true;
         }
         return false;
     }
 
-    int[][] getContrast() {
-        // Find pixels that stand out from the background
-        int[][] contrast = new int[image.getWidth()][image.getHeight()];
-        int[][] temp = new int[image.getWidth()][image.getHeight()];
-        for (int i = 2; i < image.getWidth() - 2; i++)
-            for (int j = 2; j < image.getHeight() - 2; j++) {
-                int thisPixel = image.getRGB(i, j);
-                int left = image.getRGB(i - 1, j);
-                int left2 = image.getRGB(i - 2, j);
-                int right = image.getRGB(i + 1, j);
-                int right2 = image.getRGB(i + 2, j);
-                int up = image.getRGB(i, j - 1);
-                int down = image.getRGB(i, j + 1);
-                int t1 = 60; // thresholds
-                int t2 = 80;
-                if (Math.abs(blue(thisPixel) - blue(right)) > t1 || Math.abs(blue(thisPixel) - blue(left)) > t1 || Math.abs(blue(thisPixel) - blue(down)) > t1 || Math.abs(blue(thisPixel) - blue(up)) > t1 || Math.abs(blue(thisPixel) - blue(right2)) > t2 || Math.abs(blue(thisPixel) - blue(left2)) > t2 || Math.abs(green(thisPixel) - green(right)) > t1 || Math.abs(green(thisPixel) - green(left)) > t1 || Math.abs(green(thisPixel) - green(down)) > t1 || Math.abs(green(thisPixel) - green(up)) > t1 || Math.abs(green(thisPixel) - green(right2)) > t2 || Math.abs(green(thisPixel) - green(left2)) > t2 || Math.abs(red(thisPixel) - red(right)) > t1 || Math.abs(red(thisPixel) - red(left)) > t1 || Math.abs(red(thisPixel) - red(down)) > t1 || Math.abs(red(thisPixel) - red(up)) > t1 || Math.abs(red(thisPixel) - red(right2)) > t2 || Math.abs(red(thisPixel) - red(left2)) > t2)
-                    temp[i][j] = 1;
+    /**
+     * Counts the reasons of merge(TextBoxes, int, int) which do not depend on the distance of
+     * the boxes: both densities, both aspects and the mass. The count is symmetric in the boxes.
+     *
+     * @return number of fulfilled reasons, 0 .. 5
+     */
+    int reasonsWithoutDistance(TextBoxes boxes, int thisBox, int thatBox) {
+        int mergex1 = Math.min(boxes.x1(thisBox), boxes.x1(thatBox));
+        int mergex2 = Math.max(boxes.x2(thisBox), boxes.x2(thatBox));
+        int mergey1 = Math.min(boxes.y1(thisBox), boxes.y1(thatBox));
+        int mergey2 = Math.max(boxes.y2(thisBox), boxes.y2(thatBox));
+        double mergemass = boxes.mass(thisBox) + boxes.mass(thatBox);
+        double mergedensity = mergemass / ((mergex2 - mergex1) * (mergey2 - mergey1));
+        double mergeaspect = ((double) mergey2 - mergey1) / ((double) mergex2 - mergex1);
+
+        int reasons = 0;
+        if (mergedensity > merge_densityFactor * boxes.density(thisBox)) reasons++;
+        if (mergedensity > merge_densityFactor * boxes.density(thatBox)) reasons++;
+        if (mergeaspect < boxes.aspect(thisBox)) reasons++;
+        if (mergeaspect < boxes.aspect(thatBox)) reasons++;
+        if (boxes.mass(thisBox) > merge_mass && boxes.mass(thatBox) > merge_mass) reasons++;
+        return reasons;
+    }
+
+    /**
+     * true if any color channel of the two pixels differs by more than the threshold
+     */
+    static boolean differs(int thisPixel, int otherPixel, int threshold) {
+        return Math.abs((thisPixel & 0xff) - (otherPixel & 0xff)) > threshold || Math.abs(((thisPixel >> 8) & 0xff) - ((otherPixel >> 8) & 0xff)) > threshold || Math.abs(((thisPixel >> 16) & 0xff) - ((otherPixel >> 16) & 0xff)) > threshold;
+    }
+
+    /**
+     * Number of consecutive steps k, starting at 0, for which the pixel k before or k after the
+     * given index is set. Every step below the longest run of set pixels on one side is set
+     * for sure, so the pairwise scan only starts behind it. The result is capped at limit.
+     */
+    static int symmetricRun(byte[] temp, int index, int step, int before, int after, int limit) {
+        int k = Math.min(Math.max(before, after), limit);
+        while (k < limit && (temp[index + k * step] != 0 || temp[index - k * step] != 0))
+            k++;
+        return k;
+    }
+
+    ContrastMap getContrast() {
+        int w = frame.getWidth();
+        int h = frame.getHeight();
+        int[] pixels = frame.getPixels();
+        int stride = frame.getStride();
+        int t1 = 60; // thresholds
+        int t2 = 80;
+
+        // Find pixels that stand out from the background, row-major on the packed raster.
+        // up[] holds the number of set pixels directly above and including each pixel.
+        byte[] temp = new byte[w * h];
+        int[] up = new int[w * h];
+        for (int j = 2; j < h - 2; j++) {
+            int line = frame.getOffset() + j * stride;
+            for (int i = 2; i < w - 2; i++) {
+                int thisPixel = pixels[line + i];
+                if (differs(thisPixel, pixels[line + i + 1], t1) || differs(thisPixel, pixels[line + i - 1], t1) || differs(thisPixel, pixels[line + i + stride], t1) || differs(thisPixel, pixels[line + i - stride], t1) || differs(thisPixel, pixels[line + i + 2], t2) || differs(thisPixel, pixels[line + i - 2], t2)) {
+                    temp[j * w + i] = 1;
+                    up[j * w + i] = up[(j - 1) * w + i] + 1;
+                }
             }
+        }
+
         // Look for areas of contrast that extend vertically and horizontally
-        // but not too far, to eliminate long straight lines (e.g. borders)
-        for (int j = 2; j < image.getHeight() - 2; j++)
-            for (int i = 2; i < image.getWidth() - 2; i++)
-                if (temp[i][j] == 1) {
-                    int width = 0;
-                    int height = 0;
-                    // modified by Christoph Käding
-                    for (int k = 0; i + k < image.getWidth() - 2 && i - k > 2 && (temp[i + k][j] == 1 || temp[i - k][j] == 1) && width++ < this.lineSize; k++)
-                        ;
-                    // modified by Christoph Käding
-                    for (int k = 0; j + k < image.getHeight() - 2 && j - k > 2 && (temp[i][j + k] == 1 || temp[i][j - k] == 1) && height++ < this.lineSize; k++)
-                        ;
-                    int totalOnLine = 0;
-                    for (int k = Math.max(2, i - 40); k < Math.min(image.getWidth() - 2, i + 40); k++)
-                        totalOnLine += temp[k][j];
+        // but not too far, to eliminate long straight lines (e.g. borders).
+        // Rows are visited bottom-up so down[] can be carried along from the row below.
+        ContrastMap contrast = new ContrastMap(w, h);
+        int[] down = new int[w];
+        int[] left = new int[w];
+        int[] right = new int[w];
+        int[] prefix = new int[w + 1];
+        for (int j = h - 3; j >= 2; j--) {
+            int row = j * w;
+
+            // running counts of this line: prefix sums and run lengths in both directions
+            for (int i = 0; i < w; i++) {
+                prefix[i + 1] = prefix[i] + temp[row + i];
+                left[i] = temp[row + i] == 0 ? 0 : (i > 0 ? left[i - 1] : 0) + 1;
+                down[i] = temp[row + i] == 0 ? 0 : down[i] + 1;
+            }
+            for (int i = w - 1; i >= 0; i--)
+                right[i] = temp[row + i] == 0 ? 0 : (i < w - 1 ? right[i + 1] : 0) + 1;
+
+            for (int i = 2; i < w - 2; i++)
+                if (temp[row + i] == 1) {
+                    int totalOnLine = prefix[Math.min(w - 2, i + 40)] - prefix[Math.max(2, i - 40)];
+                    if (totalOnLine <= 7) continue;
                     // modified by Christoph Käding
-                    if (totalOnLine > 7 && width < this.lineSize && height < this.lineSize)
-                        contrast[i][j] = 1;
+                    int width = symmetricRun(temp, row + i, 1, left[i], right[i], Math.min(Math.min(w - 2 - i, i - 2), this.lineSize));
+                    if (width >= this.lineSize) continue;
+                    int height = symmetricRun(temp, row + i, w, up[row + i], down[i], Math.min(Math.min(h - 2 - j, j - 2), this.lineSize));
+                    if (height < this.lineSize) contrast.set(i, j);
                 }
+        }
         return contrast;
     }
 
     /**
      * Looks for areas of text in an image.
-     * @return a LinkedList of boxes that are likely to contain text.
+     * @return a table of boxes that are likely to contain text.
      */
-    public LinkedList getTextBoxes() {
-        LinkedList boxes = new LinkedList();
+    public TextBoxes getTextBoxes() {
+        TextBoxes boxes = new TextBoxes();
 
-        int[][] contrast = getContrast();
+        ContrastMap contrast = getContrast();
 
-        try {
-            // modified by Christoph Käding
-            //            FileOutputStream out = new FileOutputStream( "contrast.jpg" );
-            //            JPEGImageEncoder encoder = JPEGCodec.createJPEGEncoder( out );
-            this.contrastjpg = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
-            for (int i = 0; i < image.getWidth(); i++)
-                for (int j = 0; j < image.getHeight(); j++)
-                    this.contrastjpg.setRGB(i, j, 0xffffff * contrast[i][j]);
-            //            encoder.encode( contrastjpg );
-            //            out.close();
-            //            ImageIO.write(contrastjpg, "png", new File("./tmp/" + System.currentTimeMillis() + "_area_contranst.png"));
-        } catch (Exception e) {
-            System.out.println("Exception: " + e);
-        }
+        // modified by Christoph Käding
+        // the contrast image is only built on request, see getContrastImage()
+        this.contrastjpg = null;
 
-        int contrastOnLine[] = new int[image.getHeight()];
-        for (int j = 1; j < image.getHeight() - 1; j++) {
-            int count = 0;
-            contrastOnLine[j] = 0;
-            for (int a = 0; a < image.getWidth(); a++) {
-                count += contrast[a][j];
-                contrastOnLine[j] += contrast[a][j];
-            }
-        }
-        for (int j = 1; j < image.getHeight() - 1; j++)
+        int contrastOnLine[] = new int[frame.getHeight()];
+        for (int j = 1; j < frame.getHeight() - 1; j++)
+            contrastOnLine[j] = contrast.countLine(j);
+        for (int j = 1; j < frame.getHeight() - 1; j++)
             contrastOnLine[j] = (contrastOnLine[j - 1] + contrastOnLine[j] + contrastOnLine[j + 1]) / 3;
-        for (int j = 1; j < image.getHeight() - 1; j++)
+        for (int j = 1; j < frame.getHeight() - 1; j++)
             contrastOnLine[j] = (contrastOnLine[j - 1] + contrastOnLine[j] + contrastOnLine[j + 1]) / 3;
         // modified by Christoph Käding
         double averageOnLine = 0;
-        for (int j = 1; j < image.getHeight() - 1; j++)
+        for (int j = 1; j < frame.getHeight() - 1; j++)
             averageOnLine += contrastOnLine[j];
-        averageOnLine /= (image.getHeight() - 2);
+        averageOnLine /= (frame.getHeight() - 2);
         // modified by Christoph Käding
         averageOnLine = averageOnLine / this.sensitivity;
         boolean intext = false;
         int boxstart = 0;
         int boxaverage = 0;
         int boxlines = 0;
-        for (int j = 1; j < image.getHeight() - 1; j++) {
+        for (int j = 1; j < frame.getHeight() - 1; j++) {
             if (contrastOnLine[j] > averageOnLine && !intext) {
                 intext = true;
                 boxstart = j;
@@ -470,21 +454,21 @@ public class GetImageText {
                 if (boxend - boxstart > this.letterHeight) {
                     // text must be higher than 10 pixels
                     boxaverage /= boxlines;
-                    int contrastOnColumn[] = new int[image.getWidth()];
-                    for (int i = 1; i < image.getWidth() - 1; i++)
-                        for (int b = boxstart; b < boxend; b++)
-                            contrastOnColumn[i] += contrast[i][b];
-                    for (int i = 1; i < image.getWidth() - 1; i++)
+                    int contrastOnColumn[] = new int[frame.getWidth()];
+                    contrast.projectColumns(boxstart, boxend, contrastOnColumn);
+                    contrastOnColumn[0] = 0;
+                    contrastOnColumn[frame.getWidth() - 1] = 0;
+                    for (int i = 1; i < frame.getWidth() - 1; i++)
                         contrastOnColumn[i] = (contrastOnColumn[i - 1] + contrastOnColumn[i] + contrastOnColumn[i + 1]) / 3;
-                    for (int i = 1; i < image.getWidth() - 1; i++)
+                    for (int i = 1; i < frame.getWidth() - 1; i++)
                         contrastOnColumn[i] = (contrastOnColumn[i - 1] + contrastOnColumn[i] + contrastOnColumn[i + 1]) / 3;
                     int averageOnColumn = 0;
-                    for (int i = 1; i < image.getWidth() - 1; i++)
+                    for (int i = 1; i < frame.getWidth() - 1; i++)
                         averageOnColumn += contrastOnColumn[i];
-                    averageOnColumn /= (image.getWidth() - 2);
+                    averageOnColumn /= (frame.getWidth() - 2);
                     boolean intextx = false;
                     int boxstartx = 0;
-                    for (int i = 1; i < image.getWidth() - 1; i++) {
+                    for (int i = 1; i < frame.getWidth() - 1; i++) {
                         if (contrastOnColumn[i] > averageOnColumn / 2 && !intextx) {
                             intextx = true;
                             boxstartx = i;
@@ -498,18 +482,15 @@ public class GetImageText {
                             int tempboxstart = boxstart;
                             int tempboxend = boxend;
                             while (tempboxstart < boxend && newcount == 0) {
-                                for (int a = boxstartx; a < boxendx; a++)
-                                    newcount += contrast[a][tempboxstart];
+                                newcount += contrast.countLine(tempboxstart, boxstartx, boxendx);
                                 if (newcount < 2) tempboxstart++;
                             }
                             newcount = 0;
                             while (tempboxstart < boxend && newcount == 0) {
-                                for (int a = boxstartx; a < boxendx; a++)
-                                    newcount += contrast[a][tempboxend];
+                                newcount += contrast.countLine(tempboxend, boxstartx, boxendx);
                                 if (newcount < 2) tempboxend--;
                             }
-                            TextRegion thisBox = new TextRegion(boxstartx, tempboxstart, boxendx, tempboxend, image.getWidth(), image.getHeight(), boxaverage);
-                            boxes.add(thisBox);
+                            boxes.add(boxstartx, tempboxstart, boxendx, tempboxend, frame.getWidth(), frame.getHeight(), boxaverage);
                         }
                     }
                 }
@@ -536,7 +517,7 @@ public class GetImageText {
      * 
      * @return the shrinked text boxes
      */
-    public LinkedList<TextRegion> getShrinkedBoxes() {
+    public TextBoxes getShrinkedBoxes() {
         return this.shrink(this.storedBoxes, this.storedContrast);
     }
     
@@ -544,41 +525,39 @@ public class GetImageText {
      * Isolate text
      * @return a <code>BufferedImage</code> value
      */
-    public BufferedImage isolateText(LinkedList boxes) {
-        BufferedImage outputimage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+    public BufferedImage isolateText(TextBoxes boxes) {
+        BufferedImage outputimage = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_RGB);
         // make everything monochrome
-        for (int a = 0; a < image.getWidth(); a++)
-            for (int b = 0; b < image.getHeight(); b++) {
-                int colour = image.getRGB(a, b);
+        for (int a = 0; a < frame.getWidth(); a++)
+            for (int b = 0; b < frame.getHeight(); b++) {
+                int colour = frame.rgb(a, b);
                 int average = (red(colour) + green(colour) + blue(colour)) / 3;
                 outputimage.setRGB(a, b, rgb(average, average, average));
             }
         // fill text boxes with colour
         for (int i = 0; i < boxes.size(); i++) {
-            TextRegion thisBox = (TextRegion) boxes.get(i);
-            int x1 = Math.max(1, thisBox.x1);
-            int x2 = Math.min(image.getWidth() - 2, thisBox.x2);
-            int y1 = Math.max(1, thisBox.y1);
-            int y2 = Math.min(image.getHeight() - 2, thisBox.y2);
+            int x1 = Math.max(1, boxes.x1(i));
+            int x2 = Math.min(frame.getWidth() - 2, boxes.x2(i));
+            int y1 = Math.max(1, boxes.y1(i));
+            int y2 = Math.min(frame.getHeight() - 2, boxes.y2(i));
             for (int a = x1; a < x2; a++)
                 for (int b = y1; b < y2; b++)
-                    outputimage.setRGB(a, b, image.getRGB(a, b));
+                    outputimage.setRGB(a, b, frame.rgb(a, b));
         }
         // draw red border around each text box
         int RED = 0xff0000;
         for (int i = 0; i < boxes.size(); i++) {
-            TextRegion thisBox = (TextRegion) boxes.get(i);
-            int x1 = Math.max(1, thisBox.x1);
-            int x2 = Math.min(image.getWidth() - 2, thisBox.x2);
-            int y1 = Math.max(1, thisBox.y1);
-            int y2 = Math.min(image.getHeight() - 2, thisBox.y2);
+            int x1 = Math.max(1, boxes.x1(i));
+            int x2 = Math.min(frame.getWidth() - 2, boxes.x2(i));
+            int y1 = Math.max(1, boxes.y1(i));
+            int y2 = Math.min(frame.getHeight() - 2, boxes.y2(i));
             for (int a = x1; a < x2; a++) {
-                outputimage.setRGB(a, thisBox.y1, RED);
-                outputimage.setRGB(a, thisBox.y2, RED);
+                outputimage.setRGB(a, boxes.y1(i), RED);
+                outputimage.setRGB(a, boxes.y2(i), RED);
             }
             for (int a = y1; a < y2; a++) {
-                outputimage.setRGB(thisBox.x1, a, RED);
-                outputimage.setRGB(thisBox.x2, a, RED);
+                outputimage.setRGB(boxes.x1(i), a, RED);
+                outputimage.setRGB(boxes.x2(i), a, RED);
             }
         }
         return (outputimage);
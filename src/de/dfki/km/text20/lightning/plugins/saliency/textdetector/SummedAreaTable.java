@@ -0,0 +1,100 @@
+/*
+ * SummedAreaTable.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
+
+/**
+ * Integral image of a contrast map. Each entry holds the number of marked pixels above and left of
+ * it, so the number of marked pixels inside any rectangle is available with four lookups.
+ */
+public class SummedAreaTable {
+
+    /** width of the underlying map */
+    private final int width;
+
+    /** height of the underlying map */
+    private final int height;
+
+    /** sums with one additional line and column of zeros, (width + 1) * (height + 1) entries */
+    private final int[] sums;
+
+    /**
+     * builds the table of the given map with one pass
+     *
+     * @param map
+     */
+    public SummedAreaTable(ContrastMap map) {
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.sums = new int[(this.width + 1) * (this.height + 1)];
+
+        int stride = this.width + 1;
+        for (int y = 0; y < this.height; y++) {
+            int line = 0;
+            int above = y * stride;
+            int current = above + stride;
+            for (int x = 0; x < this.width; x++) {
+                line += map.get(x, y);
+                this.sums[current + x + 1] = this.sums[above + x + 1] + line;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of marked pixels inside the given rectangle. The rectangle is clipped
+     * to the map, empty rectangles return 0.
+     *
+     * @param x1 first column (inclusive)
+     * @param y1 first line (inclusive)
+     * @param x2 last column (exclusive)
+     * @param y2 last line (exclusive)
+     * @return number of marked pixels
+     */
+    public int sum(int x1, int y1, int x2, int y2) {
+        x1 = Math.max(0, x1);
+        y1 = Math.max(0, y1);
+        x2 = Math.min(this.width, x2);
+        y2 = Math.min(this.height, y2);
+        if (x1 >= x2 || y1 >= y2) return 0;
+
+        int stride = this.width + 1;
+        return this.sums[y2 * stride + x2] - this.sums[y1 * stride + x2] - this.sums[y2 * stride + x1] + this.sums[y1 * stride + x1];
+    }
+
+    /**
+     * @param x column
+     * @param y1 first line (inclusive)
+     * @param y2 last line (exclusive)
+     * @return number of marked pixels in the given part of the column
+     */
+    public int column(int x, int y1, int y2) {
+        return this.sum(x, y1, x + 1, y2);
+    }
+
+    /**
+     * @param y line
+     * @param x1 first column (inclusive)
+     * @param x2 last column (exclusive)
+     * @return number of marked pixels in the given part of the line
+     */
+    public int line(int y, int x1, int x2) {
+        return this.sum(x1, y, x2, y + 1);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * TextBoxes.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
+
+import java.util.Arrays;
+
+/**
+ * Growable table of two dimensional text boxes. The boxes are stored in parallel arrays instead of
+ * single objects and the summed area of all boxes is updated with every change. Removing a box
+ * moves the last box to its position, so the order of the boxes is not stable.
+ */
+public class TextBoxes {
+
+    /** left borders */
+    private int[] x1;
+
+    /** upper borders */
+    private int[] y1;
+
+    /** right borders */
+    private int[] x2;
+
+    /** lower borders */
+    private int[] y2;
+
+    /** contrast mass of each box */
+    private double[] mass;
+
+    /** number of stored boxes */
+    private int size;
+
+    /** summed area of all boxes */
+    private long area;
+
+    /**
+     * creates an empty table
+     */
+    public TextBoxes() {
+        this(16);
+    }
+
+    /**
+     * @param capacity initial number of boxes which can be stored without growing
+     */
+    public TextBoxes(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.x1 = new int[capacity];
+        this.y1 = new int[capacity];
+        this.x2 = new int[capacity];
+        this.y2 = new int[capacity];
+        this.mass = new double[capacity];
+        this.size = 0;
+        this.area = 0;
+    }
+
+    /**
+     * Adds a box, the coordinates are clipped to 0 .. maxx / maxy.
+     *
+     * @param xs left border
+     * @param ys upper border
+     * @param xe right border
+     * @param ye lower border
+     * @param maxx maximum x value
+     * @param maxy maximum y value
+     * @param m contrast mass
+     * @return index of the new box
+     */
+    public int add(int xs, int ys, int xe, int ye, int maxx, int maxy, double m) {
+        if (this.size == this.x1.length) {
+            int capacity = this.size * 2;
+            this.x1 = Arrays.copyOf(this.x1, capacity);
+            this.y1 = Arrays.copyOf(this.y1, capacity);
+            this.x2 = Arrays.copyOf(this.x2, capacity);
+            this.y2 = Arrays.copyOf(this.y2, capacity);
+            this.mass = Arrays.copyOf(this.mass, capacity);
+        }
+        int index = this.size++;
+        this.x1[index] = 0;
+        this.y1[index] = 0;
+        this.x2[index] = 0;
+        this.y2[index] = 0;
+        this.setBounds(index, clip(xs, maxx), clip(ys, maxy), clip(xe, maxx), clip(ye, maxy));
+        this.mass[index] = m;
+        return index;
+    }
+
+    /**
+     * @return value limited to 0 .. max
+     */
+    private static int clip(int value, int max) {
+        if (value < 0) return 0;
+        if (value > max) return max;
+        return value;
+    }
+
+    /**
+     * Removes the given box by moving the last box to its index.
+     *
+     * @param index
+     */
+    public void remove(int index) {
+        this.area -= this.area(index);
+        int last = --this.size;
+        this.x1[index] = this.x1[last];
+        this.y1[index] = this.y1[last];
+        this.x2[index] = this.x2[last];
+        this.y2[index] = this.y2[last];
+        this.mass[index] = this.mass[last];
+    }
+
+    /**
+     * removes all boxes
+     */
+    public void clear() {
+        this.size = 0;
+        this.area = 0;
+    }
+
+    /**
+     * changes the borders of the given box
+     *
+     * @param index
+     * @param xs left border
+     * @param ys upper border
+     * @param xe right border
+     * @param ye lower border
+     */
+    public void setBounds(int index, int xs, int ys, int xe, int ye) {
+        this.area -= this.area(index);
+        this.x1[index] = xs;
+        this.y1[index] = ys;
+        this.x2[index] = xe;
+        this.y2[index] = ye;
+        this.area += this.area(index);
+    }
+
+    /**
+     * @param index
+     * @param m new contrast mass
+     */
+    public void setMass(int index, double m) {
+        this.mass[index] = m;
+    }
+
+    /**
+     * @return number of boxes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return summed area of all boxes
+     */
+    public long getArea() {
+        return this.area;
+    }
+
+    /**
+     * @param index
+     * @return left border
+     */
+    public int x1(int index) {
+        return this.x1[index];
+    }
+
+    /**
+     * @param index
+     * @return upper border
+     */
+    public int y1(int index) {
+        return this.y1[index];
+    }
+
+    /**
+     * @param index
+     * @return right border
+     */
+    public int x2(int index) {
+        return this.x2[index];
+    }
+
+    /**
+     * @param index
+     * @return lower border
+     */
+    public int y2(int index) {
+        return this.y2[index];
+    }
+
+    /**
+     * @param index
+     * @return contrast mass
+     */
+    public double mass(int index) {
+        return this.mass[index];
+    }
+
+    /**
+     * @param index
+     * @return width of the box
+     */
+    public int width(int index) {
+        return this.x2[index] - this.x1[index];
+    }
+
+    /**
+     * @param index
+     * @return height of the box
+     */
+    public int height(int index) {
+        return this.y2[index] - this.y1[index];
+    }
+
+    /**
+     * @param index
+     * @return area of the box
+     */
+    public int area(int index) {
+        return this.width(index) * this.height(index);
+    }
+
+    /**
+     * @param index
+     * @return mass per area
+     */
+    public double density(int index) {
+        return this.mass[index] / this.area(index);
+    }
+
+    /**
+     * @param index
+     * @return height divided by width
+     */
+    public double aspect(int index) {
+        return (double) this.height(index) / (double) this.width(index);
+    }
+}
@@ -24,13 +24,13 @@ import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 
 import net.xeoh.plugins.base.annotations.PluginImplementation;
 import de.dfki.km.text20.lightning.plugins.PluginInformation;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
 import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
 import de.dfki.km.text20.lightning.plugins.saliency.textdetector.gui.TextDetectorConfigImpl;
 
@@ -58,9 +58,6 @@ public class TextDetector implements SaliencyDetector {
     /** text analyser */
     private GetImageText analyser;
 
-    /** text boxes inside the screen shot */
-    private LinkedList<TextRegion> boxes;
-
     /**
      * creates new instance and initializes its variables
      */
@@ -84,7 +81,6 @@ public class TextDetector implements SaliencyDetector {
         this.properties = TextDetectorProperties.getInstance();
         this.timeStamp = System.currentTimeMillis();
         this.worker = new TextDetectorWorker();
-        this.boxes = new LinkedList<TextRegion>();
     }
 
     /* (non-Javadoc)
@@ -100,32 +96,28 @@ public class TextDetector implements SaliencyDetector {
      */
     @Override
     public Point analyse(BufferedImage screenShot) {
+        return this.analyse(LuminanceFrame.fromImage(screenShot));
+    }
+
+    /* (non-Javadoc)
+     * @see de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector#analyse(de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame)
+     */
+    @Override
+    public Point analyse(LuminanceFrame frame) {
         // initialize variables
-        int textSize = 0;
-        double coverage = 0;
-        this.analyser = new GetImageText(screenShot, this.properties.getLetterHeight(), this.properties.getLineSize(), this.properties.getSenitivity());
+        this.analyser = new GetImageText(frame, this.properties.getLetterHeight(), this.properties.getLineSize(), this.properties.getSenitivity());
         
-        // get text boxes
-        for (Object textRegion : this.analyser.getTextBoxes()) {
-            if (textRegion instanceof TextRegion) {
-                this.boxes.add((TextRegion) textRegion);
-            }
-        }
+        // get text boxes, their area is summed up while they are found
+        TextBoxes boxes = this.analyser.getTextBoxes();
 
         // calculate coverage
-        for (TextRegion textRegion : this.boxes) {
-            textSize = textSize + textRegion.width() * textRegion.height();
-        }
-        coverage = ((double) 100 / (double) (screenShot.getWidth() * screenShot.getHeight())) * textSize;
+        double coverage = ((double) 100 / (double) (frame.getWidth() * frame.getHeight())) * boxes.getArea();
 
-        // reset boxes
-        this.boxes.clear();
-        
         // write image if debug is enabled
         if (this.properties.isDebug()) {
             try {
                 new File("./plugins/TextDetector/debug/Session_" + this.timeStamp).mkdirs();
-                ImageIO.write(this.analyser.isolateText(this.boxes), "png", new File("./plugins/TextDetector/debug/Session_" + this.timeStamp + "/" + System.currentTimeMillis() + "_TextDetectorDebug.png"));
+                ImageIO.write(this.analyser.isolateText(boxes), "png", new File("./plugins/TextDetector/debug/Session_" + this.timeStamp + "/" + System.currentTimeMillis() + "_TextDetectorDebug.png"));
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -133,9 +125,9 @@ public class TextDetector implements SaliencyDetector {
         
         // decide which method should be used and return its results
         if (coverage > this.properties.getThreshold()) {
-            return this.worker.textAnalyse(this.analyser.getShrinkedBoxes(), screenShot.getHeight());
+            return this.worker.textAnalyse(this.analyser.getShrinkedBoxes(), frame.getHeight());
         }
-        return this.worker.normalAnalyse(this.analyser.getContrastImage());
+        return this.worker.normalAnalyse(this.analyser.getContrastMap());
     }
 
     /* (non-Javadoc)
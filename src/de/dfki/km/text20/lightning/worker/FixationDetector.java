@@ -0,0 +1,195 @@
+/*
+ * FixationDetector.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker;
+
+/**
+ * Finds fixations in the raw gaze samples, so a fixation is known as soon as it lasted the minimum 
+ * duration and not only when the tracking library reports it. Two classifiers are available:
+ * I-VT accepts samples as long as the gaze moves slower than a given velocity, I-DT as long as 
+ * the samples fit into a given dispersion. Sums and bounds of the current window are updated with
+ * every sample, so each one needs constant time. A window which breaks the dispersion before it 
+ * lasted the minimum duration is restarted at the current sample.
+ */
+public class FixationDetector {
+
+    /** use the fixations of the tracking library */
+    public static final int LIBRARY = 0;
+
+    /** velocity threshold identification */
+    public static final int VELOCITY = 1;
+
+    /** dispersion threshold identification */
+    public static final int DISPERSION = 2;
+
+    /** result of add if nothing happened */
+    public static final int NONE = 0;
+
+    /** result of add if a fixation started */
+    public static final int START = 1;
+
+    /** result of add if the center of the current fixation was updated */
+    public static final int UPDATE = 2;
+
+    /** classifier, VELOCITY or DISPERSION */
+    private final int mode;
+
+    /** maximum gaze velocity in a fixation in pixel per millisecond */
+    private final double velocity;
+
+    /** maximum dispersion of a fixation in pixels, width plus height of the bounds */
+    private final int dispersion;
+
+    /** minimum duration of a fixation in milliseconds */
+    private final long duration;
+
+    /** indicates if there is a previous sample */
+    private boolean hasLast;
+
+    /** x coordinate of the previous sample */
+    private int lastX;
+
+    /** y coordinate of the previous sample */
+    private int lastY;
+
+    /** time of the previous sample */
+    private long lastTime;
+
+    /** number of samples in the current window */
+    private int count;
+
+    /** time of the first sample in the current window */
+    private long startTime;
+
+    /** sum of the x coordinates in the current window */
+    private long sumX;
+
+    /** sum of the y coordinates in the current window */
+    private long sumY;
+
+    /** bounds of the current window */
+    private int minX, maxX, minY, maxY;
+
+    /** indicates if the current window is already reported as fixation */
+    private boolean isFixation;
+
+    /**
+     * @param mode VELOCITY or DISPERSION
+     * @param velocity maximum gaze velocity in a fixation in pixel per millisecond, used by VELOCITY
+     * @param dispersion maximum width plus height of a fixation in pixels, used by DISPERSION
+     * @param duration minimum duration of a fixation in milliseconds
+     */
+    public FixationDetector(int mode, double velocity, int dispersion, int duration) {
+        this.mode = mode;
+        this.velocity = velocity;
+        this.dispersion = dispersion;
+        this.duration = Math.max(0, duration);
+        this.reset();
+    }
+
+    /**
+     * adds a valid sample
+     * 
+     * @param time of the sample in milliseconds
+     * @param x
+     * @param y
+     * @return START if a fixation started, UPDATE if the current fixation changed, NONE otherwise
+     */
+    public int add(long time, int x, int y) {
+        if (this.mode == VELOCITY) {
+            // a fast movement ends the current window, the next slow sample starts a new one
+            long elapsed = Math.max(1, time - this.lastTime);
+            boolean slow = !this.hasLast || distance(x - this.lastX, y - this.lastY) <= this.velocity * elapsed;
+            this.hasLast = true;
+            this.lastX = x;
+            this.lastY = y;
+            this.lastTime = time;
+            if (!slow) {
+                this.clear();
+                return NONE;
+            }
+        } else {
+            // a sample outside of the dispersion starts a new window
+            if ((this.count > 0) && (Math.max(this.maxX, x) - Math.min(this.minX, x) + Math.max(this.maxY, y) - Math.min(this.minY, y) > this.dispersion))
+                this.clear();
+        }
+
+        // extend window
+        if (this.count == 0) {
+            this.startTime = time;
+            this.minX = this.maxX = x;
+            this.minY = this.maxY = y;
+        } else {
+            this.minX = Math.min(this.minX, x);
+            this.maxX = Math.max(this.maxX, x);
+            this.minY = Math.min(this.minY, y);
+            this.maxY = Math.max(this.maxY, y);
+        }
+        this.count++;
+        this.sumX += x;
+        this.sumY += y;
+
+        // check duration
+        if (time - this.startTime < this.duration) return NONE;
+        if (this.isFixation) return UPDATE;
+        this.isFixation = true;
+        return START;
+    }
+
+    /**
+     * @return length of the given vector
+     */
+    private static double distance(int dx, int dy) {
+        return Math.sqrt((double) dx * dx + (double) dy * dy);
+    }
+
+    /**
+     * @return x coordinate of the center of the current window
+     */
+    public int getX() {
+        return this.count == 0 ? 0 : (int) (this.sumX / this.count);
+    }
+
+    /**
+     * @return y coordinate of the center of the current window
+     */
+    public int getY() {
+        return this.count == 0 ? 0 : (int) (this.sumY / this.count);
+    }
+
+    /**
+     * empties the current window
+     */
+    private void clear() {
+        this.count = 0;
+        this.sumX = 0;
+        this.sumY = 0;
+        this.isFixation = false;
+    }
+
+    /**
+     * forgets all samples, called if a sample was not valid
+     */
+    public void reset() {
+        this.clear();
+        this.hasLast = false;
+    }
+}
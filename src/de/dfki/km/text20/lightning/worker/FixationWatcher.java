@@ -21,13 +21,12 @@
  */
 package de.dfki.km.text20.lightning.worker;
 
-import java.util.ArrayList;
+import java.awt.Point;
+import java.util.concurrent.locks.LockSupport;
 
 import net.xeoh.plugins.base.options.getplugin.OptionCapabilities;
 import de.dfki.km.text20.lightning.MainClass;
-import de.dfki.km.text20.lightning.plugins.InternalPluginManager;
 import de.dfki.km.text20.lightning.worker.clickto.FixationEvaluator;
-import de.dfki.km.text20.lightning.worker.evaluationmode.PrecisionEvaluator;
 import de.dfki.km.text20.services.evaluators.gaze.GazeEvaluator;
 import de.dfki.km.text20.services.evaluators.gaze.GazeEvaluatorManager;
 import de.dfki.km.text20.services.evaluators.gaze.listenertypes.fixation.FixationEvent;
@@ -37,71 +36,91 @@ import de.dfki.km.text20.services.evaluators.gaze.listenertypes.raw.RawDataEvent
 import de.dfki.km.text20.services.evaluators.gaze.listenertypes.raw.RawDataListener;
 import de.dfki.km.text20.services.trackingdevices.eyes.EyeTrackingDevice;
 import de.dfki.km.text20.services.trackingdevices.eyes.EyeTrackingDeviceProvider;
+import de.dfki.km.text20.services.trackingdevices.eyes.EyeTrackingEvent;
 import de.dfki.km.text20.services.trackingdevices.eyes.EyeTrackingEventValidity;
 
 /**
  * Central class to watch for fixations.
  * 
+ * The listeners of the tracking library only queue the samples, so the tracker connection is not 
+ * slowed down by our processing. A consumer thread processes them in batches and publishes the 
+ * results to the gaze state.
+ * 
  * @author Christoph Käding
  */
 public class FixationWatcher {
 
+    /** number of raw data samples which can be queued */
+    private static final int RAW_CAPACITY = 1024;
+
+    /** number of fixations which can be queued */
+    private static final int FIXATION_CAPACITY = 64;
+
+    /** maximum time the consumer parks without being woken up in nanoseconds */
+    private static final long MAX_WAIT = 10000000;
+
     /** this is necessary for move the mouse and click in normal mode */
     FixationEvaluator fixationEvaluator;
 
     /** evaluates eyetracking events */
     private GazeEvaluator evaluator;
 
-    /** this is needed for evaluation mode */
-    private PrecisionEvaluator precisionEvaluator;
-
     /** indicates if the tracking device is working probably */
     private boolean status;
 
-    /** internal used plugin manager */
-    private InternalPluginManager manager;
-
     /** singleton instance of the main class */
     private MainClass main;
 
-    /** indicates if the current fixation is valid */
-    private boolean isValid;
+    /** latest gaze data, read by all consumers */
+    private GazeState gaze;
 
-    /** a list of last fixation events */
-    private ArrayList<RawDataEvent> lastEvents;
+    /** validity of the last raw data events */
+    private ValidityWindow lastEvents;
 
-    /** list of things which will be proved to check validity */
-    private EyeTrackingEventValidity[] eventValidity;
+    /** built-in fixation detection on the raw data, null if the fixations of the tracking library are used */
+    private FixationDetector detector;
 
-    /** current size of pupils
-     *  0 = left
-     *  1 = right
-     */
-    private float[] pupils;
+    /** indicates if the current fixation of the built-in detection was published */
+    private boolean published;
+
+    /** raw data samples, queued by the raw data listener */
+    private GazeRing rawSamples;
+
+    /** fixations of the tracking library, queued by the fixation listener */
+    private GazeRing fixations;
+
+    /** thread which processes the queued samples */
+    private Thread consumer;
+
+    /** indicates if the consumer waits for new samples */
+    private volatile boolean waiting;
+
+    /** number of dropped samples which are already reported */
+    private long reportedDrops;
+
+    /** things which will be proved to check validity, each one in its own array to test them separately */
+    private EyeTrackingEventValidity[][] eventValidity;
 
     /**
      * Create the fixation watcher
      * 
      * @param fixationEvaluator
-     * @param precisionEvaluator
      */
-    public FixationWatcher(FixationEvaluator fixationEvaluator,
-                           PrecisionEvaluator precisionEvaluator) {
+    public FixationWatcher(FixationEvaluator fixationEvaluator) {
         // initialize variables
         this.fixationEvaluator = fixationEvaluator;
-        this.precisionEvaluator = precisionEvaluator;
         this.main = MainClass.getInstance();
-        this.manager = MainClass.getInstance().getInternalPluginManager();
-        this.isValid = true;
-        this.pupils = new float[2];
-        this.lastEvents = new ArrayList<RawDataEvent>();
-        this.eventValidity = new EyeTrackingEventValidity[6];
-        this.eventValidity[0] = EyeTrackingEventValidity.CENTER_POSITION_VALID;
-        this.eventValidity[1] = EyeTrackingEventValidity.HEAD_POSITION_VALID;
-        this.eventValidity[2] = EyeTrackingEventValidity.LEFT_EYE_POSITION_VALID;
-        this.eventValidity[3] = EyeTrackingEventValidity.LEFT_GAZE_POSITION_VALID;
-        this.eventValidity[4] = EyeTrackingEventValidity.RIGHT_EYE_POSITION_VALID;
-        this.eventValidity[5] = EyeTrackingEventValidity.RIGHT_GAZE_POSITION_VALID;
+        this.gaze = this.main.getGazeState();
+        this.eventValidity = new EyeTrackingEventValidity[][] { { EyeTrackingEventValidity.CENTER_POSITION_VALID }, { EyeTrackingEventValidity.HEAD_POSITION_VALID }, { EyeTrackingEventValidity.LEFT_EYE_POSITION_VALID }, { EyeTrackingEventValidity.LEFT_GAZE_POSITION_VALID }, { EyeTrackingEventValidity.RIGHT_EYE_POSITION_VALID }, { EyeTrackingEventValidity.RIGHT_GAZE_POSITION_VALID } };
+        this.lastEvents = new ValidityWindow(this.main.getProperties().getValidityWindow(), this.main.getProperties().getValidityDuration(), (1 << this.eventValidity.length) - 1);
+        int detection = this.main.getProperties().getFixationDetection();
+        if ((detection == FixationDetector.VELOCITY) || (detection == FixationDetector.DISPERSION))
+            this.detector = new FixationDetector(detection, this.main.getProperties().getFixationVelocity(), this.main.getProperties().getFixationDispersion(), this.main.getProperties().getFixationDuration());
+        this.published = false;
+        this.rawSamples = new GazeRing(RAW_CAPACITY);
+        this.fixations = new GazeRing(FIXATION_CAPACITY);
+        this.waiting = false;
+        this.reportedDrops = 0;
 
         // create stuff which is needed to get eyetracking data
         EyeTrackingDeviceProvider deviceProvider = this.main.getPluginManager().getPlugin(EyeTrackingDeviceProvider.class, new OptionCapabilities("eyetrackingdevice:trackingserver"));
@@ -134,6 +153,18 @@ public class FixationWatcher {
      * The whole algorithm for fixation watching and its processing is started by a call of this method.
      */
     public void startWatching() {
+        // start consumer
+        this.consumer = new Thread(new Runnable() {
+
+            @SuppressWarnings({ "synthetic-access" })
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "GazeIngestion");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+
         // add fixation listener
         this.evaluator.addEvaluationListener(new FixationListener() {
 
@@ -142,16 +173,13 @@ public class FixationWatcher {
             public void newEvaluationEvent(FixationEvent event) {
                 // check if the fixation should be stored
                 if (!main.isActivated()) return;
+                if (detector != null) return;
                 if (event.getType() != FixationEventType.FIXATION_START) return;
 
-
-                if (!isValid) return;
-
-                // if the tool is activated and a fixation occurs, it will be stored 
-                fixationEvaluator.setFixationPoint(event.getFixation().getCenter());
-                precisionEvaluator.setFixationPoint(event.getFixation().getCenter(), pupils);
-                if (manager.getCurrentMouseWarper() != null)
-                    manager.getCurrentMouseWarper().setFixationPoint(event.getFixation().getCenter());
+                // if the tool is activated and a fixation occurs, it will be queued for the consumer
+                Point center = event.getFixation().getCenter();
+                fixations.offer(System.currentTimeMillis(), center.x, center.y, 0, 0, 0);
+                wake();
             }
         });
 
@@ -164,27 +192,17 @@ public class FixationWatcher {
                 // check if the tool is running
                 if (!main.isActivated()) return;
 
-                // reset status
-                isValid = true;
-
-                // add current event to storage
-                lastEvents.add(event);
-
-                // cut the storage down
-                if (lastEvents.size() > 10) lastEvents.remove(0);
-
-                // check validity of storage
-                for (RawDataEvent storedEvent : lastEvents) {
-                    isValid &= storedEvent.getTrackingEvent().areValid(eventValidity);
+                // collect valid parts of the current event
+                EyeTrackingEvent trackingEvent = event.getTrackingEvent();
+                int mask = 0;
+                for (int i = 0; i < eventValidity.length; i++) {
+                    if (trackingEvent.areValid(eventValidity[i])) mask |= 1 << i;
                 }
-                //                System.out.println(isValid);
 
-                // set pupil size
-                pupils[0] = event.getTrackingEvent().getPupilSizeLeft();
-                pupils[1] = event.getTrackingEvent().getPupilSizeRight();
-
-                // set valid
-                main.setTrackingValid(isValid);
+                // queue the sample for the consumer, the gaze center is only needed by the built-in fixation detection
+                Point center = detector == null ? null : trackingEvent.getGazeCenter();
+                rawSamples.offer(trackingEvent.getEventTime(), center == null ? 0 : center.x, center == null ? 0 : center.y, mask, trackingEvent.getPupilSizeLeft(), trackingEvent.getPupilSizeRight());
+                wake();
             }
 
             @Override
@@ -193,4 +211,112 @@ public class FixationWatcher {
             }
         });
     }
+
+    /**
+     * wakes the consumer if it waits for samples, called by the listeners
+     */
+    private void wake() {
+        if (this.waiting) LockSupport.unpark(this.consumer);
+    }
+
+    /**
+     * Loop of the consumer thread. All queued samples are processed as one batch, raw data before 
+     * fixations so the validity is up to date. If both queues are empty the thread parks until a 
+     * listener wakes it.
+     */
+    private void consume() {
+        while (true) {
+            int raw = this.rawSamples.size();
+            int fixation = this.fixations.size();
+
+            // wait for samples, check again after announcing it so no wake up is missed
+            if (raw + fixation == 0) {
+                this.waiting = true;
+                if (this.rawSamples.size() + this.fixations.size() == 0)
+                    LockSupport.parkNanos(this, MAX_WAIT);
+                this.waiting = false;
+                continue;
+            }
+
+            if (raw > 0) this.processRawData(raw);
+            if (fixation > 0) this.processFixations(fixation);
+
+            // report lost samples
+            long dropped = this.rawSamples.getDropped() + this.fixations.getDropped();
+            if (dropped > this.reportedDrops) {
+                System.out.println("FixationWatcher - " + (dropped - this.reportedDrops) + " gaze samples were dropped");
+                this.reportedDrops = dropped;
+            }
+        }
+    }
+
+    /**
+     * processes a batch of raw data samples, the gaze state is written once for the whole batch
+     * 
+     * @param count number of queued samples
+     */
+    private void processRawData(int count) {
+        boolean isValid = this.gaze.isValid();
+        boolean update = false;
+        int updateX = 0;
+        int updateY = 0;
+        int all = (1 << this.eventValidity.length) - 1;
+
+        for (int i = 0; i < count; i++) {
+            // add current event to storage, the oldest one falls out, and check validity of storage
+            long time = this.rawSamples.getTime(i);
+            int mask = this.rawSamples.getValidity(i);
+            isValid = this.lastEvents.add(time, mask);
+
+            // built-in fixation detection
+            if (this.detector == null) continue;
+            if (mask != all) {
+                this.detector.reset();
+                continue;
+            }
+            switch (this.detector.add(time, this.rawSamples.getX(i), this.rawSamples.getY(i))) {
+            case FixationDetector.START:
+                // same conditions as for fixations of the tracking library
+                this.published = isValid;
+                update = false;
+                if (!this.published) break;
+                this.gaze.publishFixation(this.detector.getX(), this.detector.getY(), System.currentTimeMillis());
+                this.fixationEvaluator.speculate();
+                break;
+
+            case FixationDetector.UPDATE:
+                // keep the center, a later sample of the batch may reset or move the detector
+                update = this.published;
+                updateX = this.detector.getX();
+                updateY = this.detector.getY();
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        // publish validity and pupil sizes of the newest sample and the refined fixation
+        if (update) this.gaze.updateFixation(updateX, updateY);
+        this.gaze.publishRawData(isValid, this.rawSamples.getPupilLeft(count - 1), this.rawSamples.getPupilRight(count - 1), this.rawSamples.getTime(count - 1));
+        this.rawSamples.remove(count);
+    }
+
+    /**
+     * publishes a batch of fixations of the tracking library
+     * 
+     * @param count number of queued fixations
+     */
+    private void processFixations(int count) {
+        boolean found = false;
+        for (int i = 0; i < count; i++) {
+            if (!this.gaze.isValid()) continue;
+            this.gaze.publishFixation(this.fixations.getX(i), this.fixations.getY(i), this.fixations.getTime(i));
+            found = true;
+        }
+        this.fixations.remove(count);
+
+        // analyse the newest fixation in background for the next click
+        if (found) this.fixationEvaluator.speculate();
+    }
 }
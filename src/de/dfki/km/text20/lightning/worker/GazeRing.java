@@ -0,0 +1,184 @@
+/*
+ * GazeRing.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker;
+
+/**
+ * Preallocated ring of gaze samples between exactly one producer thread and one consumer thread.
+ * The producer writes the fields of a sample and then publishes it by advancing the volatile head,
+ * the consumer reads all published samples and gives their slots back by advancing the volatile tail.
+ * Neither side locks or allocates. If the ring is full new samples are dropped and counted.
+ */
+class GazeRing {
+
+    /** capacity - 1, the capacity is a power of two */
+    private final int mask;
+
+    /** times of the samples in milliseconds */
+    private final long[] times;
+
+    /** x coordinates */
+    private final int[] x;
+
+    /** y coordinates */
+    private final int[] y;
+
+    /** validity bitmasks */
+    private final int[] validity;
+
+    /** sizes of the left pupil */
+    private final float[] pupilLeft;
+
+    /** sizes of the right pupil */
+    private final float[] pupilRight;
+
+    /** number of published samples, written by the producer only */
+    private volatile long head;
+
+    /** number of consumed samples, written by the consumer only */
+    private volatile long tail;
+
+    /** number of dropped samples, written by the producer only */
+    private volatile long dropped;
+
+    /**
+     * @param capacity minimum number of samples, rounded up to a power of two
+     */
+    GazeRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.x = new int[size];
+        this.y = new int[size];
+        this.validity = new int[size];
+        this.pupilLeft = new float[size];
+        this.pupilRight = new float[size];
+        this.head = 0;
+        this.tail = 0;
+        this.dropped = 0;
+    }
+
+    /**
+     * adds a sample, called by the producer
+     *
+     * @param time in milliseconds
+     * @param xValue
+     * @param yValue
+     * @param validityMask bits of the valid parts
+     * @param left size of the left pupil
+     * @param right size of the right pupil
+     * @return false if the ring was full and the sample was dropped
+     */
+    boolean offer(long time, int xValue, int yValue, int validityMask, float left, float right) {
+        long h = this.head;
+        if (h - this.tail > this.mask) {
+            this.dropped = this.dropped + 1;
+            return false;
+        }
+        int i = (int) h & this.mask;
+        this.times[i] = time;
+        this.x[i] = xValue;
+        this.y[i] = yValue;
+        this.validity[i] = validityMask;
+        this.pupilLeft[i] = left;
+        this.pupilRight[i] = right;
+        this.head = h + 1;
+        return true;
+    }
+
+    /**
+     * @return number of samples which can be read by the consumer
+     */
+    int size() {
+        return (int) (this.head - this.tail);
+    }
+
+    /**
+     * @return slot of the i-th readable sample
+     */
+    private int slot(int i) {
+        return (int) (this.tail + i) & this.mask;
+    }
+
+    /**
+     * @param i index of a readable sample, 0 is the oldest
+     * @return time in milliseconds
+     */
+    long getTime(int i) {
+        return this.times[this.slot(i)];
+    }
+
+    /**
+     * @param i index of a readable sample
+     * @return x coordinate
+     */
+    int getX(int i) {
+        return this.x[this.slot(i)];
+    }
+
+    /**
+     * @param i index of a readable sample
+     * @return y coordinate
+     */
+    int getY(int i) {
+        return this.y[this.slot(i)];
+    }
+
+    /**
+     * @param i index of a readable sample
+     * @return validity bitmask
+     */
+    int getValidity(int i) {
+        return this.validity[this.slot(i)];
+    }
+
+    /**
+     * @param i index of a readable sample
+     * @return size of the left pupil
+     */
+    float getPupilLeft(int i) {
+        return this.pupilLeft[this.slot(i)];
+    }
+
+    /**
+     * @param i index of a readable sample
+     * @return size of the right pupil
+     */
+    float getPupilRight(int i) {
+        return this.pupilRight[this.slot(i)];
+    }
+
+    /**
+     * gives the slots of the oldest samples back to the producer, called by the consumer
+     *
+     * @param count number of read samples
+     */
+    void remove(int count) {
+        this.tail = this.tail + count;
+    }
+
+    /**
+     * @return number of dropped samples since the start
+     */
+    long getDropped() {
+        return this.dropped;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * GazeSnapshot.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker;
+
+import java.awt.Point;
+
+/**
+ * Immutable state of the gaze at one moment: the last fixation, the pupil sizes and the validity
+ * of the tracking. Snapshots are read from the GazeState, so all of their values belong together.
+ */
+public class GazeSnapshot {
+
+    /** number of the fixation, increased with every new one, 0 if there was none yet */
+    private final long fixationId;
+
+    /** changes with every new fixation and every update of its center */
+    private final long fixationVersion;
+
+    /** x coordinate of the fixation */
+    private final int fixationX;
+
+    /** y coordinate of the fixation */
+    private final int fixationY;
+
+    /** time of the fixation in milliseconds */
+    private final long fixationTime;
+
+    /** size of the left pupil */
+    private final float pupilLeft;
+
+    /** size of the right pupil */
+    private final float pupilRight;
+
+    /** indicates if the tracking is valid */
+    private final boolean valid;
+
+    /** time of the last tracking event in milliseconds */
+    private final long timestamp;
+
+    /**
+     * @param fixationId
+     * @param fixationVersion
+     * @param fixationX
+     * @param fixationY
+     * @param fixationTime
+     * @param pupilLeft
+     * @param pupilRight
+     * @param valid
+     * @param timestamp
+     */
+    GazeSnapshot(long fixationId, long fixationVersion, int fixationX, int fixationY,
+                 long fixationTime, float pupilLeft, float pupilRight, boolean valid, long timestamp) {
+        this.fixationId = fixationId;
+        this.fixationVersion = fixationVersion;
+        this.fixationX = fixationX;
+        this.fixationY = fixationY;
+        this.fixationTime = fixationTime;
+        this.pupilLeft = pupilLeft;
+        this.pupilRight = pupilRight;
+        this.valid = valid;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return number of the fixation, 0 if there was none yet
+     */
+    public long getFixationId() {
+        return this.fixationId;
+    }
+
+    /**
+     * @return version of the fixation, changes with every new fixation and every update of its center
+     */
+    public long getFixationVersion() {
+        return this.fixationVersion;
+    }
+
+    /**
+     * @return a copy of the fixation, null if there was none yet
+     */
+    public Point getFixation() {
+        if (this.fixationId == 0) return null;
+        return new Point(this.fixationX, this.fixationY);
+    }
+
+    /**
+     * @return time of the fixation in milliseconds
+     */
+    public long getFixationTime() {
+        return this.fixationTime;
+    }
+
+    /**
+     * @return a copy of the pupil sizes, 0 = left 1 = right
+     */
+    public float[] getPupils() {
+        return new float[] { this.pupilLeft, this.pupilRight };
+    }
+
+    /**
+     * @return true if the tracking is valid
+     */
+    public boolean isValid() {
+        return this.valid;
+    }
+
+    /**
+     * @return time of the last tracking event in milliseconds
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+}
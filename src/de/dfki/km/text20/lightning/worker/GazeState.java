@@ -0,0 +1,169 @@
+/*
+ * GazeState.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker;
+
+import java.awt.Point;
+
+/**
+ * Latest gaze data of the tracker, written by the FixationWatcher and read by all consumers. The
+ * values are guarded by a sequence number which is odd while they are written: readers never lock,
+ * they retry if the number was odd or changed meanwhile and so always get a consistent GazeSnapshot.
+ * Writing needs no allocation, which matters because it happens with every raw data event.
+ */
+public class GazeState {
+
+    /** incremented before and after each write, odd while a write is in progress */
+    private volatile long sequence;
+
+    /** number of the last fixation, 0 if there was none yet */
+    private volatile long fixationId;
+
+    /** incremented with every new fixation and every update of its center */
+    private volatile long fixationVersion;
+
+    /** x coordinate of the last fixation */
+    private volatile int fixationX;
+
+    /** y coordinate of the last fixation */
+    private volatile int fixationY;
+
+    /** time of the last fixation in milliseconds */
+    private volatile long fixationTime;
+
+    /** size of the left pupil */
+    private volatile float pupilLeft;
+
+    /** size of the right pupil */
+    private volatile float pupilRight;
+
+    /** indicates if the tracking is valid */
+    private volatile boolean valid;
+
+    /** time of the last raw data event in milliseconds */
+    private volatile long timestamp;
+
+    /**
+     * creates an empty state without fixation and with invalid tracking
+     */
+    public GazeState() {
+        this.sequence = 0;
+        this.fixationId = 0;
+        this.valid = false;
+    }
+
+    /**
+     * publishes a new fixation
+     *
+     * @param fixation
+     * @param time in milliseconds
+     */
+    public void publishFixation(Point fixation, long time) {
+        this.publishFixation(fixation.x, fixation.y, time);
+    }
+
+    /**
+     * publishes a new fixation
+     *
+     * @param x
+     * @param y
+     * @param time in milliseconds
+     */
+    public synchronized void publishFixation(int x, int y, long time) {
+        this.sequence++;
+        this.fixationX = x;
+        this.fixationY = y;
+        this.fixationTime = time;
+        this.fixationId++;
+        this.fixationVersion++;
+        this.sequence++;
+    }
+
+    /**
+     * moves the center of the last fixation, its number stays the same
+     *
+     * @param x
+     * @param y
+     */
+    public synchronized void updateFixation(int x, int y) {
+        this.sequence++;
+        this.fixationX = x;
+        this.fixationY = y;
+        this.fixationVersion++;
+        this.sequence++;
+    }
+
+    /**
+     * publishes the values of a raw data event
+     *
+     * @param isValid true if the tracking is valid
+     * @param left size of the left pupil
+     * @param right size of the right pupil
+     * @param time of the event in milliseconds
+     */
+    public synchronized void publishRawData(boolean isValid, float left, float right, long time) {
+        this.sequence++;
+        this.valid = isValid;
+        this.pupilLeft = left;
+        this.pupilRight = right;
+        this.timestamp = time;
+        this.sequence++;
+    }
+
+    /**
+     * @return consistent copy of the current values
+     */
+    public GazeSnapshot get() {
+        while (true) {
+            long before = this.sequence;
+            if ((before & 1) == 0) {
+                GazeSnapshot snapshot = new GazeSnapshot(this.fixationId, this.fixationVersion, this.fixationX, this.fixationY, this.fixationTime, this.pupilLeft, this.pupilRight, this.valid, this.timestamp);
+                if (this.sequence == before) return snapshot;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * cheap check for new fixations, without creating a snapshot
+     *
+     * @return number of the last fixation, 0 if there was none yet
+     */
+    public long getFixationId() {
+        return this.fixationId;
+    }
+
+    /**
+     * cheap check for new or moved fixations, without creating a snapshot
+     *
+     * @return number which changes with every new fixation and every update of its center
+     */
+    public long getFixationVersion() {
+        return this.fixationVersion;
+    }
+
+    /**
+     * @return true if the tracking is valid
+     */
+    public boolean isValid() {
+        return this.valid;
+    }
+}
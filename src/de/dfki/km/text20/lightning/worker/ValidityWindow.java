@@ -0,0 +1,124 @@
+/*
+ * ValidityWindow.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker;
+
+/**
+ * Window over the validity of the last tracking events. Each event is stored as a bitmask of its valid
+ * parts in a ring buffer and the number of events which miss a required part is updated with every
+ * change, so adding an event needs constant time and no allocation. Optionally events which are
+ * older than a given duration leave the window before it is full.
+ */
+public class ValidityWindow {
+
+    /** validity bitmasks of the stored events */
+    private final int[] masks;
+
+    /** times of the stored events */
+    private final long[] times;
+
+    /** bits which must be set in a valid event */
+    private final int required;
+
+    /** maximum age of an event in milliseconds, 0 if only the length counts */
+    private final long maxAge;
+
+    /** index of the oldest event */
+    private int first;
+
+    /** number of stored events */
+    private int size;
+
+    /** number of stored events which are not valid */
+    private int invalid;
+
+    /**
+     * @param length maximum number of events in the window
+     * @param maxAge maximum age of an event in milliseconds, 0 to disable
+     * @param required bits which must be set in a valid event
+     */
+    public ValidityWindow(int length, long maxAge, int required) {
+        this.masks = new int[Math.max(1, length)];
+        this.times = new long[this.masks.length];
+        this.maxAge = Math.max(0, maxAge);
+        this.required = required;
+        this.clear();
+    }
+
+    /**
+     * adds an event, the oldest one is removed if the window is full
+     *
+     * @param time of the event in milliseconds
+     * @param mask bits of the valid parts of the event
+     * @return true if all events in the window are valid
+     */
+    public boolean add(long time, int mask) {
+        // remove oldest event if necessary
+        if (this.size == this.masks.length) this.removeFirst();
+
+        // store event
+        int index = (this.first + this.size) % this.masks.length;
+        this.masks[index] = mask;
+        this.times[index] = time;
+        this.size++;
+        if ((mask & this.required) != this.required) this.invalid++;
+
+        // remove events which are too old, the new one always stays
+        if (this.maxAge > 0) {
+            while ((this.size > 1) && (time - this.times[this.first] > this.maxAge))
+                this.removeFirst();
+        }
+
+        return this.isValid();
+    }
+
+    /**
+     * removes the oldest event
+     */
+    private void removeFirst() {
+        if ((this.masks[this.first] & this.required) != this.required) this.invalid--;
+        this.first = (this.first + 1) % this.masks.length;
+        this.size--;
+    }
+
+    /**
+     * @return true if all events in the window are valid
+     */
+    public boolean isValid() {
+        return this.invalid == 0;
+    }
+
+    /**
+     * @return number of events in the window
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * removes all events
+     */
+    public void clear() {
+        this.first = 0;
+        this.size = 0;
+        this.invalid = 0;
+    }
+}
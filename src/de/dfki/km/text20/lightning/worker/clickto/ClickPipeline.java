@@ -0,0 +1,224 @@
+/*
+ * ClickPipeline.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker.clickto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import de.dfki.km.text20.lightning.MainClass;
+
+/**
+ * Runs the clicks outside of the hotkey callback. Clicks are executed by one thread, while one click
+ * is running at most one further press waits and all other presses are coalesced into it, because
+ * the waiting click always uses the latest fixation. Tray messages, sounds, statistics and the submit
+ * reminder are deferred to a second thread with low priority. If more than SIDE_EFFECTS tasks are
+ * waiting there, the oldest one is dropped. Both lanes are drained by close() when the tool is closed.
+ */
+public class ClickPipeline {
+
+    /** maximum number of waiting side effects */
+    private static final int SIDE_EFFECTS = 64;
+
+    /** time in milliseconds each lane may need to finish its tasks when the tool is closed */
+    private static final long TIMEOUT = 1000;
+
+    /** executes the clicks */
+    private ThreadPoolExecutor clicks;
+
+    /** executes everything which is not needed for the click itself */
+    private ThreadPoolExecutor sideEffects;
+
+    /** evaluates the stored fixation and clicks */
+    private FixationEvaluator evaluator;
+
+    /** instance of the main */
+    private MainClass main;
+
+    /**
+     * creates both lanes
+     *
+     * @param evaluator
+     */
+    public ClickPipeline(FixationEvaluator evaluator) {
+        this.evaluator = evaluator;
+        this.main = MainClass.getInstance();
+        this.clicks = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1), factory("ClickPipeline", Thread.NORM_PRIORITY + 1), new ThreadPoolExecutor.AbortPolicy());
+        this.sideEffects = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(SIDE_EFFECTS), factory("ClickPipelineSideEffects", Thread.MIN_PRIORITY), new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    /**
+     * @param name of the thread
+     * @param priority of the thread
+     * @return factory which creates daemon threads
+     */
+    private static ThreadFactory factory(final String name, final int priority) {
+        return new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                thread.setPriority(priority);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Queues a click on the current fixation. This method never blocks.
+     *
+     * @return false if the press was coalesced into an already waiting click
+     */
+    public boolean click() {
+        return this.click(new Runnable() {
+
+            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
+            @Override
+            public void run() {
+                if (evaluator.evaluateLocation()) defer(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        main.playDing();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Queues the given step on the click lane, e.g. an evaluation step. Presses are coalesced
+     * like in click(). This method never blocks.
+     *
+     * @param step
+     * @return false if the press was coalesced into an already waiting step
+     */
+    public boolean click(Runnable step) {
+        try {
+            this.clicks.execute(step);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Queues a task which is not necessary for the click itself. This method never blocks.
+     *
+     * @param task
+     */
+    public void defer(Runnable task) {
+        this.sideEffects.execute(task);
+    }
+
+    /**
+     * shows the given message on the side effect lane
+     *
+     * @param message
+     */
+    public void inform(final String message) {
+        this.defer(new Runnable() {
+
+            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
+            @Override
+            public void run() {
+                main.showTrayMessage(message);
+            }
+        });
+    }
+
+    /**
+     * plays the ding sound and shows the given message on the side effect lane
+     *
+     * @param message
+     */
+    public void confirm(final String message) {
+        this.defer(new Runnable() {
+
+            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
+            @Override
+            public void run() {
+                main.playDing();
+                main.showTrayMessage(message);
+            }
+        });
+    }
+
+    /**
+     * shows the given message and plays the error sound on the side effect lane
+     *
+     * @param message
+     */
+    public void warn(final String message) {
+        this.defer(new Runnable() {
+
+            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
+            @Override
+            public void run() {
+                main.showTrayMessage(message);
+                main.playError();
+            }
+        });
+    }
+
+    /**
+     * increases the use count of the submit reminder on the side effect lane,
+     * this may show the survey dialog
+     */
+    public void countUse() {
+        this.defer(new Runnable() {
+
+            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
+            @Override
+            public void run() {
+                main.getReminder().addUse();
+            }
+        });
+    }
+
+    /**
+     * Stops accepting clicks and side effects and waits until the running click and all waiting
+     * tasks are done, at most TIMEOUT milliseconds per lane. Called when the tool is closed.
+     */
+    public void close() {
+        // the click lane may defer further side effects until it is terminated
+        this.clicks.shutdown();
+        await(this.clicks);
+        this.sideEffects.shutdown();
+        await(this.sideEffects);
+    }
+
+    /**
+     * waits until the given lane is terminated, at most TIMEOUT milliseconds
+     */
+    private static void await(ThreadPoolExecutor lane) {
+        try {
+            if (!lane.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS))
+                System.out.println("ClickPipeline - " + lane.getQueue().size() + " tasks were not finished");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
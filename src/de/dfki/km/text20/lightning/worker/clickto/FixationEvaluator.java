@@ -31,25 +31,47 @@ import java.awt.Robot;
 import java.awt.event.InputEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.imageio.ImageIO;
 
 import de.dfki.km.text20.lightning.MainClass;
 import de.dfki.km.text20.lightning.Properties;
+import de.dfki.km.text20.lightning.diagnosis.ClickTimings;
+import de.dfki.km.text20.lightning.diagnosis.EventLog;
 import de.dfki.km.text20.lightning.plugins.InternalPluginManager;
+import de.dfki.km.text20.lightning.plugins.saliency.LuminanceFrame;
+import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
+import de.dfki.km.text20.lightning.worker.GazeSnapshot;
 
 /**
  * Takes a screenshot with in properties stored dimensions around the gaze point 
  * and gives it to the current saliency detector plugin. The offset which is provided by the plugin 
  * is used to click on the calculated target.
  * 
+ * Screenshot and analysis are already started in the background when a fixation begins, so the click 
+ * only has to check if this result still fits. All analyses run on the same thread, so the saliency 
+ * detectors are never used concurrently.
+ * 
  * @author Christoph Käding
  *
  */
 public class FixationEvaluator {
 
-    /** Point of fixation which is provided by the eyetracker */
-    private Point fixation;
+    /** maximum age of a speculative screenshot in milliseconds */
+    private static final long MAX_SPECULATION_AGE = 2000;
+
+    /** maximum distance in pixels the fixation may have moved since the speculative screenshot, its center is refined while the fixation lasts */
+    private static final double MAX_SPECULATION_DRIFT = 10;
+
+    /** number of the last clicked fixation, each fixation is used only once */
+    private long clickedFixation;
 
     /** previous mouse position */
     private Point location;
@@ -73,7 +95,13 @@ public class FixationEvaluator {
     private InternalPluginManager manager;
 
     /** indicates if the processing already runs */
-    private boolean isProcessing;
+    private volatile boolean isProcessing;
+
+    /** background thread which takes the screenshots and runs the saliency detector */
+    private ExecutorService analyser;
+
+    /** analysis of the latest fixation */
+    private volatile Future<Speculation> speculation;
 
     /** instance of the main */
     private MainClass main;
@@ -84,12 +112,21 @@ public class FixationEvaluator {
     public FixationEvaluator() {
         // initialize variables
         this.main = MainClass.getInstance();
-        this.fixation = new Point();
+        this.clickedFixation = 0;
         this.location = new Point();
         this.offset = new Point();
         this.properties = this.main.getProperties();
         this.manager = this.main.getInternalPluginManager();
         this.isProcessing = false;
+        this.analyser = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "FixationEvaluator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
 
         try {
             this.robot = new Robot();
@@ -99,12 +136,82 @@ public class FixationEvaluator {
     }
 
     /**
-     * sets the fixation point which is provided by the eyetracker
-     * @param fixation 
+     * called when a new fixation was published, starts its analysis in the background
      */
-    public void setFixationPoint(Point fixation) {
+    public void speculate() {
         if (this.isProcessing) return;
-        this.fixation = fixation;
+
+        // analyse the new fixation while the user decides to click, an older analysis is not needed anymore
+        Point fixation = this.main.getGazeState().get().getFixation();
+        if ((fixation == null) || !this.main.isNormalMode()) return;
+        Future<Speculation> former = this.speculation;
+        if (former != null) former.cancel(false);
+        this.speculation = this.analyser.submit(this.capture(fixation));
+    }
+
+    /**
+     * creates a task which takes a screenshot around the given fixation and analyses it
+     * 
+     * @param fixation
+     * @return the task
+     */
+    private Callable<Speculation> capture(final Point fixation) {
+        return new Callable<Speculation>() {
+
+            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
+            @Override
+            public Speculation call() {
+                // create screenshot
+                SaliencyDetector detector = manager.getCurrentSaliencyDetector();
+                int dimension = properties.getDimension();
+                Rectangle screenShotRect = new Rectangle(fixation.x - dimension / 2, fixation.y - dimension / 2, dimension, dimension);
+                long start = System.nanoTime();
+                BufferedImage image = robot.createScreenCapture(screenShotRect);
+                long captured = System.nanoTime();
+                long time = System.currentTimeMillis();
+
+                // use plugin to calculate offset
+                Point result = new Point();
+                if (detector != null) result = detector.analyse(LuminanceFrame.fromImage(image));
+
+                // the timings are recorded only if a click uses the result
+                return new Speculation(fixation, result, image, detector, time, captured - start, System.nanoTime() - captured);
+            }
+        };
+    }
+
+    /**
+     * Returns the analysis of the given fixation. The speculative result is used if it fits, 
+     * otherwise a new analysis is done on the background thread and awaited.
+     * 
+     * @param fixation
+     * @return analysis, null if it failed
+     */
+    private Speculation analyse(Point fixation) {
+        Future<Speculation> pending = this.speculation;
+        try {
+            if (pending != null) {
+                Speculation result = pending.get();
+                if (result.fits(fixation, this.manager.getCurrentSaliencyDetector(), this.properties.getDimension(), MAX_SPECULATION_AGE, MAX_SPECULATION_DRIFT))
+                    return result;
+            }
+        } catch (CancellationException e) {
+            // replaced by a newer fixation, analyse again
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            return this.analyser.submit(this.capture(fixation)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        return null;
     }
 
     /**
@@ -115,49 +222,64 @@ public class FixationEvaluator {
      */
     public boolean evaluateLocation() {
         // check if a valid fixation is placed or process is already running
-        if ((this.fixation == null) || this.isProcessing) return false;
+        GazeSnapshot gaze = this.main.getGazeState().get();
+        Point current = gaze.getFixation();
+        if ((current == null) || (gaze.getFixationId() == this.clickedFixation) || this.isProcessing)
+            return false;
 
         // set status
         this.isProcessing = true;
-
-        // store current mouse position to reset is later 
-        this.location = MouseInfo.getPointerInfo().getLocation();
-
-        // create screenshot
-        Rectangle screenShotRect = new Rectangle(this.fixation.x - this.properties.getDimension() / 2, this.fixation.y - this.properties.getDimension() / 2, this.properties.getDimension(), this.properties.getDimension());
-        this.screenShot = this.robot.createScreenCapture(screenShotRect);
-
-        // create timestamp
-        this.timestamp = System.currentTimeMillis();
-
-        // use plugin to calculate offset
-        if (this.manager.getCurrentSaliencyDetector() != null)
-            this.offset = this.manager.getCurrentSaliencyDetector().analyse(this.screenShot);
-
-        // update the logfile
-        String logString = "Timestamp: " + this.timestamp + ", Fixation: (" + this.fixation.x + "," + this.fixation.y + "), Offset: (" + this.offset.x + "," + this.offset.y + "), Dimension: " + this.properties.getDimension() + ", Method: " + this.manager.getCurrentSaliencyDetector().getInformation().getDisplayName() + ", Recalibration is used: " + this.properties.isRecalibration();
-        System.out.println("Click - " + logString);
-        this.main.getChannel().status("Click - " + logString);
-        this.main.addToStatistic("click", logString);
-
-        // click to calculated target and reset mouseposition
-        this.robot.mouseMove(this.fixation.x + this.offset.x, this.fixation.y + this.offset.y);
-        this.robot.mousePress(InputEvent.BUTTON1_MASK);
-        this.robot.mouseRelease(InputEvent.BUTTON1_MASK);
-        this.robot.mouseMove(this.location.x, this.location.y);
-
-        // call recalibrator
-        this.main.getRecalibrator().updateCalibration(this.fixation, this.offset);
-
-        // TODO: for debugging
-        //        this.drawPicture();
-
-        // reset fixation point and status
-        this.fixation = null;
-        this.isProcessing = false;
-
-        //return success
-        return true;
+        try {
+            // store current mouse position to reset is later 
+            this.location = MouseInfo.getPointerInfo().getLocation();
+
+            // get screenshot and offset, mostly already calculated in the background
+            long start = System.nanoTime();
+            Speculation result = this.analyse(current);
+            if (result == null) return false;
+            current = result.getFixation();
+            this.screenShot = result.getScreenShot();
+            this.timestamp = result.getTimestamp();
+            this.offset = result.getOffset();
+            long analysed = System.nanoTime();
+
+            // update the logfile
+            SaliencyDetector detector = this.manager.getCurrentSaliencyDetector();
+            String name = detector == null ? null : detector.getInformation().getDisplayName();
+            EventLog.getInstance().click(this.timestamp, current, this.offset, this.properties.getDimension(), name, this.properties.isRecalibration());
+
+            // click to calculated target and reset mouseposition
+            long clickStart = System.nanoTime();
+            this.robot.mouseMove(current.x + this.offset.x, current.y + this.offset.y);
+            this.robot.mousePress(InputEvent.BUTTON1_MASK);
+            this.main.getWarper().click(current.x + this.offset.x, current.y + this.offset.y);
+            this.robot.mouseRelease(InputEvent.BUTTON1_MASK);
+            this.robot.mouseMove(this.location.x, this.location.y);
+            long clicked = System.nanoTime();
+
+            // call recalibrator
+            this.main.getRecalibrator().updateCalibration(current, this.offset);
+
+            // update timings
+            ClickTimings timings = ClickTimings.getInstance();
+            timings.record(name, ClickTimings.Stage.CAPTURE, result.getCaptureNanos());
+            timings.record(name, ClickTimings.Stage.ANALYSE, result.getAnalyseNanos());
+            timings.record(name, ClickTimings.Stage.WAIT, analysed - start);
+            timings.record(name, ClickTimings.Stage.CLICK, clicked - clickStart);
+            timings.record(name, ClickTimings.Stage.RECALIBRATION, System.nanoTime() - clicked);
+
+            // TODO: for debugging
+            //        this.drawPicture();
+
+            // mark fixation as used
+            this.clickedFixation = gaze.getFixationId();
+
+            //return success
+            return true;
+        } finally {
+            // reset status, also if analysis, robot or recalibrator failed
+            this.isProcessing = false;
+        }
     }
 
     /**
@@ -0,0 +1,135 @@
+/*
+ * Speculation.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ */
+package de.dfki.km.text20.lightning.worker.clickto;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+import de.dfki.km.text20.lightning.plugins.saliency.SaliencyDetector;
+
+/**
+ * Result of a screenshot analysis around a fixation. It is calculated in the background when the
+ * fixation starts and used by the next click if it still fits.
+ */
+class Speculation {
+
+    /** fixation which was analysed */
+    private final Point fixation;
+
+    /** calculated offset from fixation point to target */
+    private final Point offset;
+
+    /** screenshot which was analysed */
+    private final BufferedImage screenShot;
+
+    /** detector which calculated the offset, null if none was available */
+    private final SaliencyDetector detector;
+
+    /** time of the screenshot */
+    private final long timestamp;
+
+    /** duration of the screenshot in nanoseconds */
+    private final long captureNanos;
+
+    /** duration of the analysis in nanoseconds */
+    private final long analyseNanos;
+
+    /**
+     * @param fixation
+     * @param offset
+     * @param screenShot
+     * @param detector
+     * @param timestamp
+     * @param captureNanos duration of the screenshot
+     * @param analyseNanos duration of the analysis
+     */
+    Speculation(Point fixation, Point offset, BufferedImage screenShot,
+                SaliencyDetector detector, long timestamp, long captureNanos, long analyseNanos) {
+        this.fixation = new Point(fixation);
+        this.offset = new Point(offset);
+        this.screenShot = screenShot;
+        this.detector = detector;
+        this.timestamp = timestamp;
+        this.captureNanos = captureNanos;
+        this.analyseNanos = analyseNanos;
+    }
+
+    /**
+     * checks if this result can be used for a click
+     *
+     * @param currentFixation fixation which should be clicked
+     * @param currentDetector detector which is selected now
+     * @param dimension screenshot dimension which is selected now
+     * @param maxAge maximum age of the screenshot in milliseconds
+     * @param maxDrift maximum distance between analysed and current fixation in pixels
+     * @return true if detector and dimension are equal, the fixation moved at most maxDrift and the screenshot is fresh enough
+     */
+    boolean fits(Point currentFixation, SaliencyDetector currentDetector,
+                 int dimension, long maxAge, double maxDrift) {
+        if (this.fixation.distance(currentFixation) > maxDrift) return false;
+        if (this.detector != currentDetector) return false;
+        if (this.screenShot.getHeight() != dimension) return false;
+        return System.currentTimeMillis() - this.timestamp <= maxAge;
+    }
+
+    /**
+     * @return the analysed fixation, the offset is relative to it
+     */
+    Point getFixation() {
+        return new Point(this.fixation);
+    }
+
+    /**
+     * @return the offset
+     */
+    Point getOffset() {
+        return new Point(this.offset);
+    }
+
+    /**
+     * @return the screenShot
+     */
+    BufferedImage getScreenShot() {
+        return this.screenShot;
+    }
+
+    /**
+     * @return the timestamp
+     */
+    long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * @return duration of the screenshot in nanoseconds
+     */
+    long getCaptureNanos() {
+        return this.captureNanos;
+    }
+
+    /**
+     * @return duration of the analysis in nanoseconds
+     */
+    long getAnalyseNanos() {
+        return this.analyseNanos;
+    }
+}
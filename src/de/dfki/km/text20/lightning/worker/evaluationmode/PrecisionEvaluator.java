@@ -42,6 +42,8 @@ import javax.xml.stream.XMLStreamWriter;
 
 import de.dfki.km.text20.lightning.MainClass;
 import de.dfki.km.text20.lightning.Properties;
+import de.dfki.km.text20.lightning.diagnosis.EventLog;
+import de.dfki.km.text20.lightning.worker.GazeSnapshot;
 
 /**
  * The precision evaluator is used in evaluation mode. Here the collected data is
@@ -52,8 +54,8 @@ import de.dfki.km.text20.lightning.Properties;
  */
 public class PrecisionEvaluator {
 
-    /** last fixation point */
-    private Point fixationTmp;
+    /** number of the last stored fixation, each fixation is stored only once */
+    private long storedFixation;
 
     /** stored fixation point */
     private Point fixation;
@@ -90,11 +92,6 @@ public class PrecisionEvaluator {
      */
     private float[] pupils;
 
-    /**
-     * temporary size of the pupils 0 = left 1 = right
-     */
-    private float[] pupilsTmp;
-
     /** indicates if already any processing is in progress */
     private boolean isProcessing;
 
@@ -105,7 +102,7 @@ public class PrecisionEvaluator {
 
         // initialize variables
         this.fixation = new Point();
-        this.fixationTmp = new Point();
+        this.storedFixation = 0;
         this.mousePoint = new Point();
         this.allData = new ArrayList<StorageContainer>();
         this.properties = MainClass.getInstance().getProperties();
@@ -120,33 +117,20 @@ public class PrecisionEvaluator {
         }
     }
 
-    /**
-     * stores fixation and pupil sizes
-     * 
-     * @param fixation
-     * @param pupils
-     *            0 = left 1 = right
-     */
-    public void setFixationPoint(Point fixation, float[] pupils) {
-        this.fixationTmp = fixation;
-        this.pupilsTmp = pupils;
-    }
-
     /**
      * stores last fixation so that it can be used to create a evaluation step
      * 
      * @return true if successful 
      */
     public boolean storeFixation() {
-        if (this.fixationTmp == null || this.isProcessing || this.pupilsTmp == null)
+        GazeSnapshot gaze = MainClass.getInstance().getGazeState().get();
+        if (gaze.getFixationId() == 0 || gaze.getFixationId() == this.storedFixation || this.isProcessing)
             return false;
         this.isProcessing = true;
         this.timestamp = System.currentTimeMillis();
-        this.fixation = new Point(this.fixationTmp);
-        this.pupils = new float[2];
-        this.pupils[0] = this.pupilsTmp[0];
-        this.pupils[1] = this.pupilsTmp[1];
-        this.fixationTmp = null;
+        this.fixation = gaze.getFixation();
+        this.pupils = gaze.getPupils();
+        this.storedFixation = gaze.getFixationId();
         this.isProcessing = false;
         return true;
     }
@@ -183,10 +167,7 @@ public class PrecisionEvaluator {
         }
 
         // update logfile
-        String logString = new String("Timestamp: " + this.timestamp + ", Fixation: (" + this.fixation.x + "," + this.fixation.y + "), Mouseposition: (" + this.mousePosition.x + "," + this.mousePosition.y + "), Dimension: " + this.properties.getDimension() + ", Recalibration is used: " + this.properties.isRecalibration());
-        System.out.println("Evaluation - " + logString);
-        MainClass.getInstance().getChannel().status("Evaluation - " + logString);
-        MainClass.getInstance().addToStatistic("evaluation", logString);
+        EventLog.getInstance().evaluation(this.timestamp, this.fixation, this.mousePosition, this.properties.getDimension(), this.properties.isRecalibration());
 
         // update recalibration
         MainClass.getInstance().getRecalibrator().updateCalibration(this.fixation, this.mousePoint);
@@ -0,0 +1,167 @@
+/*
+ * SampleRing.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+/**
+ * Ring buffer for mouse samples, fixations and clicks with one producer and one consumer. The sampler 
+ * writes each entry into preallocated arrays without locks, so it is never delayed, and the 
+ * consumer takes all buffered entries at once. If the buffer is full, new entries are dropped 
+ * and counted.
+ */
+class SampleRing implements SampleSink {
+
+    /** entry type of a sample */
+    private static final int SAMPLE = 0;
+
+    /** entry type of a sample which is also given to addMousePosition */
+    private static final int POSITION = 1;
+
+    /** entry type of a new fixation */
+    private static final int FIXATION = 2;
+
+    /** entry type of a click */
+    private static final int CLICK = 3;
+
+    /** number of entries which can be buffered */
+    private final int capacity;
+
+    /** entry types */
+    private final int[] type;
+
+    /** x coordinates of sample, fixation or click */
+    private final int[] x;
+
+    /** y coordinates of sample, fixation or click */
+    private final int[] y;
+
+    /** times of the samples in nanoseconds */
+    private final long[] time;
+
+    /** validity of the fixation at the samples */
+    private final boolean[] valid;
+
+    /** number of written entries, only changed by the producer */
+    private volatile long head;
+
+    /** number of taken entries, only changed by the consumer */
+    private volatile long tail;
+
+    /** number of dropped entries, only changed by the producer */
+    private volatile long dropped;
+
+    /**
+     * @param capacity number of entries which can be buffered
+     */
+    SampleRing(int capacity) {
+        this.capacity = capacity;
+        this.type = new int[capacity];
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.time = new long[capacity];
+        this.valid = new boolean[capacity];
+        this.head = 0;
+        this.tail = 0;
+        this.dropped = 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#sample(int, int, long, boolean, boolean)
+     */
+    @Override
+    public void sample(int xValue, int yValue, long nanos, boolean position, boolean isFixationValid) {
+        this.offer(position ? POSITION : SAMPLE, xValue, yValue, nanos, isFixationValid);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#fixation(int, int)
+     */
+    @Override
+    public void fixation(int xValue, int yValue) {
+        this.offer(FIXATION, xValue, yValue, 0, true);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#click(int, int)
+     */
+    @Override
+    public void click(int xValue, int yValue) {
+        this.offer(CLICK, xValue, yValue, 0, true);
+    }
+
+    /**
+     * stores one entry, drops it if the buffer is full
+     */
+    private void offer(int entryType, int xValue, int yValue, long nanos, boolean isValid) {
+        long index = this.head;
+        if (index - this.tail >= this.capacity) {
+            this.dropped++;
+            return;
+        }
+        int i = (int) (index % this.capacity);
+        this.type[i] = entryType;
+        this.x[i] = xValue;
+        this.y[i] = yValue;
+        this.time[i] = nanos;
+        this.valid[i] = isValid;
+        this.head = index + 1;
+    }
+
+    /**
+     * hands all buffered entries to the given sinks, called by the consumer
+     * 
+     * @param sinks
+     * @return number of entries
+     */
+    int drain(SampleSink[] sinks) {
+        long first = this.tail;
+        long last = this.head;
+        for (long index = first; index < last; index++) {
+            int i = (int) (index % this.capacity);
+            for (SampleSink sink : sinks) {
+                if (this.type[i] == FIXATION) sink.fixation(this.x[i], this.y[i]);
+                else if (this.type[i] == CLICK) sink.click(this.x[i], this.y[i]);
+                else sink.sample(this.x[i], this.y[i], this.time[i], this.type[i] == POSITION, this.valid[i]);
+            }
+        }
+        this.tail = last;
+        return (int) (last - first);
+    }
+
+    /**
+     * removes all buffered entries, called by the consumer
+     */
+    void discard() {
+        this.tail = this.head;
+    }
+
+    /**
+     * @return number of dropped entries
+     */
+    long getDropped() {
+        return this.dropped;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * SampleSink.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+/**
+ * Receiver of mouse samples, fixations and clicks in the order the sampler has seen them. A fixation 
+ * or a click belongs to the samples which follow it.
+ */
+public interface SampleSink {
+
+    /**
+     * adds a mouse sample
+     * 
+     * @param x
+     * @param y
+     * @param nanos time of the sample, see System.nanoTime()
+     * @param position true if the sample is also given to addMousePosition
+     * @param isFixationValid validity of the fixation, only used for positions
+     */
+    public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid);
+
+    /**
+     * adds a new fixation or the refined center of the current one, the warpers are given it by setFixationPoint
+     * 
+     * @param x
+     * @param y
+     */
+    public void fixation(int x, int y);
+
+    /**
+     * adds a click of the user, the position is where the button was pressed
+     * 
+     * @param x
+     * @param y
+     */
+    public void click(int x, int y);
+}
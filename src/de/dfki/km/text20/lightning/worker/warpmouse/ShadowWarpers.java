@@ -0,0 +1,233 @@
+/*
+ * ShadowWarpers.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Toolkit;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import de.dfki.km.text20.lightning.diagnosis.EventLog;
+import de.dfki.km.text20.lightning.plugins.InternalPluginManager;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper;
+
+/**
+ * Shadow mode for the mouse warpers. A second instance of each installed ShadowableWarper gets the 
+ * same samples and fixations as the current warper, but its warps are only counted and written to 
+ * the event log. The sampler only writes the samples into a ring buffer, a background thread with 
+ * low priority hands them to the shadows, so the current warper is never delayed. If the buffer is 
+ * full, new samples are dropped and counted. The counters of each warper are appended to a file 
+ * when the shadow mode is closed.
+ */
+public class ShadowWarpers implements SampleSink, Runnable {
+
+    /** number of entries which can be buffered */
+    private static final int CAPACITY = 4096;
+
+    /** time between two drains in milliseconds */
+    private static final long INTERVAL = 10;
+
+    /** file the report is written to */
+    private static final String FILE = "shadow.log";
+
+    /** samples and fixations which are not handed to the shadows yet */
+    private final SampleRing ring;
+
+    /** plugin manager the warpers are taken from */
+    private final InternalPluginManager manager;
+
+    /** shadow instances, only used by the background thread */
+    private Shadow[] shadows;
+
+    /** time the shadows were started in nanoseconds */
+    private long started;
+
+    /** background thread */
+    private final Thread consumer;
+
+    /** indicates if the background thread should go on */
+    private volatile boolean running;
+
+    /**
+     * creates the buffer and starts the background thread
+     * 
+     * @param manager plugin manager the warpers are taken from
+     */
+    public ShadowWarpers(InternalPluginManager manager) {
+        this.ring = new SampleRing(CAPACITY);
+        this.manager = manager;
+        this.shadows = new Shadow[0];
+        this.started = System.nanoTime();
+        this.running = true;
+        this.consumer = new Thread(this, "ShadowWarpers");
+        this.consumer.setDaemon(true);
+        this.consumer.setPriority(Thread.MIN_PRIORITY);
+        this.consumer.start();
+    }
+
+    /**
+     * Adds a sample, called by the sampler. This method never blocks.
+     * 
+     * @param x
+     * @param y
+     * @param nanos time of the sample
+     * @param position true if the sample is also given to addMousePosition
+     * @param isFixationValid
+     */
+    @Override
+    public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid) {
+        this.ring.sample(x, y, nanos, position, isFixationValid);
+    }
+
+    /**
+     * Adds a new fixation, called by the sampler. This method never blocks.
+     * 
+     * @param x
+     * @param y
+     */
+    @Override
+    public void fixation(int x, int y) {
+        this.ring.fixation(x, y);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#click(int, int)
+     */
+    @Override
+    public void click(int x, int y) {
+        // the shadows only count their warps
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+        // the warpers are known after the plugins are loaded
+        while (this.running && !this.manager.isDone()) {
+            this.ring.discard();
+            LockSupport.parkNanos(INTERVAL * 1000000);
+        }
+        if (this.running) this.createShadows();
+
+        while (this.running) {
+            LockSupport.parkNanos(INTERVAL * 1000000);
+            this.ring.drain(this.shadows);
+        }
+    }
+
+    /**
+     * creates a second instance of each installed warper, they are started at the first sample
+     */
+    private void createShadows() {
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        List<Shadow> list = new ArrayList<Shadow>();
+        for (MouseWarper warper : this.manager.getMouseWarpers()) {
+            if (!(warper instanceof ShadowableWarper)) continue;
+            try {
+                list.add(new Shadow((ShadowableWarper) warper.getClass().getDeclaredConstructor().newInstance(), screen));
+            } catch (InvocationTargetException e) {
+                // the constructor of the warper failed
+                System.out.println("ShadowWarpers - " + warper.getInformation().getDisplayName() + " couldn't be created");
+                e.getCause().printStackTrace();
+            } catch (Exception e) {
+                System.out.println("ShadowWarpers - " + warper.getInformation().getDisplayName() + " couldn't be created");
+                e.printStackTrace();
+            }
+        }
+        this.shadows = list.toArray(new Shadow[list.size()]);
+        this.started = System.nanoTime();
+    }
+
+    /**
+     * stops the background thread and appends the report to the shadow file
+     */
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+        try {
+            this.consumer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        FileWriter writer = null;
+        try {
+            writer = new FileWriter(new File(FILE), true);
+            writer.write("Timestamp: " + System.currentTimeMillis() + "\r\n" + this.report() + "\r\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (writer != null) try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return counters of each warper and the number of dropped samples
+     */
+    public String report() {
+        double minutes = (System.nanoTime() - this.started) / 60000000000.0;
+        StringBuilder report = new StringBuilder();
+        for (Shadow shadow : this.shadows)
+            report.append(shadow.report(minutes) + "\r\n");
+        report.append("dropped samples: " + this.ring.getDropped() + "\r\n");
+        return report.toString();
+    }
+
+    /**
+     * Second instance of a warper, its warps are written to the event log.
+     */
+    private static class Shadow extends WarperDriver {
+
+        /**
+         * @param warper shadow instance
+         * @param screen size of the screen
+         */
+        Shadow(ShadowableWarper warper, Dimension screen) {
+            super(warper, screen, WarpCommander.POSITION_INTERVAL);
+        }
+
+        /*
+         * (non-Javadoc)
+         * 
+         * @see de.dfki.km.text20.lightning.worker.warpmouse.WarperDriver#warped(java.lang.String,
+         * java.awt.Point, int, int, double)
+         */
+        @Override
+        protected void warped(String method, Point target, int distance, int radius, double speed) {
+            EventLog.getInstance().shadowWarp(method, target, distance, radius, speed);
+        }
+    }
+}
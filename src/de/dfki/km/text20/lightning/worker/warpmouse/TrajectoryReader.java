@@ -0,0 +1,192 @@
+/*
+ * TrajectoryReader.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import java.awt.Dimension;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a trajectory log of the TrajectoryWriter completely into memory, so it can be replayed 
+ * into a SampleSink any number of times and as fast as possible, also by several threads at once. 
+ * A truncated last record, e.g. of a log which wasn't closed, is ignored.
+ */
+public class TrajectoryReader {
+
+    /** size of the header in bytes */
+    private static final int HEADER = 16;
+
+    /** content of the log */
+    private final ByteBuffer data;
+
+    /** time between two calls of addMousePosition in milliseconds */
+    private final int interval;
+
+    /** size of the recorded screen */
+    private final Dimension screen;
+
+    /** number of samples */
+    private long samples;
+
+    /** number of clicks */
+    private long clicks;
+
+    /** time of the first sample in nanoseconds */
+    private long first;
+
+    /** time of the last sample in nanoseconds */
+    private long last;
+
+    /**
+     * reads and checks the log
+     * 
+     * @param file trajectory log
+     * @throws IOException if the file can't be read or is no trajectory log
+     */
+    public TrajectoryReader(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+
+        this.data = ByteBuffer.wrap(bytes);
+        if ((bytes.length < HEADER) || (this.data.getInt(0) != TrajectoryWriter.MAGIC))
+            throw new IOException(file + " is no trajectory log");
+        this.interval = this.data.getInt(4);
+        this.screen = new Dimension(this.data.getInt(8), this.data.getInt(12));
+
+        // a first pass checks the records and counts the samples
+        try {
+            this.replay(new SampleSink() {
+
+                @Override
+                public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid) {
+                    if (TrajectoryReader.this.samples == 0) TrajectoryReader.this.first = nanos;
+                    TrajectoryReader.this.last = nanos;
+                    TrajectoryReader.this.samples++;
+                }
+
+                @Override
+                public void fixation(int x, int y) {
+                    // only checked
+                }
+
+                @Override
+                public void click(int x, int y) {
+                    TrajectoryReader.this.clicks++;
+                }
+            });
+        } catch (IllegalStateException e) {
+            throw new IOException(file + " is broken: " + e.getMessage());
+        }
+    }
+
+    /**
+     * hands all records of the log to the given sink
+     * 
+     * @param sink
+     * @return number of samples
+     */
+    public long replay(SampleSink sink) {
+        ByteBuffer buffer = this.data.duplicate();
+        buffer.position(HEADER);
+        long time = 0;
+        long count = 0;
+
+        while (buffer.hasRemaining()) {
+            int type = buffer.get() & 0xFF;
+            int record = type & ~TrajectoryWriter.VALID;
+            if (record == TrajectoryWriter.TIME) {
+                if (buffer.remaining() < 8) break;
+                time = buffer.getLong();
+
+            } else if (record == TrajectoryWriter.FIXATION) {
+                if (buffer.remaining() < 4) break;
+                sink.fixation(buffer.getShort(), buffer.getShort());
+
+            } else if (record == TrajectoryWriter.CLICK) {
+                if (buffer.remaining() < 4) break;
+                sink.click(buffer.getShort(), buffer.getShort());
+
+            } else if ((record == TrajectoryWriter.SAMPLE) || (record == TrajectoryWriter.POSITION)) {
+                if (buffer.remaining() < 8) break;
+                int x = buffer.getShort();
+                int y = buffer.getShort();
+                time += buffer.getInt();
+                count++;
+                sink.sample(x, y, time, record == TrajectoryWriter.POSITION, (type & TrajectoryWriter.VALID) != 0);
+
+            } else {
+                throw new IllegalStateException("unknown record type " + type + " at " + (buffer.position() - 1));
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return time between two calls of addMousePosition in milliseconds
+     */
+    public int getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * @return size of the recorded screen
+     */
+    public Dimension getScreenSize() {
+        return new Dimension(this.screen);
+    }
+
+    /**
+     * @return number of samples
+     */
+    public long getSamples() {
+        return this.samples;
+    }
+
+    /**
+     * @return number of clicks, 0 for logs which were recorded without them
+     */
+    public long getClicks() {
+        return this.clicks;
+    }
+
+    /**
+     * @return time of the first sample in nanoseconds
+     */
+    public long getFirst() {
+        return this.first;
+    }
+
+    /**
+     * @return recorded duration in minutes
+     */
+    public double getMinutes() {
+        return (this.last - this.first) / 60000000000.0;
+    }
+}
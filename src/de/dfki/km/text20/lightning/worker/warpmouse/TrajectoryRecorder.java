@@ -0,0 +1,159 @@
+/*
+ * TrajectoryRecorder.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import java.awt.Toolkit;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the mouse samples, fixations and clicks of the sampler into a trajectory log, so the decisions 
+ * of the warpers can be reproduced by TrajectoryReplay. Like in the shadow mode the sampler only 
+ * writes into a ring buffer and a background thread with low priority writes the log. If the 
+ * buffer is full, new samples are dropped and counted.
+ */
+public class TrajectoryRecorder implements SampleSink, Runnable {
+
+    /** number of entries which can be buffered */
+    private static final int CAPACITY = 4096;
+
+    /** time between two drains in milliseconds */
+    private static final long INTERVAL = 100;
+
+    /** directory of the logs */
+    private static final String DIRECTORY = "trajectories";
+
+    /** samples and fixations which are not written yet */
+    private final SampleRing ring;
+
+    /** writer of the log, only used by the background thread */
+    private final TrajectoryWriter writer;
+
+    /** sinks of the ring */
+    private final SampleSink[] sinks;
+
+    /** the log */
+    private final File file;
+
+    /** background thread */
+    private final Thread consumer;
+
+    /** indicates if the background thread should go on */
+    private volatile boolean running;
+
+    /**
+     * creates a new log and starts the background thread
+     * 
+     * @throws IOException if the log can't be created
+     */
+    public TrajectoryRecorder() throws IOException {
+        File directory = new File(DIRECTORY);
+        directory.mkdirs();
+        this.file = new File(directory, "trajectory_" + System.currentTimeMillis() + ".log");
+        this.writer = new TrajectoryWriter(new BufferedOutputStream(new FileOutputStream(this.file), 65536), WarpCommander.POSITION_INTERVAL, Toolkit.getDefaultToolkit().getScreenSize());
+        this.ring = new SampleRing(CAPACITY);
+        this.sinks = new SampleSink[] { this.writer };
+        this.running = true;
+        this.consumer = new Thread(this, "TrajectoryRecorder");
+        this.consumer.setDaemon(true);
+        this.consumer.setPriority(Thread.MIN_PRIORITY);
+        this.consumer.start();
+        System.out.println("TrajectoryRecorder - recording to " + this.file.getPath());
+    }
+
+    /**
+     * Adds a sample, called by the sampler. This method never blocks.
+     * 
+     * @param x
+     * @param y
+     * @param nanos time of the sample
+     * @param position true if the sample is also given to addMousePosition
+     * @param isFixationValid
+     */
+    @Override
+    public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid) {
+        this.ring.sample(x, y, nanos, position, isFixationValid);
+    }
+
+    /**
+     * Adds a new fixation, called by the sampler. This method never blocks.
+     * 
+     * @param x
+     * @param y
+     */
+    @Override
+    public void fixation(int x, int y) {
+        this.ring.fixation(x, y);
+    }
+
+    /**
+     * Adds a click, called by the sampler. This method never blocks.
+     * 
+     * @param x
+     * @param y
+     */
+    @Override
+    public void click(int x, int y) {
+        this.ring.click(x, y);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+        while (this.running) {
+            LockSupport.parkNanos(INTERVAL * 1000000);
+            this.ring.drain(this.sinks);
+        }
+
+        // write the rest
+        this.ring.drain(this.sinks);
+        this.writer.close();
+        if (this.ring.getDropped() > 0)
+            System.out.println("TrajectoryRecorder - " + this.ring.getDropped() + " samples were dropped");
+    }
+
+    /**
+     * stops the background thread, the log is closed
+     */
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+        try {
+            this.consumer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the log
+     */
+    public File getFile() {
+        return this.file;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * TrajectoryReplay.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper;
+
+/**
+ * Replays a trajectory log into mouse warpers as fast as possible and without a display. Each 
+ * warper is driven by a WarperDriver, so its warps are only counted. For each warper the counters 
+ * and the processed samples per second of the fastest run are printed, with -v also every warp. 
+ * So changes of the warp logic can be compared on the same log.
+ * 
+ * Usage: TrajectoryReplay [-runs n] [-v] log [warper class ...]
+ */
+public class TrajectoryReplay {
+
+    /** warpers which are replayed if none is given */
+    private static final String[] WARPERS = {
+        "de.dfki.km.text20.lightning.plugins.mousewarp.simpleWarper.SimpleWarper",
+        "de.dfki.km.text20.lightning.plugins.mousewarp.improvedSimpleWarper.ImprovedSimpleWarper",
+        "de.dfki.km.text20.lightning.plugins.mousewarp.distanceWarper.DistanceWarper",
+        "de.dfki.km.text20.lightning.plugins.mousewarp.velocitywarperv1.VelocityWarperV1",
+        "de.dfki.km.text20.lightning.plugins.mousewarp.velocitywarperv2.VelocityWarperV2",
+        "de.dfki.km.text20.lightning.plugins.mousewarp.velocitywarper.VelocityWarper",
+        "de.dfki.km.text20.lightning.plugins.mousewarp.accelerationwarper.AccelerationWarper" };
+
+    /**
+     * only static methods
+     */
+    private TrajectoryReplay() {
+        // not used
+    }
+
+    /**
+     * @param args [-runs n] [-v] log [warper class ...]
+     * @throws IOException if the log can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = 1;
+        boolean verbose = false;
+        String log = null;
+        List<String> warpers = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-runs") && (i + 1 < args.length)) runs = Math.max(1, Integer.parseInt(args[++i]));
+            else if (args[i].equals("-v")) verbose = true;
+            else if (log == null) log = args[i];
+            else warpers.add(args[i]);
+        }
+        if (log == null) {
+            System.out.println("Usage: TrajectoryReplay [-runs n] [-v] log [warper class ...]");
+            return;
+        }
+        if (warpers.isEmpty()) warpers.addAll(Arrays.asList(WARPERS));
+
+        TrajectoryReader reader = new TrajectoryReader(new File(log));
+        System.out.println(log + ": " + reader.getSamples() + " samples, " + String.format("%.2f", Double.valueOf(reader.getMinutes())) + " minutes, screen " + reader.getScreenSize().width + "x" + reader.getScreenSize().height);
+        for (String warper : warpers)
+            replay(reader, warper, runs, verbose);
+    }
+
+    /**
+     * replays the log into new instances of the given warper and prints the results
+     * 
+     * @param reader
+     * @param name class of the warper
+     * @param runs number of replays
+     * @param verbose true if every warp of the first run is printed
+     */
+    private static void replay(final TrajectoryReader reader, String name, int runs, boolean verbose) {
+        WarperDriver driver = null;
+        long fastest = Long.MAX_VALUE;
+
+        for (int run = 0; run < runs; run++) {
+            ShadowableWarper warper = create(name);
+            if (warper == null) return;
+
+            final boolean print = verbose && (run == 0);
+            driver = new WarperDriver(warper, reader.getScreenSize(), reader.getInterval()) {
+
+                @Override
+                protected void warped(String method, Point target, int distance, int radius, double speed) {
+                    if (print)
+                        System.out.println(String.format("    %.3f ms: warp to (%d,%d), distance %d, radius %d", Double.valueOf((this.nanoTime() - reader.getFirst()) / 1000000.0), Integer.valueOf(target.x), Integer.valueOf(target.y), Integer.valueOf(distance), Integer.valueOf(radius)));
+                }
+            };
+
+            long start = System.nanoTime();
+            reader.replay(driver);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        double rate = driver.getSamples() / (Math.max(1, fastest) / 1000000000.0);
+        System.out.println(driver.report(reader.getMinutes()) + String.format(", %.0f samples/s", Double.valueOf(rate)));
+    }
+
+    /**
+     * @param name class of the warper
+     * @return new instance of the warper, null if it can't be created or doesn't use a WarpMover
+     */
+    private static ShadowableWarper create(String name) {
+        try {
+            Object warper = Class.forName(name).getDeclaredConstructor().newInstance();
+            if (warper instanceof ShadowableWarper) return (ShadowableWarper) warper;
+            System.out.println(name + " doesn't use a WarpMover and can't be replayed");
+        } catch (ClassNotFoundException e) {
+            System.out.println(name + " was not found");
+        } catch (NoSuchMethodException e) {
+            System.out.println(name + " has no constructor without arguments");
+        } catch (InvocationTargetException e) {
+            System.out.println(name + " couldn't be created: " + e.getCause());
+        } catch (Exception e) {
+            System.out.println(name + " couldn't be created: " + e);
+        }
+        return null;
+    }
+}
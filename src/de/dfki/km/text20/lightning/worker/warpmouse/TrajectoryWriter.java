@@ -0,0 +1,177 @@
+/*
+ * TrajectoryWriter.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import java.awt.Dimension;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes mouse samples, fixations and clicks into a compact binary trajectory log. The log starts 
+ * with a header of four ints: magic number, time between two positions in milliseconds, screen 
+ * width and screen height. Each record starts with a type byte. A sample stores its position as 
+ * two shorts and the time since the previous sample in nanoseconds as int, the highest bit of the 
+ * type marks a valid fixation. A fixation or a click stores only its position. If the time of a sample doesn't 
+ * fit into an int, a time record with the absolute time as long comes first. So a sample takes 
+ * 9 bytes. Write errors are printed once, the following records are ignored.
+ */
+public class TrajectoryWriter implements SampleSink {
+
+    /** first int of every trajectory log */
+    static final int MAGIC = 0x4C545231;
+
+    /** record type of a sample */
+    static final int SAMPLE = 0;
+
+    /** record type of a sample which is also given to addMousePosition */
+    static final int POSITION = 1;
+
+    /** record type of a new fixation */
+    static final int FIXATION = 2;
+
+    /** record type of an absolute time */
+    static final int TIME = 3;
+
+    /** record type of a click of the user */
+    static final int CLICK = 4;
+
+    /** flag of a sample with valid fixation */
+    static final int VALID = 0x80;
+
+    /** target stream */
+    private final DataOutputStream out;
+
+    /** time of the previous sample in nanoseconds */
+    private long last;
+
+    /** indicates if a time record was written */
+    private boolean timed;
+
+    /** indicates if writing failed */
+    private boolean broken;
+
+    /**
+     * writes the header
+     * 
+     * @param stream target, should be buffered
+     * @param interval time between two calls of addMousePosition in milliseconds
+     * @param screen size of the screen
+     * @throws IOException
+     */
+    public TrajectoryWriter(OutputStream stream, int interval, Dimension screen) throws IOException {
+        this.out = new DataOutputStream(stream);
+        this.last = 0;
+        this.timed = false;
+        this.broken = false;
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(interval);
+        this.out.writeInt(screen.width);
+        this.out.writeInt(screen.height);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#sample(int, int, long, boolean, boolean)
+     */
+    @Override
+    public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid) {
+        if (this.broken) return;
+        try {
+            long delta = nanos - this.last;
+            if (!this.timed || (delta < 0) || (delta > Integer.MAX_VALUE)) {
+                this.out.writeByte(TIME);
+                this.out.writeLong(nanos);
+                this.timed = true;
+                delta = 0;
+            }
+            this.out.writeByte((position ? POSITION : SAMPLE) | (isFixationValid ? VALID : 0));
+            this.out.writeShort(clamp(x));
+            this.out.writeShort(clamp(y));
+            this.out.writeInt((int) delta);
+            this.last = nanos;
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#fixation(int, int)
+     */
+    @Override
+    public void fixation(int x, int y) {
+        if (this.broken) return;
+        try {
+            this.out.writeByte(FIXATION);
+            this.out.writeShort(clamp(x));
+            this.out.writeShort(clamp(y));
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#click(int, int)
+     */
+    @Override
+    public void click(int x, int y) {
+        if (this.broken) return;
+        try {
+            this.out.writeByte(CLICK);
+            this.out.writeShort(clamp(x));
+            this.out.writeShort(clamp(y));
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * @return given coordinate limited to the range of a short
+     */
+    private static int clamp(int value) {
+        return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    /**
+     * ignores all following records
+     */
+    private void fail(IOException e) {
+        System.out.println("TrajectoryWriter - the log couldn't be written");
+        e.printStackTrace();
+        this.broken = true;
+    }
+
+    /**
+     * writes all buffered records and closes the stream
+     */
+    public void close() {
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -19,29 +19,58 @@
  * MA 02110-1301  USA
  */
 package de.dfki.km.text20.lightning.worker.warpmouse;
-
 import java.awt.MouseInfo;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-import javax.swing.Timer;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 import de.dfki.km.text20.lightning.MainClass;
 import de.dfki.km.text20.lightning.Properties;
+import de.dfki.km.text20.lightning.diagnosis.ClickTimings;
 import de.dfki.km.text20.lightning.plugins.InternalPluginManager;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseSampleListener;
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseWarper;
+import de.dfki.km.text20.lightning.worker.GazeSnapshot;
+import de.dfki.km.text20.lightning.worker.GazeState;
 
 /**
- * This class tracks the position of the mouse pointer every 100ms. 
- * This timer can be started ore stopped by this class. 
- * By stopping the timer mouse warping is disabled.
+ * Mouse sampling service. A dedicated thread samples the position of the mouse pointer every 
+ * millisecond against fixed deadlines, so neither repaints on the event dispatch thread nor late 
+ * wake ups shift the following samples. Every sample is given to warpers which implement 
+ * MouseSampleListener, every 10ms the position is added to the current warper. If neither such a 
+ * warper nor the shadow mode or the recording is active, the pointer is only queried every 10ms.
+ * The delay of each taken sample behind its deadline is recorded in the click timings. 
+ * The service can be started ore stopped by this class. By stopping it mouse warping is disabled.
+ * New fixations and updates of their centers are taken from the gaze state and handed to the warper 
+ * on the same thread, so the warper never sees fixation and mouse positions from different threads.
+ * If the shadow mode is enabled, samples and fixations are also queued for the ShadowWarpers,
+ * if recording is enabled, they are written to a trajectory log by the TrajectoryRecorder together
+ * with the clicks of the user.
  * 
  * @author Christoph Käding 
  * 
  */
-public class WarpCommander {
+public class WarpCommander implements Runnable {
+
+    /** time between two samples in nanoseconds */
+    private static final long SAMPLE_INTERVAL = 1000000;
+
+    /** number of samples between two calls of addMousePosition */
+    private static final int SAMPLES_PER_POSITION = 10;
+
+    /** time between two calls of addMousePosition in milliseconds, given to the warpers */
+    static final int POSITION_INTERVAL = 10;
 
-    /** timer which clocks the mouse position tracking */
-    private Timer timer;
+    /** sampling thread, null if stopped, a replaced thread ends itself */
+    private volatile Thread sampler;
+
+    /** shadow mode, null if it is disabled */
+    private volatile ShadowWarpers shadow;
+
+    /** recorder of the trajectory log, null if it is disabled */
+    private volatile TrajectoryRecorder recorder;
 
     /** internal used plugin manager */
     private InternalPluginManager manager;
@@ -49,41 +78,161 @@ public class WarpCommander {
     /** global used properties */
     private Properties properties;
 
+    /** latest gaze data of the tracker */
+    private GazeState gaze;
+
+    /** version of the last fixation which was handed to the warper */
+    private long forwardedFixation;
+
+    /** clicks which are not handed to the recorder yet */
+    private ConcurrentLinkedQueue<Point> clicks;
+
     /**
-     * creates a new WarpCommander and initializes the timer.
+     * creates a new WarpCommander.
      */
     public WarpCommander() {
         // initialize variables
         this.properties = MainClass.getInstance().getProperties();
         this.manager = MainClass.getInstance().getInternalPluginManager();
-        final int interval = 10;
-
-        // initialize timer
-        this.timer = new Timer(interval, new ActionListener() {
-
-            @SuppressWarnings({ "synthetic-access", "unqualified-field-access" })
-            @Override
-            public void actionPerformed(ActionEvent arg0) {
+        this.gaze = MainClass.getInstance().getGazeState();
+        this.forwardedFixation = 0;
+        this.clicks = new ConcurrentLinkedQueue<Point>();
+    }
 
-                if (manager.getCurrentMouseWarper() != null)
-                    manager.getCurrentMouseWarper().addMousePosition(MouseInfo.getPointerInfo().getLocation(), interval, MainClass.getInstance().isTrackingValid());
-            }
-        });
+    /**
+     * starts the sampling thread, the shadow mode and the recording are closed if they were disabled meanwhile
+     */
+    public synchronized void start() {
+        if (!this.properties.isShadowWarpers() && (this.shadow != null)) {
+            this.shadow.close();
+            this.shadow = null;
+        }
+        if (!this.properties.isRecordTrajectory() && (this.recorder != null)) {
+            this.recorder.close();
+            this.recorder = null;
+        }
+        if ((!this.properties.isUseWarp() && !this.properties.isShadowWarpers() && !this.properties.isRecordTrajectory()) || (this.sampler != null)) return;
+        if (this.properties.isShadowWarpers() && (this.shadow == null)) this.shadow = new ShadowWarpers(this.manager);
+        if (this.properties.isRecordTrajectory() && (this.recorder == null)) try {
+            this.recorder = new TrajectoryRecorder();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.sampler = new Thread(this, "MouseSampler");
+        this.sampler.setDaemon(true);
+        this.sampler.setPriority(Thread.NORM_PRIORITY + 1);
+        this.sampler.start();
+    }
 
+    /**
+     * stops the sampling thread
+     */
+    public synchronized void stop() {
+        if (this.sampler == null) return;
+        this.sampler.interrupt();
+        this.sampler = null;
     }
 
     /**
-     * starts the timer
+     * stops the sampling thread, the shadow mode and the recording, the report of the shadow mode 
+     * is written and the trajectory log is closed
      */
-    public void start() {
-        if (this.properties.isUseWarp()) this.timer.start();
+    public synchronized void close() {
+        this.stop();
+        if (this.shadow != null) this.shadow.close();
+        if (this.recorder != null) this.recorder.close();
+        this.shadow = null;
+        this.recorder = null;
+        this.clicks.clear();
     }
 
     /**
-     * stops the timer
+     * Records a click of the user if the trajectory is recorded, so the WarperTuner knows where 
+     * the user wanted to go. The click is handed to the recorder by the sampler, so it stays in 
+     * order with the samples.
+     * 
+     * @param x position where the button was pressed
+     * @param y
+     */
+    public void click(int x, int y) {
+        if (this.recorder != null) this.clicks.offer(new Point(x, y));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Runnable#run()
      */
-    public void stop() {
-        this.timer.stop();
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        long deadline = System.nanoTime();
+        int count = 0;
+
+        while (this.sampler == self) {
+            // wait for the next deadline
+            long now = System.nanoTime();
+            while (now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                if (this.sampler != self) return;
+                now = System.nanoTime();
+            }
+            long delay = now - deadline;
+
+            // skip deadlines which were missed completely instead of catching up with a burst of samples
+            long missed = delay / SAMPLE_INTERVAL;
+            deadline += (missed + 1) * SAMPLE_INTERVAL;
+            count += missed + 1;
+
+            if (this.sample(now, count >= SAMPLES_PER_POSITION)) ClickTimings.getInstance().recordSampling(delay);
+            if (count >= SAMPLES_PER_POSITION) count = 0;
+        }
     }
 
+    /**
+     * takes one sample and gives it to the current warper, the shadows and the recorder
+     * 
+     * @param now time of the sample in nanoseconds
+     * @param addPosition true if also addMousePosition should be called
+     * @return true if the pointer was queried
+     */
+    private boolean sample(long now, boolean addPosition) {
+        MouseWarper warper = this.properties.isUseWarp() ? this.manager.getCurrentMouseWarper() : null;
+        ShadowWarpers shadows = this.shadow;
+        TrajectoryRecorder trajectory = this.recorder;
+        if ((warper == null) && (shadows == null) && (trajectory == null)) return false;
+
+        // between two positions a sample is only needed by a sample listener, the shadows or the recorder
+        if (!addPosition && (shadows == null) && (trajectory == null) && !(warper instanceof MouseSampleListener)) return false;
+
+        // the pointer info is null if no mouse is available
+        PointerInfo pointer = MouseInfo.getPointerInfo();
+        if (pointer == null) return true;
+        Point position = pointer.getLocation();
+
+        // hand over a new or refined fixation, shadows and recorder take it before the warper can change it
+        if (this.gaze.getFixationVersion() != this.forwardedFixation) {
+            GazeSnapshot snapshot = this.gaze.get();
+            this.forwardedFixation = snapshot.getFixationVersion();
+            Point fixation = snapshot.getFixation();
+            if ((shadows != null) && (fixation != null)) shadows.fixation(fixation.x, fixation.y);
+            if ((trajectory != null) && (fixation != null)) trajectory.fixation(fixation.x, fixation.y);
+            if (warper != null) warper.setFixationPoint(fixation);
+        }
+
+        // hand over the clicks since the last sample
+        Point click;
+        while ((click = this.clicks.poll()) != null)
+            if (trajectory != null) trajectory.click(click.x, click.y);
+        boolean valid = addPosition && this.gaze.isValid();
+
+        if (warper != null) {
+            if (warper instanceof MouseSampleListener)
+                ((MouseSampleListener) warper).addMouseSample(position.x, position.y, now);
+            if (addPosition) warper.addMousePosition(position, POSITION_INTERVAL, valid);
+        }
+        if (shadows != null) shadows.sample(position.x, position.y, now, addPosition, valid);
+        if (trajectory != null) trajectory.sample(position.x, position.y, now, addPosition, valid);
+        return true;
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * WarperDriver.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import java.awt.Dimension;
+import java.awt.Point;
+
+import de.dfki.km.text20.lightning.plugins.mousewarp.MouseSampleListener;
+import de.dfki.km.text20.lightning.plugins.mousewarp.ShadowableWarper;
+import de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover;
+
+/**
+ * Drives a ShadowableWarper by queued or recorded samples instead of the live mouse. The driver 
+ * is the WarpMover of the warper, so time and cursor position are taken from the current sample 
+ * and a warp only moves the simulated cursor and is counted. The warper is started at the first 
+ * sample, if it throws an exception it is not used anymore. Used by the shadow mode and the 
+ * replay of trajectory logs.
+ */
+public class WarperDriver implements SampleSink, WarpMover {
+
+    /** driven warper */
+    private final ShadowableWarper warper;
+
+    /** display name of the warper */
+    private final String name;
+
+    /** size of the simulated screen */
+    private final Dimension screen;
+
+    /** time between two calls of addMousePosition in milliseconds */
+    private final int interval;
+
+    /** position of the simulated cursor */
+    private final Point location;
+
+    /** position given to addMousePosition, reused because the warpers only read it */
+    private final Point position;
+
+    /** time of the current sample in nanoseconds */
+    private long now;
+
+    /** fixation which arrived before the warper was started, null if there is none */
+    private Point pending;
+
+    /** indicates if the warper is started */
+    private boolean started;
+
+    /** indicates if the warper threw an exception and is not used anymore */
+    private boolean failed;
+
+    /** number of samples */
+    private long samples;
+
+    /** number of warps */
+    private long warps;
+
+    /** sum of the known warp distances */
+    private long distances;
+
+    /** number of warps with known distance */
+    private long distanceCount;
+
+    /** sum of the known radii around the fixation */
+    private long radii;
+
+    /** number of warps with known radius */
+    private long radiusCount;
+
+    /**
+     * creates the driver and sets it as mover of the warper
+     * 
+     * @param warper new instance which is not started yet
+     * @param screen size of the simulated screen
+     * @param interval time between two calls of addMousePosition in milliseconds
+     */
+    public WarperDriver(ShadowableWarper warper, Dimension screen, int interval) {
+        this.warper = warper;
+        this.name = warper.getInformation().getDisplayName();
+        this.screen = new Dimension(screen);
+        this.interval = interval;
+        this.location = new Point();
+        this.position = new Point();
+        this.now = 0;
+        this.pending = null;
+        this.started = false;
+        this.failed = false;
+        this.warper.setWarpMover(this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#sample(int, int, long, boolean, boolean)
+     */
+    @Override
+    public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid) {
+        if (this.failed) return;
+        this.now = nanos;
+        this.location.setLocation(x, y);
+        this.samples++;
+        try {
+            // the warper takes time and cursor of the first sample on start
+            if (!this.started) {
+                this.started = true;
+                this.warper.start();
+                if (this.pending != null) this.warper.setFixationPoint(this.pending);
+                this.pending = null;
+            }
+
+            if (this.warper instanceof MouseSampleListener)
+                ((MouseSampleListener) this.warper).addMouseSample(x, y, nanos);
+            if (position) {
+                this.position.setLocation(x, y);
+                this.warper.addMousePosition(this.position, this.interval, isFixationValid);
+            }
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#fixation(int, int)
+     */
+    @Override
+    public void fixation(int x, int y) {
+        if (this.failed) return;
+        if (!this.started) {
+            this.pending = new Point(x, y);
+            return;
+        }
+        try {
+            this.warper.setFixationPoint(new Point(x, y));
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.worker.warpmouse.SampleSink#click(int, int)
+     */
+    @Override
+    public void click(int x, int y) {
+        // the warpers don't know about clicks
+    }
+
+    /**
+     * stops using the warper
+     */
+    private void fail(RuntimeException e) {
+        System.out.println("WarperDriver - " + this.name + " failed and is stopped");
+        e.printStackTrace();
+        this.failed = true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#move(java.lang.String,
+     * java.awt.Point, int, int, double)
+     */
+    @Override
+    public void move(String method, Point target, int distance, int radius, double speed) {
+        this.warps++;
+        if (distance >= 0) {
+            this.distances += distance;
+            this.distanceCount++;
+        }
+        if (radius >= 0) {
+            this.radii += radius;
+            this.radiusCount++;
+        }
+        this.warped(method, target, distance, radius, speed);
+        this.location.setLocation(target);
+    }
+
+    /**
+     * Called for each warp before the simulated cursor is moved, so getMouseLocation still returns 
+     * the position before the warp. Does nothing by default.
+     * 
+     * @param method display name of the warper
+     * @param target point the cursor would have been moved to
+     * @param distance warped distance in pixels, -1 if unknown
+     * @param radius distance between target and fixation in pixels, -1 if unknown
+     * @param speed mouse speed in pixel per millisecond, NaN if unknown
+     */
+    protected void warped(String method, Point target, int distance, int radius, double speed) {
+        // nothing to do by default
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#isShadow()
+     */
+    @Override
+    public boolean isShadow() {
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#nanoTime()
+     */
+    @Override
+    public long nanoTime() {
+        return this.now;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#getMouseLocation()
+     */
+    @Override
+    public Point getMouseLocation() {
+        return new Point(this.location);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see de.dfki.km.text20.lightning.plugins.mousewarp.WarpMover#getScreenSize()
+     */
+    @Override
+    public Dimension getScreenSize() {
+        return new Dimension(this.screen);
+    }
+
+    /**
+     * @return display name of the warper
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return number of samples
+     */
+    public long getSamples() {
+        return this.samples;
+    }
+
+    /**
+     * @return number of warps
+     */
+    public long getWarps() {
+        return this.warps;
+    }
+
+    /**
+     * @return true if the warper threw an exception
+     */
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+    /**
+     * @param minutes duration of the samples
+     * @return counters of the warper
+     */
+    public String report(double minutes) {
+        StringBuilder report = new StringBuilder(this.name + ": warps=" + this.warps);
+        if (minutes > 0) report.append(String.format(", per minute=%.2f", Double.valueOf(this.warps / minutes)));
+        if (this.distanceCount > 0) report.append(", mean distance=" + (this.distances / this.distanceCount) + " px");
+        if (this.radiusCount > 0) report.append(", mean radius=" + (this.radii / this.radiusCount) + " px");
+        if (this.failed) report.append(", failed");
+        return report.toString();
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * WarperTuner.java
+ * 
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import de.dfki.km.text20.lightning.plugins.mousewarp.TunableWarper;
+
+/**
+ * Offline tuner for the parameters of a TunableWarper. Each parameter is swept over a grid 
+ * between half and double of its current value and every configuration is replayed over all 
+ * given trajectory logs by a pool with one thread per core. The logs are shared in memory, a 
+ * replay only creates the warper and its driver. 
+ * The next click is taken as the target the user wanted to reach. A warp gains the distance it 
+ * saved on the way to this target, a false warp lands farther away from it than the cursor was 
+ * and costs an additional penalty. Logs which were recorded without clicks use the points where 
+ * the cursor comes to rest after a movement instead. The configuration with the highest score is 
+ * printed and with -write stored in the properties file of the warper.
+ * 
+ * Usage: WarperTuner [-steps n] [-threads n] [-write] warper-class log ...
+ */
+public class WarperTuner {
+
+    /** time the cursor has to stand still to be at rest in nanoseconds */
+    private static final long REST_DURATION = 150000000;
+
+    /** distance the cursor may jitter while it is at rest in pixels */
+    private static final int REST_RADIUS = 3;
+
+    /** penalty of a false warp in pixels */
+    private static final int FALSE_WARP_PENALTY = 100;
+
+    /** recorded sessions */
+    private final Session[] sessions;
+
+    /** warper whose parameters are tuned */
+    private final TunableWarper prototype;
+
+    /** values of each parameter */
+    private final double[][] candidates;
+
+    /** score of each configuration, negative infinity if the warper failed */
+    private final double[] scores;
+
+    /** number of scored warps of each configuration */
+    private final long[] warps;
+
+    /** number of false warps of each configuration */
+    private final long[] falseWarps;
+
+    /** mean distance between warp and user target of each configuration */
+    private final double[] landings;
+
+    /**
+     * @param prototype warper whose parameters are tuned
+     * @param sessions recorded sessions
+     * @param steps number of values of each parameter
+     */
+    private WarperTuner(TunableWarper prototype, Session[] sessions, int steps) {
+        this.prototype = prototype;
+        this.sessions = sessions;
+
+        // grid around the current values, a parameter of 0 is swept in steps of 10
+        double[] current = prototype.getParameters();
+        this.candidates = new double[current.length][steps];
+        int count = 1;
+        for (int i = 0; i < current.length; i++) {
+            for (int j = 0; j < steps; j++) {
+                double exponent = (steps == 1) ? 0 : (2.0 * j / (steps - 1)) - 1;
+                this.candidates[i][j] = (current[i] == 0) ? 10 * j : current[i] * Math.pow(2, exponent);
+            }
+            count *= steps;
+        }
+
+        // the last configuration holds the current values
+        this.scores = new double[count + 1];
+        this.warps = new long[count + 1];
+        this.falseWarps = new long[count + 1];
+        this.landings = new double[count + 1];
+    }
+
+    /**
+     * @param args [-steps n] [-threads n] [-write] warper-class log ...
+     * @throws IOException if a log can't be read
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int steps = 5;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean write = false;
+        String name = null;
+        List<Session> sessions = new ArrayList<Session>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-steps") && (i + 1 < args.length)) steps = Math.max(1, Integer.parseInt(args[++i]));
+            else if (args[i].equals("-threads") && (i + 1 < args.length)) threads = Math.max(1, Integer.parseInt(args[++i]));
+            else if (args[i].equals("-write")) write = true;
+            else if (name == null) name = args[i];
+            else sessions.add(new Session(new File(args[i])));
+        }
+        if (sessions.isEmpty()) {
+            System.out.println("Usage: WarperTuner [-steps n] [-threads n] [-write] warper-class log ...");
+            return;
+        }
+
+        TunableWarper prototype;
+        try {
+            prototype = (TunableWarper) Class.forName(name).getDeclaredConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            System.out.println(name + " couldn't be created: " + e.getCause());
+            return;
+        } catch (Exception e) {
+            System.out.println(name + " is no TunableWarper: " + e);
+            return;
+        }
+
+        WarperTuner tuner = new WarperTuner(prototype, sessions.toArray(new Session[sessions.size()]), steps);
+        int best = tuner.run(threads);
+
+        int current = tuner.scores.length - 1;
+        System.out.println("current: " + tuner.describe(current));
+        System.out.println("best:    " + tuner.describe(best));
+        if (write && (best != current) && (tuner.scores[best] > tuner.scores[current])) {
+            prototype.storeParameters(tuner.configuration(best));
+            System.out.println("the best configuration was written to the properties");
+        }
+    }
+
+    /**
+     * replays all configurations
+     * 
+     * @param threads size of the pool
+     * @return index of the best configuration
+     * @throws InterruptedException
+     */
+    private int run(int threads) throws InterruptedException {
+        long samples = 0;
+        for (Session session : this.sessions)
+            samples += session.reader.getSamples();
+        System.out.println("tuning " + this.prototype.getInformation().getDisplayName() + ": " + this.scores.length + " configurations, " + this.sessions.length + " logs, " + samples + " samples, " + threads + " threads");
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < this.scores.length; i++) {
+            final int index = i;
+            pool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    WarperTuner.this.evaluate(index);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double seconds = (System.nanoTime() - start) / 1000000000.0;
+        System.out.println(String.format("%d replays in %.2f s, %.0f samples/s", Long.valueOf(this.scores.length * (long) this.sessions.length), Double.valueOf(seconds), Double.valueOf(samples * this.scores.length / seconds)));
+
+        int best = this.scores.length - 1;
+        for (int i = 0; i < this.scores.length; i++)
+            if (this.scores[i] > this.scores[best]) best = i;
+        return best;
+    }
+
+    /**
+     * replays all sessions with the given configuration and stores the results, called by the pool
+     * 
+     * @param index of the configuration
+     */
+    void evaluate(int index) {
+        double[] values = this.configuration(index);
+        long scored = 0;
+        long wrong = 0;
+        double landing = 0;
+        double gain = 0;
+
+        for (Session session : this.sessions) {
+            TunableWarper warper;
+            try {
+                warper = this.prototype.getClass().getDeclaredConstructor().newInstance();
+            } catch (Exception e) {
+                this.scores[index] = Double.NEGATIVE_INFINITY;
+                return;
+            }
+            warper.setParameters(values);
+
+            Scorer scorer = new Scorer(warper, session);
+            session.reader.replay(scorer);
+            if (scorer.isFailed()) {
+                this.scores[index] = Double.NEGATIVE_INFINITY;
+                return;
+            }
+            scored += scorer.scored;
+            wrong += scorer.wrong;
+            landing += scorer.landing;
+            gain += scorer.gain;
+        }
+
+        this.scores[index] = gain - FALSE_WARP_PENALTY * wrong;
+        this.warps[index] = scored;
+        this.falseWarps[index] = wrong;
+        this.landings[index] = (scored == 0) ? 0 : landing / scored;
+    }
+
+    /**
+     * @param index of the configuration, the last one holds the current values
+     * @return values of the parameters
+     */
+    double[] configuration(int index) {
+        if (index == this.scores.length - 1) return this.prototype.getParameters();
+        double[] values = new double[this.candidates.length];
+        int rest = index;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.candidates[i][rest % this.candidates[i].length];
+            rest /= this.candidates[i].length;
+        }
+        return values;
+    }
+
+    /**
+     * @param index of the configuration
+     * @return parameters and results of the configuration
+     */
+    private String describe(int index) {
+        String[] names = this.prototype.getParameterNames();
+        double[] values = this.configuration(index);
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < values.length; i++)
+            description.append(names[i] + "=" + ((values[i] == Math.rint(values[i])) ? String.valueOf((long) values[i]) : String.format("%.2f", Double.valueOf(values[i]))) + ", ");
+        if (this.scores[index] == Double.NEGATIVE_INFINITY) return description + "failed";
+        return description + String.format("score=%.0f, warps=%d, false warps=%d, mean landing=%.0f px", Double.valueOf(this.scores[index]), Long.valueOf(this.warps[index]), Long.valueOf(this.falseWarps[index]), Double.valueOf(this.landings[index]));
+    }
+
+    /**
+     * Points the user wanted to reach, ordered by the time they were reached.
+     */
+    private static class Targets {
+
+        /** times the targets were reached in nanoseconds, ascending */
+        long[] times;
+
+        /** x coordinates of the targets */
+        int[] x;
+
+        /** y coordinates of the targets */
+        int[] y;
+
+        /** number of targets */
+        int size;
+
+        /**
+         * creates an empty list
+         */
+        Targets() {
+            this.times = new long[64];
+            this.x = new int[64];
+            this.y = new int[64];
+            this.size = 0;
+        }
+
+        /**
+         * adds a target
+         */
+        void add(long time, int xValue, int yValue) {
+            if (this.size == this.times.length) {
+                this.times = Arrays.copyOf(this.times, 2 * this.size);
+                this.x = Arrays.copyOf(this.x, 2 * this.size);
+                this.y = Arrays.copyOf(this.y, 2 * this.size);
+            }
+            this.times[this.size] = time;
+            this.x[this.size] = xValue;
+            this.y[this.size] = yValue;
+            this.size++;
+        }
+
+        /**
+         * @param nanos
+         * @return index of the first target at or after the given time, -1 if there is none
+         */
+        int next(long nanos) {
+            int index = Arrays.binarySearch(this.times, 0, this.size, nanos);
+            if (index < 0) index = -index - 1;
+            return (index < this.size) ? index : -1;
+        }
+    }
+
+    /**
+     * Recorded session with the targets of the user.
+     */
+    private static class Session {
+
+        /** the log */
+        final TrajectoryReader reader;
+
+        /** clicks of the user, the rest points of the cursor if the log contains no clicks */
+        final Targets targets;
+
+        /**
+         * reads the log and collects the clicks and the rest points
+         * 
+         * @param file trajectory log
+         * @throws IOException
+         */
+        Session(File file) throws IOException {
+            this.reader = new TrajectoryReader(file);
+            final Targets clicks = new Targets();
+            final Targets rests = new Targets();
+
+            this.reader.replay(new SampleSink() {
+
+                /** position the cursor stands still at */
+                private int anchorX = Integer.MIN_VALUE;
+
+                /** position the cursor stands still at */
+                private int anchorY = Integer.MIN_VALUE;
+
+                /** time the cursor arrived at the anchor */
+                private long arrived;
+
+                /** indicates if the cursor moved since the last rest point */
+                private boolean moved;
+
+                /** time of the previous sample */
+                private long last = Long.MIN_VALUE;
+
+                @Override
+                public void sample(int xValue, int yValue, long nanos, boolean position, boolean isFixationValid) {
+                    this.last = nanos;
+                    if ((Math.abs(xValue - this.anchorX) > REST_RADIUS) || (Math.abs(yValue - this.anchorY) > REST_RADIUS)) {
+                        this.anchorX = xValue;
+                        this.anchorY = yValue;
+                        this.arrived = nanos;
+                        this.moved = true;
+                    } else if (this.moved && (nanos - this.arrived >= REST_DURATION)) {
+                        rests.add(this.arrived, this.anchorX, this.anchorY);
+                        this.moved = false;
+                    }
+                }
+
+                @Override
+                public void fixation(int xValue, int yValue) {
+                    // not needed
+                }
+
+                @Override
+                public void click(int xValue, int yValue) {
+                    // the sampler hands the click over right after the previous sample
+                    clicks.add(this.last, xValue, yValue);
+                }
+            });
+
+            this.targets = (clicks.size > 0) ? clicks : rests;
+            if (clicks.size > 0) System.out.println(file + ": " + this.reader.getSamples() + " samples, " + clicks.size + " clicks");
+            else
+                System.out.println(file + ": " + this.reader.getSamples() + " samples, no clicks, " + rests.size + " rest points");
+        }
+    }
+
+    /**
+     * Driver which scores the warps by the following target of the user.
+     */
+    private static class Scorer extends WarperDriver {
+
+        /** replayed session */
+        private final Session session;
+
+        /** number of warps which were followed by a target */
+        long scored;
+
+        /** number of warps which landed farther from the target than the cursor was */
+        long wrong;
+
+        /** sum of the distances between warp and target */
+        double landing;
+
+        /** sum of the distances the warps saved on the way to the target */
+        double gain;
+
+        /**
+         * @param warper new instance
+         * @param session
+         */
+        Scorer(TunableWarper warper, Session session) {
+            super(warper, session.reader.getScreenSize(), session.reader.getInterval());
+            this.session = session;
+        }
+
+        /*
+         * (non-Javadoc)
+         * 
+         * @see de.dfki.km.text20.lightning.worker.warpmouse.WarperDriver#warped(java.lang.String,
+         * java.awt.Point, int, int, double)
+         */
+        @Override
+        protected void warped(String method, Point target, int distance, int radius, double speed) {
+            Targets targets = this.session.targets;
+            int next = targets.next(this.nanoTime());
+            if (next < 0) return;
+
+            double before = this.getMouseLocation().distance(targets.x[next], targets.y[next]);
+            double after = target.distance(targets.x[next], targets.y[next]);
+            this.scored++;
+            this.landing += after;
+            this.gain += before - after;
+            if (after > before) this.wrong++;
+        }
+    }
+}
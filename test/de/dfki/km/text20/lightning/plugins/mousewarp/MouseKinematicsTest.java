@@ -0,0 +1,125 @@
+/*
+ * MouseKinematicsTest.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.mousewarp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Fits MouseKinematics to trajectories whose velocity and acceleration are known. All positions
+ * are whole pixels, so the fit has to be exact up to rounding errors.
+ */
+public class MouseKinematicsTest {
+
+    /** allowed error of velocities and accelerations */
+    private static final double DELTA = 1e-6;
+
+    /** arbitrary start time, the fit must only depend on the differences */
+    private static final long BASE = 123456789000000L;
+
+    /**
+     * @return time of the given millisecond in nanoseconds
+     */
+    private static long nanos(int millis) {
+        return BASE + millis * 1000000L;
+    }
+
+    /**
+     * asserts velocity at the newest position and tangential acceleration
+     */
+    private static void assertMovement(MouseKinematics kinematics, double vx, double vy, double ax,
+                                       double ay) {
+        assertEquals(vx, kinematics.getVelocityX(), DELTA);
+        assertEquals(vy, kinematics.getVelocityY(), DELTA);
+        assertEquals(Math.sqrt(vx * vx + vy * vy), kinematics.getSpeed(), DELTA);
+        assertEquals((ax * vx + ay * vy) / Math.sqrt(vx * vx + vy * vy), kinematics.getTangentialAcceleration(), DELTA);
+    }
+
+    /**
+     * constant velocity of 2 and -1 pixel per millisecond
+     */
+    @Test
+    public void testLinear() {
+        MouseKinematics kinematics = new MouseKinematics(10);
+        for (int t = 0; t < 100; t += 10)
+            kinematics.add(100 + 2 * t, 500 - t, nanos(t));
+
+        assertMovement(kinematics, 2, -1, 0, 0);
+        assertTrue(kinematics.isInCone(290, 410, 390, 360, MouseKinematics.coneCosine(1)));
+        assertFalse(kinematics.isInCone(290, 410, 190, 460, MouseKinematics.coneCosine(90)));
+
+        // a resting mouse has no direction
+        kinematics.fill(290, 410, nanos(100));
+        assertEquals(0, kinematics.getSpeed(), 0);
+        assertFalse(kinematics.isInCone(290, 410, 390, 360, MouseKinematics.coneCosine(90)));
+    }
+
+    /**
+     * constant acceleration of 2 and -4 pixel per square millisecond
+     */
+    @Test
+    public void testQuadratic() {
+        MouseKinematics kinematics = new MouseKinematics(10);
+        for (int t = 0; t < 100; t += 10)
+            kinematics.add(10 + 3 * t + t * t, 20000 + 5 * t - 2 * t * t, nanos(t));
+
+        // velocity at the newest position t = 90
+        assertMovement(kinematics, 3 + 2 * 90, 5 - 4 * 90, 2, -4);
+    }
+
+    /**
+     * The sums are rebuilt once per window length and updated incrementally in between, every
+     * estimation on the way has to be exact.
+     */
+    @Test
+    public void testAfterRebuild() {
+        int window = 8;
+        MouseKinematics kinematics = new MouseKinematics(window);
+        for (int i = 0; i < 10 * window; i++) {
+            int t = 5 * i;
+            kinematics.add(7 * t, 300 + t * t, nanos(t));
+            if (i < 2) continue;
+            assertMovement(kinematics, 7, 2 * t, 0, 2);
+        }
+        assertEquals(window, kinematics.getTrajectory().size());
+    }
+
+    /**
+     * Samples arrive late or early, the fit uses their real times.
+     */
+    @Test
+    public void testJitteredTimestamps() {
+        Random random = new Random(42);
+        MouseKinematics kinematics = new MouseKinematics(12);
+        int t = 0;
+        for (int i = 0; i < 50; i++) {
+            t += 10 + random.nextInt(7) - 3;
+            kinematics.add(-4 * t + t * t, 1000 + 3 * t, nanos(t));
+            if (i < 2) continue;
+            assertMovement(kinematics, -4 + 2 * t, 3, 2, 0);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * BoxMergerTest.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.plugins.saliency.textdetector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Compares BoxMerger with the all-pairs merge loop of the original GetImageText.
+ */
+public class BoxMergerTest {
+
+    /** width of the screenshot */
+    private static final int WIDTH = 300;
+
+    /** height of the screenshot */
+    private static final int HEIGHT = 500;
+
+    /**
+     * Two tall boxes 150 pixels apart merge by density, aspect and mass only, two boxes on
+     * the same line merge as well and a small flat box stays alone.
+     */
+    private static TextBoxes fixture() {
+        TextBoxes boxes = new TextBoxes();
+        boxes.add(0, 0, 10, 100, WIDTH, HEIGHT, 400);
+        boxes.add(200, 150, 210, 250, WIDTH, HEIGHT, 400);
+        boxes.add(50, 280, 150, 290, WIDTH, HEIGHT, 5);
+        boxes.add(20, 400, 80, 410, WIDTH, HEIGHT, 100);
+        boxes.add(85, 402, 140, 412, WIDTH, HEIGHT, 100);
+        return boxes;
+    }
+
+    /**
+     * the merge loop of the original GetImageText, ported to the box table
+     */
+    private static TextBoxes baselineMerge(GetImageText analyser, TextBoxes boxes) {
+        boolean change = true;
+        while (change == true) {
+            change = false;
+            int i = 0;
+            while (i < boxes.size()) {
+                int j = 0;
+                while (i < boxes.size() && j < boxes.size()) {
+                    if (i != j) {
+                        change = analyser.merge(boxes, i, j);
+                        if (change) {
+                            boxes.remove(j);
+                            j--;
+                        }
+                    }
+                    j++;
+                }
+                i++;
+            }
+        }
+        return boxes;
+    }
+
+    /**
+     * @return the boxes as sorted strings, the order of the table is not stable
+     */
+    private static List<String> describe(TextBoxes boxes) {
+        List<String> result = new ArrayList<String>();
+        for (int i = 0; i < boxes.size(); i++)
+            result.add(boxes.x1(i) + "," + boxes.y1(i) + "," + boxes.x2(i) + "," + boxes.y2(i) + ":" + boxes.mass(i));
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * asserts that both merges lead to the same boxes
+     */
+    private static void assertSameAsBaseline(GetImageText analyser) {
+        List<String> expected = describe(baselineMerge(analyser, fixture()));
+        List<String> actual = describe(new BoxMerger(analyser, fixture(), HEIGHT).merge());
+
+        assertEquals(3, expected.size());
+        assertTrue(expected.contains("0,0,210,250:800.0"));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * distant boxes are merged although they are outside of each other's bands
+     */
+    @Test
+    public void testMergeWithoutDistanceReason() {
+        GetImageText analyser = new GetImageText(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB), 0.01, 15, 4, 1, 20);
+
+        // the tall boxes are further apart than both merge distances
+        TextBoxes boxes = fixture();
+        assertTrue(boxes.y1(1) - boxes.y2(0) > analyser.merge_dist2);
+        assertEquals(5, analyser.reasonsWithoutDistance(boxes, 0, 1));
+
+        assertSameAsBaseline(analyser);
+    }
+
+    /**
+     * without merge distances the bands are one line high, the result must not change
+     */
+    @Test
+    public void testMergeWithoutMergeDistance() {
+        GetImageText analyser = new GetImageText(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB), 0.01, 15, 0, 1, 0);
+
+        assertSameAsBaseline(analyser);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * TrajectoryLogTest.java
+ *
+ * Copyright (c) 2011, DFKI. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package de.dfki.km.text20.lightning.worker.warpmouse;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Dimension;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes trajectory logs with the TrajectoryWriter and reads them back with the TrajectoryReader.
+ */
+public class TrajectoryLogTest {
+
+    /** directory of the logs */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Sink which describes every record as string.
+     */
+    private static class Recorder implements SampleSink {
+
+        /** descriptions of the records */
+        final List<String> records = new ArrayList<String>();
+
+        @Override
+        public void sample(int x, int y, long nanos, boolean position, boolean isFixationValid) {
+            this.records.add((position ? "position " : "sample ") + x + "," + y + " at " + nanos + (isFixationValid ? " valid" : ""));
+        }
+
+        @Override
+        public void fixation(int x, int y) {
+            this.records.add("fixation " + x + "," + y);
+        }
+
+        @Override
+        public void click(int x, int y) {
+            this.records.add("click " + x + "," + y);
+        }
+    }
+
+    /**
+     * writes the given records into a new log
+     */
+    private File write(Recorder expected) throws IOException {
+        File file = this.folder.newFile();
+        TrajectoryWriter writer = new TrajectoryWriter(new BufferedOutputStream(new FileOutputStream(file)), 10, new Dimension(1280, 1024));
+        expected.records.clear();
+
+        // the first sample needs an absolute time
+        long start = 5000000000000L;
+        writer.sample(10, 20, start, false, false);
+        writer.fixation(400, 300);
+        writer.sample(11, 21, start + 1000000, true, true);
+        writer.sample(12, 22, start + 2000000, false, true);
+
+        // a gap which doesn't fit into an int and a time which goes backwards need absolute times again
+        writer.sample(13, 23, start + 5000000000L, true, false);
+        writer.click(13, 23);
+        writer.sample(14, 24, start + 4000000000L, false, false);
+
+        // coordinates outside of the range of a short are clamped
+        writer.sample(100000, -50000, start + 4001000000L, true, true);
+        writer.fixation(-70000, 40000);
+        writer.close();
+
+        expected.sample(10, 20, start, false, false);
+        expected.fixation(400, 300);
+        expected.sample(11, 21, start + 1000000, true, true);
+        expected.sample(12, 22, start + 2000000, false, true);
+        expected.sample(13, 23, start + 5000000000L, true, false);
+        expected.click(13, 23);
+        expected.sample(14, 24, start + 4000000000L, false, false);
+        expected.sample(Short.MAX_VALUE, Short.MIN_VALUE, start + 4001000000L, true, true);
+        expected.fixation(Short.MIN_VALUE, Short.MAX_VALUE);
+        return file;
+    }
+
+    /**
+     * all records, header values and counters survive the round trip
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Recorder expected = new Recorder();
+        TrajectoryReader reader = new TrajectoryReader(this.write(expected));
+
+        assertEquals(10, reader.getInterval());
+        assertEquals(new Dimension(1280, 1024), reader.getScreenSize());
+        assertEquals(6, reader.getSamples());
+        assertEquals(1, reader.getClicks());
+        assertEquals(5000000000000L, reader.getFirst());
+
+        // the log can be replayed more than once
+        for (int run = 0; run < 2; run++) {
+            Recorder actual = new Recorder();
+            assertEquals(6, reader.replay(actual));
+            assertEquals(expected.records, actual.records);
+        }
+    }
+
+    /**
+     * a log which wasn't closed properly loses only its last record
+     */
+    @Test
+    public void testTruncatedLastRecord() throws IOException {
+        Recorder expected = new Recorder();
+        File file = this.write(expected);
+
+        // cut the last fixation and the sample before it in the middle of their records
+        for (int cut : new int[] { 1, 4, 5 + 3 }) {
+            File truncated = this.folder.newFile();
+            RandomAccessFile copy = new RandomAccessFile(truncated, "rw");
+            RandomAccessFile original = new RandomAccessFile(file, "r");
+            try {
+                byte[] bytes = new byte[(int) original.length() - cut];
+                original.readFully(bytes);
+                copy.write(bytes);
+            } finally {
+                original.close();
+                copy.close();
+            }
+
+            Recorder actual = new Recorder();
+            TrajectoryReader reader = new TrajectoryReader(truncated);
+            reader.replay(actual);
+            int lost = cut < 5 ? 1 : 2;
+            assertEquals(expected.records.subList(0, expected.records.size() - lost), actual.records);
+            assertEquals(lost == 1 ? 6 : 5, reader.getSamples());
+        }
+    }
+
+    /**
+     * files without the header are rejected
+     */
+    @Test(expected = IOException.class)
+    public void testNoTrajectoryLog() throws IOException {
+        File file = this.folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[32]);
+        } finally {
+            out.close();
+        }
+        new TrajectoryReader(file);
+    }
+}